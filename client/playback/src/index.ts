@@ -7,8 +7,8 @@ import * as soa from './soa';
 import Match from './match';
 import {Log,Block,Transaction} from './match';
 import Game from './game';
-import { flatbuffers, schema } from 'battlecode-schema';
+import { flatbuffers, schema, readEvents } from 'battlecode-schema';
 
-export {Game, Log, Block, Transaction, Match, GameWorld, gameworld, Metadata, metadata, StructOfArrays, soa, flatbuffers, schema};
+export {Game, Log, Block, Transaction, Match, GameWorld, gameworld, Metadata, metadata, StructOfArrays, soa, flatbuffers, schema, readEvents};
 
 // TODO provide ergonomic main export
@@ -1,4 +1,4 @@
-import {Game, schema, flatbuffers} from 'battlecode-playback';
+import {Game, schema, flatbuffers, readEvents} from 'battlecode-playback';
 import {Config} from './config';
 
 /**
@@ -37,7 +37,10 @@ export default class WebSocketListener {
       console.log(`Connected to ${this.url}`);
     };
     ws.onmessage = (event) => {
-      this.handleEvent(<ArrayBuffer> event.data);
+      // a message is one event, or a batch of them
+      for (const data of readEvents(new Uint8Array(<ArrayBuffer> event.data))) {
+        this.handleEvent(data);
+      }
     };
     ws.onerror = (event) => {
     };
@@ -51,10 +54,8 @@ export default class WebSocketListener {
   /**
    * Handle a new event.
    */
-  private handleEvent(data: ArrayBuffer) {
-    const event = schema.EventWrapper.getRootAsEventWrapper(
-      new flatbuffers.ByteBuffer(new Uint8Array(data))
-    );
+  private handleEvent(data: flatbuffers.ByteBuffer) {
+    const event = schema.EventWrapper.getRootAsEventWrapper(data);
 
     if (event.eType() === schema.Event.GameHeader) {
       if (this.currentGame !== null) {
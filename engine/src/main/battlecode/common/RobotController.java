@@ -336,6 +336,48 @@ public strictfp interface RobotController {
      */
     boolean senseFlooding(MapLocation loc) throws GameActionException;
 
+    /**
+     * Returns the crude soup count at every location within the sensor
+     * radius of the robot, in one call.
+     *
+     * The values are laid out row by row in the square around the robot
+     * that covers its sensor radius: with r the floor of the square root of
+     * getCurrentSensorRadiusSquared(), the square is 2r + 1 locations wide,
+     * and the value at location (x, y) is at index
+     * (x - myX + r) + (y - myY + r) * (2r + 1). Locations the robot can't
+     * sense, because they're out of range or off the map, have a count of -1.
+     *
+     * @return the crude soup count at every location in the square around
+     * the robot, or -1 where it can't be sensed
+     *
+     * @battlecode.doc.costlymethod
+     */
+    int[] senseNearbySoup();
+
+    /**
+     * Returns the elevation at every location within the sensor radius of
+     * the robot, in one call, laid out like senseNearbySoup(). Locations the
+     * robot can't sense have an elevation of Integer.MIN_VALUE.
+     *
+     * @return the elevation at every location in the square around the
+     * robot, or Integer.MIN_VALUE where it can't be sensed
+     *
+     * @battlecode.doc.costlymethod
+     */
+    int[] senseNearbyElevation();
+
+    /**
+     * Returns whether every location within the sensor radius of the robot
+     * is flooded, in one call, laid out like senseNearbySoup(). Locations
+     * the robot can't sense are not flooded.
+     *
+     * @return whether every location in the square around the robot is
+     * flooded, or false where it can't be sensed
+     *
+     * @battlecode.doc.costlymethod
+     */
+    boolean[] senseNearbyFlooding();
+
     /**
      * Returns the location adjacent to current location in the given direction.
      *
@@ -0,0 +1,309 @@
+package battlecode.instrumenter;
+
+import battlecode.server.Config;
+import battlecode.server.ErrorReporter;
+import battlecode.server.Version;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * An on-disk cache of instrumented classes, shared by every engine that
+ * points bc.engine.instrumented-cache at the same directory.
+ *
+ * Entries are addressed by a SHA-256 digest of everything the instrumented
+ * bytes depend on: the engine (its version, the instrumenter's classes and
+ * cost tables, and the JVM whose classes it reads), whether debug methods
+ * are enabled, the name and bytes of the class, and the rest of the team's
+ * classes, since the instrumenter looks those up as it goes. So an entry is
+ * never stale; a change to any of these just misses.
+ *
+ * Each entry repeats its key and a digest of its contents, and entries that
+ * don't check out are ignored. Entries are written to a temporary file and
+ * moved into place, so concurrent engines never see half-written ones.
+ */
+public final class InstrumentedClassCache {
+
+    private static final int MAGIC = 0xBC1A55E5;
+
+    /**
+     * Engine classes and resources whose contents affect instrumentation.
+     */
+    private static final String[] ENGINE_RESOURCES = {
+            "battlecode/instrumenter/TeamClassLoaderFactory.class",
+            "battlecode/instrumenter/bytecode/ClassReferenceUtil.class",
+            "battlecode/instrumenter/bytecode/InstrumentingClassVisitor.class",
+            "battlecode/instrumenter/bytecode/InstrumentingMethodVisitor.class",
+            "battlecode/instrumenter/bytecode/InterfaceReader.class",
+            "battlecode/instrumenter/bytecode/MethodCostUtil.class",
+            "battlecode/instrumenter/bytecode/resources/AllowedPackages.txt",
+            "battlecode/instrumenter/bytecode/resources/DisallowedClasses.txt",
+            "battlecode/instrumenter/bytecode/resources/MethodCosts.txt"
+    };
+
+    /**
+     * Digest of the engine, computed once per JVM.
+     */
+    private static byte[] engineDigest;
+
+    private final Path directory;
+
+    /**
+     * @param directory the directory to keep entries in; created if needed
+     */
+    public InstrumentedClassCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param options the config to read bc.engine.instrumented-cache from
+     * @return the cache the config asks for, or null if it doesn't ask for one
+     */
+    public static InstrumentedClassCache fromConfig(Config options) {
+        String directory = options.get("bc.engine.instrumented-cache");
+        if (directory == null || directory.isEmpty()) {
+            return null;
+        }
+        return new InstrumentedClassCache(Paths.get(directory));
+    }
+
+    /**
+     * Compute the key of an instrumented class.
+     *
+     * @param className the name of the class
+     * @param classBytes the uninstrumented bytes of the class
+     * @param teamDigest a digest of the team's classes
+     * @param checkDisallowed whether the class is checked for disallowed references
+     * @param debugMethodsEnabled whether debug methods are enabled
+     * @return the key, as a hex string
+     */
+    public static String key(String className,
+                             byte[] classBytes,
+                             byte[] teamDigest,
+                             boolean checkDisallowed,
+                             boolean debugMethodsEnabled) {
+        MessageDigest digest = newDigest();
+        digest.update(getEngineDigest());
+        digest.update(teamDigest);
+        digest.update((byte) (checkDisallowed ? 1 : 0));
+        digest.update((byte) (debugMethodsEnabled ? 1 : 0));
+        update(digest, className);
+        digest.update(classBytes);
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Digest the classes in a team's container, a jar or a directory.
+     *
+     * @param teamURL the file: URL of the container
+     * @return the digest
+     * @throws IOException if the container can't be read
+     */
+    public static byte[] teamDigest(URL teamURL) throws IOException {
+        Path container;
+        try {
+            container = Paths.get(teamURL.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Can't parse " + teamURL, e);
+        }
+
+        MessageDigest digest = newDigest();
+        if (Files.isDirectory(container)) {
+            List<String> names = new ArrayList<>();
+            try (Stream<Path> files = Files.walk(container)) {
+                files.filter(file -> file.toString().endsWith(".class"))
+                        .forEach(file -> names.add(container.relativize(file).toString()));
+            }
+            Collections.sort(names);
+            for (String name : names) {
+                update(digest, name.replace(container.getFileSystem().getSeparator(), "/"));
+                digest.update(Files.readAllBytes(container.resolve(name)));
+            }
+        } else {
+            try (JarFile jar = new JarFile(container.toFile())) {
+                List<String> names = new ArrayList<>();
+                for (JarEntry entry : Collections.list(jar.entries())) {
+                    if (entry.getName().endsWith(".class")) {
+                        names.add(entry.getName());
+                    }
+                }
+                Collections.sort(names);
+                byte[] buffer = new byte[8192];
+                for (String name : names) {
+                    update(digest, name);
+                    try (InputStream in = jar.getInputStream(jar.getEntry(name))) {
+                        int read;
+                        while ((read = in.read(buffer)) != -1) {
+                            digest.update(buffer, 0, read);
+                        }
+                    }
+                }
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * @param key the key of the entry
+     * @return the cached bytes, or null if there is no usable entry
+     */
+    public byte[] get(String key) {
+        Path file = directory.resolve(key);
+        byte[] entry;
+        try {
+            entry = Files.readAllBytes(file);
+        } catch (IOException e) {
+            // not cached
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry))) {
+            if (in.readInt() != MAGIC || !key.equals(in.readUTF())) {
+                return corrupt(file);
+            }
+            byte[] expectedDigest = new byte[32];
+            in.readFully(expectedDigest);
+            int length = in.readInt();
+            if (length < 0 || length != in.available()) {
+                return corrupt(file);
+            }
+            byte[] classBytes = new byte[length];
+            in.readFully(classBytes);
+            if (!Arrays.equals(expectedDigest, newDigest().digest(classBytes))) {
+                return corrupt(file);
+            }
+            return classBytes;
+        } catch (IOException e) {
+            return corrupt(file);
+        }
+    }
+
+    /**
+     * Store an entry. Failures are reported, but are otherwise harmless: the
+     * class is just instrumented again next time.
+     *
+     * @param key the key of the entry
+     * @param classBytes the instrumented bytes
+     */
+    public void put(String key, byte[] classBytes) {
+        ByteArrayOutputStream entry = new ByteArrayOutputStream(classBytes.length + 128);
+        try (DataOutputStream out = new DataOutputStream(entry)) {
+            out.writeInt(MAGIC);
+            out.writeUTF(key);
+            out.write(newDigest().digest(classBytes));
+            out.writeInt(classBytes.length);
+            out.write(classBytes);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't happen", e);
+        }
+
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temp, entry.toByteArray());
+            Files.move(temp, directory.resolve(key), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            ErrorReporter.report("Couldn't write to the instrumented class cache in " + directory
+                    + ": " + e.getMessage(), false);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop an entry that doesn't check out, so it's replaced next time.
+     */
+    private static byte[] corrupt(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+        }
+        return null;
+    }
+
+    /**
+     * @return a SHA-256 digest to fill in
+     */
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 isn't supported on this system??", e);
+        }
+    }
+
+    /**
+     * Add a string to a digest, with its length, so that consecutive strings
+     * can't run into each other.
+     */
+    static void update(MessageDigest digest, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    private static synchronized byte[] getEngineDigest() {
+        if (engineDigest == null) {
+            MessageDigest digest = newDigest();
+            update(digest, Version.version);
+            update(digest, System.getProperty("java.vendor"));
+            update(digest, System.getProperty("java.version"));
+            ClassLoader loader = InstrumentedClassCache.class.getClassLoader();
+            byte[] buffer = new byte[8192];
+            for (String resource : ENGINE_RESOURCES) {
+                update(digest, resource);
+                try (InputStream in = loader.getResourceAsStream(resource)) {
+                    if (in == null) {
+                        continue;
+                    }
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        digest.update(buffer, 0, read);
+                    }
+                } catch (IOException e) {
+                    throw new InstrumentationException(InstrumentationException.Type.MISSING,
+                            "Can't read engine resource " + resource, e);
+                }
+            }
+            engineDigest = digest.digest();
+        }
+        return engineDigest;
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >>> 4) & 0xF, 16));
+            builder.append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+}
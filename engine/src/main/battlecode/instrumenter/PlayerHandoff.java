@@ -0,0 +1,207 @@
+package battlecode.instrumenter;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a robot player on a thread of its own and trades control back and
+ * forth between it and the engine, so that exactly one of them runs at a
+ * time.
+ *
+ * The engine calls start() once and resume() for every turn; the player
+ * calls pause() to end its turn and finish() when it is done for good.
+ *
+ * Which implementation to use is set by bc.engine.robot-backend:
+ * <ul>
+ *     <li>"thread": a thread per robot, handing off with wait / notify on a
+ *     shared monitor.</li>
+ *     <li>"park": a thread per robot, handing off with LockSupport.park /
+ *     unpark, so a handoff wakes exactly one thread and never contends
+ *     for a lock.</li>
+ *     <li>"virtual": like "park", but robots run on virtual threads, so a
+ *     robot doesn't cost a kernel thread. Needs a JVM with virtual
+ *     threads; on older JVMs this is the same as "park".</li>
+ * </ul>
+ */
+public abstract class PlayerHandoff {
+
+    /**
+     * @param backend the value of bc.engine.robot-backend
+     * @return a handoff for a single player
+     * @throws IllegalArgumentException if the backend is unknown
+     */
+    public static PlayerHandoff create(String backend) {
+        switch (backend) {
+            case "thread":
+                return new MonitorHandoff();
+            case "park":
+                return new ParkHandoff(false);
+            case "virtual":
+                return new ParkHandoff(true);
+            default:
+                throw new IllegalArgumentException("Unknown robot backend: " + backend);
+        }
+    }
+
+    /**
+     * Starts the player, and blocks until it first pauses or finishes.
+     * Called on the engine thread.
+     *
+     * @param body the code to run on the player's thread
+     * @param name the name of the player's thread
+     * @throws InterruptedException if the engine thread is interrupted
+     */
+    public abstract void start(Runnable body, String name) throws InterruptedException;
+
+    /**
+     * Lets the player run, and blocks until it pauses or finishes.
+     * Called on the engine thread.
+     *
+     * @throws InterruptedException if the engine thread is interrupted
+     */
+    public abstract void resume() throws InterruptedException;
+
+    /**
+     * Lets the engine run, and blocks until the player is resumed.
+     * Called on the player thread.
+     *
+     * @throws InterruptedException if the player thread is interrupted
+     */
+    public abstract void pause() throws InterruptedException;
+
+    /**
+     * Lets the engine run for good. Called on the player thread, as the
+     * last thing it does.
+     */
+    public abstract void finish();
+
+    /**
+     * The handoff the engine has always used: wait / notify on a monitor.
+     */
+    private static class MonitorHandoff extends PlayerHandoff {
+
+        private final Object notifier = new Object();
+
+        @Override
+        public void start(Runnable body, String name) throws InterruptedException {
+            synchronized (notifier) {
+                new Thread(body, name).start();
+                notifier.wait();
+            }
+        }
+
+        @Override
+        public void resume() throws InterruptedException {
+            synchronized (notifier) {
+                notifier.notifyAll();
+                notifier.wait();
+            }
+        }
+
+        @Override
+        public void pause() throws InterruptedException {
+            synchronized (notifier) {
+                notifier.notifyAll();
+                notifier.wait();
+            }
+        }
+
+        @Override
+        public void finish() {
+            synchronized (notifier) {
+                notifier.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Hands off by flipping whose turn it is and unparking the other
+     * thread. The volatile turn orders everything one side did before a
+     * handoff before everything the other side does after it.
+     */
+    private static class ParkHandoff extends PlayerHandoff {
+
+        /**
+         * Thread.ofVirtual(), or null if the JVM doesn't have virtual threads.
+         */
+        private static final Method OF_VIRTUAL;
+        private static final Method UNSTARTED;
+        private static final Method NAME;
+
+        static {
+            Method ofVirtual = null;
+            Method unstarted = null;
+            Method name = null;
+            try {
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+                Class<?> builder = ofVirtual.getReturnType();
+                unstarted = builder.getMethod("unstarted", Runnable.class);
+                name = builder.getMethod("name", String.class);
+            } catch (NoSuchMethodException e) {
+                ofVirtual = null;
+            }
+            OF_VIRTUAL = ofVirtual;
+            UNSTARTED = unstarted;
+            NAME = name;
+        }
+
+        private final boolean virtual;
+
+        private volatile boolean playerTurn;
+        private volatile Thread engine;
+        private Thread player;
+
+        ParkHandoff(boolean virtual) {
+            this.virtual = virtual && OF_VIRTUAL != null;
+        }
+
+        @Override
+        public void start(Runnable body, String name) throws InterruptedException {
+            engine = Thread.currentThread();
+            player = newThread(body, name);
+            playerTurn = true;
+            player.start();
+            awaitTurn(false);
+        }
+
+        @Override
+        public void resume() throws InterruptedException {
+            engine = Thread.currentThread();
+            playerTurn = true;
+            LockSupport.unpark(player);
+            awaitTurn(false);
+        }
+
+        @Override
+        public void pause() throws InterruptedException {
+            playerTurn = false;
+            LockSupport.unpark(engine);
+            awaitTurn(true);
+        }
+
+        @Override
+        public void finish() {
+            playerTurn = false;
+            LockSupport.unpark(engine);
+        }
+
+        private void awaitTurn(boolean player) throws InterruptedException {
+            while (playerTurn != player) {
+                LockSupport.park(this);
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+            }
+        }
+
+        private Thread newThread(Runnable body, String name) {
+            if (virtual) {
+                try {
+                    return (Thread) UNSTARTED.invoke(NAME.invoke(OF_VIRTUAL.invoke(null), name), body);
+                } catch (ReflectiveOperationException e) {
+                    throw new RuntimeException("Couldn't create a virtual thread", e);
+                }
+            }
+            return new Thread(body, name);
+        }
+    }
+}
@@ -58,11 +58,6 @@ public class SandboxedRobotPlayer {
      */
     private final TeamClassLoaderFactory.Loader individualLoader;
 
-    /**
-     * The main thread the player is running on.
-     */
-    private final Thread mainThread;
-
     /**
      * The cached 'killRobot' method of the monitor.
      */
@@ -79,9 +74,9 @@ public class SandboxedRobotPlayer {
     private final Method getBytecodeNumMethod;
 
     /**
-     * The object used to trade of control between threads.
+     * Used to trade control between the engine and the player's thread.
      */
-    private final Object notifier;
+    private final PlayerHandoff handoff;
 
     /**
      * Whether or not we are currently running, i.e. in "step".
@@ -114,7 +109,7 @@ public class SandboxedRobotPlayer {
         this.robotController = robotController;
         this.seed = seed;
         this.terminated = false;
-        this.notifier = new Object();
+        this.handoff = PlayerHandoff.create(Config.getGlobalConfig().get("bc.engine.robot-backend"));
 
         // Create classloader sandbox
         individualLoader = loader;
@@ -150,13 +145,8 @@ public class SandboxedRobotPlayer {
         // Used to pause the RobotPlayer main thread.
         final Pauser pauser = () -> {
             try {
-                synchronized (notifier) {
-                    // Unpause the main thread, which is waiting on the player thread
-                    notifier.notifyAll();
-
-                    // Wait for the main thread to restart us
-                    notifier.wait();
-                }
+                // Unpause the main thread, and wait for it to restart us
+                handoff.pause();
             } catch (InterruptedException e) {
                 ErrorReporter.report("RobotPlayer thread interrupted while paused");
                 throw new RobotDeathException();
@@ -170,7 +160,7 @@ public class SandboxedRobotPlayer {
             throw new RobotDeathException();
         };
 
-        mainThread = new Thread(() -> {
+        final Runnable body = () -> {
             try {
                 // Init RobotMonitor
                 initMethod.invoke(null, pauser, killer, this.seed);
@@ -204,21 +194,14 @@ public class SandboxedRobotPlayer {
                 this.terminated = true;
 
                 // Unpause the main thread, which is waiting on the player thread.
-                synchronized (notifier) {
-                    notifier.notifyAll();
-                }
+                handoff.finish();
             }
-        }, teamName + "." + PLAYER_CLASS_NAME + " #"+ robotController.getID());
-
+        };
 
         // Wait for thread to tell us it's ready
         try {
-            synchronized (notifier) {
-                // Doesn't do anything besides initialize the sandbox, since thread pauses immediately
-                mainThread.start();
-
-                notifier.wait();
-            }
+            // Doesn't do anything besides initialize the sandbox, since thread pauses immediately
+            handoff.start(body, teamName + "." + PLAYER_CLASS_NAME + " #"+ robotController.getID());
         } catch (InterruptedException e) {
             throw new RuntimeException("Unexpected interruption initializing sandbox", e);
         }
@@ -284,19 +267,15 @@ public class SandboxedRobotPlayer {
         updateOut();
 
         try {
-            synchronized (notifier) {
-                // We are now running the robot!
-                running = true;
-
-                // Unpause the robot's thread
-                notifier.notifyAll();
+            // We are now running the robot!
+            running = true;
 
-                // Pause this thread until the robot ends turn or dies
-                notifier.wait();
+            // Unpause the robot's thread, and pause this one until the robot
+            // ends turn or dies
+            handoff.resume();
 
-                // Main thread reactivated: no longer running.
-                running = false;
-            }
+            // Main thread reactivated: no longer running.
+            running = false;
         } catch (InterruptedException e) {
             throw new RuntimeException("Unexpected interruption", e);
         }
@@ -3,6 +3,7 @@ package battlecode.instrumenter;
 import battlecode.instrumenter.bytecode.ClassReferenceUtil;
 import battlecode.instrumenter.bytecode.InstrumentingClassVisitor;
 import battlecode.server.Config;
+import battlecode.server.ErrorReporter;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
@@ -16,6 +17,10 @@ import java.net.URLClassLoader;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import static battlecode.instrumenter.InstrumentationException.Type.ILLEGAL;
 import static battlecode.instrumenter.InstrumentationException.Type.MISSING;
@@ -103,6 +108,27 @@ public final class TeamClassLoaderFactory {
      */
     private final Map<String, byte[]> instrumentedClasses;
 
+    /**
+     * The on-disk cache of instrumented classes, or null if there isn't one.
+     */
+    private final InstrumentedClassCache diskCache;
+
+    /**
+     * A digest of the team's classes, for keying the disk cache; computed
+     * the first time a class is instrumented.
+     */
+    private byte[] teamDigest;
+
+    /**
+     * Whether the team's classes couldn't be read to compute teamDigest.
+     */
+    private boolean teamUnreadable;
+
+    /**
+     * The container the team's classes are loaded from.
+     */
+    private final URL teamURL;
+
     /**
      * If this team has an error, don't bother trying to cache again.
      */
@@ -131,8 +157,11 @@ public final class TeamClassLoaderFactory {
             this.hasError = true;
             this.instrumentedClasses = null;
             this.refUtil = null;
+            this.diskCache = null;
+            this.teamURL = null;
             return;
         }
+        this.teamURL = url;
 
         this.teamResourceLookup = new URLClassLoader(
                 new URL[] { url }
@@ -150,6 +179,81 @@ public final class TeamClassLoaderFactory {
         this.instrumentedClasses = new HashMap<>();
         this.hasError = false;
         this.refUtil = new ClassReferenceUtil(this);
+        this.diskCache = InstrumentedClassCache.fromConfig(Config.getGlobalConfig());
+    }
+
+    /**
+     * Create a factory for a team with no classes at all, used to instrument
+     * system classes the same way for every team.
+     */
+    private TeamClassLoaderFactory() {
+        this.teamResourceLookup = new ClassLoader(null) {
+            @Override
+            public URL getResource(String name) {
+                return null;
+            }
+        };
+        this.instrumentedClasses = new HashMap<>();
+        this.hasError = false;
+        this.refUtil = new ClassReferenceUtil(this);
+        this.diskCache = InstrumentedClassCache.fromConfig(Config.getGlobalConfig());
+        this.teamURL = null;
+        this.teamDigest = new byte[0];
+    }
+
+    /**
+     * Instrumented system classes (the instrumented.* copies of java.util
+     * and friends), shared by every factory in the JVM. Their bytes don't
+     * depend on the team: they're instrumented as if the team had no
+     * classes, which it can't have in system packages anyway.
+     *
+     * Holds the futures rather than the bytes, so that a class is only ever
+     * instrumented once, while other threads wait for it.
+     */
+    private static final class SystemClasses {
+        private static final TeamClassLoaderFactory factory = new TeamClassLoaderFactory();
+
+        private static final ConcurrentMap<String, FutureTask<byte[]>> instrumented = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the instrumented bytes of a system class, instrumenting it if no
+     * one in this JVM has yet. Safe to call from any thread.
+     *
+     * @param className the name of the class, starting with instrumented.
+     * @return the instrumented bytes of the class
+     * @throws InstrumentationException if the class can't be instrumented
+     */
+    public static byte[] getInstrumentedSystemClass(String className) throws InstrumentationException {
+        FutureTask<byte[]> task = SystemClasses.instrumented.get(className);
+        if (task == null) {
+            FutureTask<byte[]> newTask = new FutureTask<>(() ->
+                    SystemClasses.factory.createLoader().instrumentCached(
+                            className,
+                            normalReader(className),
+                            false, false));
+            task = SystemClasses.instrumented.putIfAbsent(className, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        }
+
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            // Let the next caller try again, and fail the same way.
+            SystemClasses.instrumented.remove(className, task);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException("Error instrumenting " + className, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while instrumenting " + className, e);
+        }
     }
 
     /**
@@ -185,6 +289,22 @@ public final class TeamClassLoaderFactory {
         this.instrumentedClasses.put(className, classBytes);
     }
 
+    /**
+     * @return the digest of the team's classes, or null if they can't be read
+     */
+    private byte[] getTeamDigest() {
+        if (teamDigest == null && !teamUnreadable) {
+            try {
+                teamDigest = InstrumentedClassCache.teamDigest(teamURL);
+            } catch (IOException e) {
+                ErrorReporter.report("Can't use the instrumented class cache for " + teamURL
+                        + ": " + e.getMessage(), false);
+                teamUnreadable = true;
+            }
+        }
+        return teamDigest;
+    }
+
     /**
      * @return whether the team is known to have errors
      */
@@ -445,7 +565,8 @@ public final class TeamClassLoaderFactory {
 
                 final byte[] classBytes;
                 try {
-                    classBytes = instrument(
+                    classBytes = instrumentCached(
+                            name,
                             TeamClassLoaderFactory.this.teamReader(name),
                             true,
                             Config.getGlobalConfig().getBoolean("bc.engine.debug-methods")
@@ -462,11 +583,11 @@ public final class TeamClassLoaderFactory {
                 // If permgen space becomes a problem, we could make it so
                 // that only one copy of these classes is loaded, but
                 // we would need to modify ObjectHashCode.
+                // Their bytes are the same for everyone, though, so they're
+                // only instrumented once per JVM.
                 byte[] classBytes;
                 try {
-                    classBytes = instrument(
-                            TeamClassLoaderFactory.normalReader(name),
-                            false, false);
+                    classBytes = getInstrumentedSystemClass(name);
                 } catch (InstrumentationException ie) {
                     TeamClassLoaderFactory.this.hasError = true;
                     throw ie;
@@ -512,6 +633,30 @@ public final class TeamClassLoaderFactory {
 
         }
 
+        /**
+         * Instrument a class, or fetch it from the disk cache if this
+         * exact class has been instrumented before.
+         */
+        private byte[] instrumentCached(String name,
+                                        ClassReader reader,
+                                        boolean checkDisallowed,
+                                        boolean debugMethodsEnabled) throws InstrumentationException {
+            InstrumentedClassCache diskCache = TeamClassLoaderFactory.this.diskCache;
+            byte[] teamDigest = diskCache == null ? null : TeamClassLoaderFactory.this.getTeamDigest();
+            if (teamDigest == null) {
+                return instrument(reader, checkDisallowed, debugMethodsEnabled);
+            }
+
+            String key = InstrumentedClassCache.key(name, reader.b, teamDigest,
+                    checkDisallowed, debugMethodsEnabled);
+            byte[] classBytes = diskCache.get(key);
+            if (classBytes == null) {
+                classBytes = instrument(reader, checkDisallowed, debugMethodsEnabled);
+                diskCache.put(key, classBytes);
+            }
+            return classBytes;
+        }
+
         public byte[] instrument(ClassReader reader,
                                  boolean checkDisallowed,
                                  boolean debugMethodsEnabled) throws InstrumentationException {
@@ -9,6 +9,7 @@ import java.io.InputStreamReader;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.objectweb.asm.ClassReader.SKIP_DEBUG;
 
@@ -36,6 +37,7 @@ public class MethodCostUtil {
 
     /**
      * This is a map from binary class names, to all the classes/interfaces that the class transitively implements/extends.
+     * Concurrent, since classes are instrumented by every match running in the JVM.
      */
     private final static Map<String, String[]> interfacesMap;
 
@@ -72,7 +74,7 @@ public class MethodCostUtil {
             ClassReferenceUtil.fileLoadError(RESOURCE_FILE);
         }
 
-        interfacesMap = new HashMap<>();
+        interfacesMap = new ConcurrentHashMap<>();
     }
 
     /**
@@ -34,6 +34,24 @@ public class Config {
         defaults.setProperty("bc.server.port", "6175");
         defaults.setProperty("bc.server.wait-for-client", "false");
 
+        // Events are sent to each websocket client while it has fewer than
+        // this many messages waiting to go out. When a client is more than
+        // bc.server.client-max-lag events behind, not counting events from
+        // before it connected, the engine waits for it ("throttle"), skips its
+        // rounds to the latest keyframe ("keyframe", which needs
+        // bc.server.keyframe-interval) or disconnects it ("disconnect"). See
+        // battlecode.server.NetServer.
+        defaults.setProperty("bc.server.client-queue-size", "64");
+        defaults.setProperty("bc.server.client-max-lag", "2048");
+        defaults.setProperty("bc.server.slow-client", "throttle");
+
+        // Send websocket clients up to this many rounds in one message (0 for
+        // no limit), or whatever rounds there are once a client hasn't been
+        // sent anything for this many milliseconds (0 to wait for a full batch).
+        // 1 round, 0 milliseconds sends one event per message, as before.
+        defaults.setProperty("bc.server.batch-rounds", "1");
+        defaults.setProperty("bc.server.batch-millis", "0");
+
         // Whether to write robot player output to System.out as well as match files.
         defaults.setProperty("bc.server.robot-player-to-system-out", "true");
 
@@ -42,6 +60,28 @@ public class Config {
         // This does not affect output to stdout
         defaults.setProperty("bc.server.robot-player-replay-file-per-team-limit-bytes","-1");
 
+        // The number of matches to run at once. Matches from different games,
+        // and the maps of a game that isn't best of three, run concurrently
+        // when this is more than 1; replays are the same either way.
+        defaults.setProperty("bc.server.match-workers", "1");
+
+        // How hard to compress replays, from 0 (not at all) to 9, or -1 for
+        // gzip's default. Replays are compressed on this many threads; 0
+        // means one per processor, and 1 compresses on the writing thread.
+        defaults.setProperty("bc.server.replay-compression-level", "-1");
+        defaults.setProperty("bc.server.replay-compression-threads", "0");
+
+        // Every this many rounds, rounds also carry the complete state of the
+        // match, so that readers can seek without replaying the whole match.
+        // 0 means never.
+        defaults.setProperty("bc.server.keyframe-interval", "0");
+
+        // How much of each match to record: "full" (everything), "selective"
+        // (everything but indicator dots and lines, robot output and bytecode
+        // counts) or "results" (only the match headers and footers, with no
+        // rounds). See battlecode.server.GameMaker.MatchMaker.
+        defaults.setProperty("bc.server.recording", "full");
+
         defaults.setProperty("bc.server.save-file", "match.rms");
         defaults.setProperty("bc.server.transcribe-input", "match.rms");
         defaults.setProperty("bc.server.transcribe-output", "transcribed.txt");
@@ -59,6 +99,16 @@ public class Config {
         defaults.setProperty("bc.engine.silence-d", "false");
         defaults.setProperty("bc.engine.debug-methods", "false");
 
+        // How robot players are run: "thread" (a thread per robot, handing off
+        // with wait / notify), "park" (a thread per robot, handing off with
+        // park / unpark) or "virtual" (park / unpark on virtual threads, where
+        // the JVM has them). See battlecode.instrumenter.PlayerHandoff.
+        defaults.setProperty("bc.engine.robot-backend", "thread");
+
+        // A directory to cache instrumented player classes in, so that later
+        // matches with the same code skip instrumentation. Empty to disable.
+        defaults.setProperty("bc.engine.instrumented-cache", "");
+
         defaults.setProperty("bc.game.team-a", "team000");
         defaults.setProperty("bc.game.team-b", "team000");
         defaults.setProperty("bc.game.maps", "glass");
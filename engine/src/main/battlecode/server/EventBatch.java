@@ -0,0 +1,89 @@
+package battlecode.server;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The container NetServer sends several events in, as one websocket
+ * message, when bc.server.batch-rounds or bc.server.batch-millis is set:
+ *
+ * "bcb1", then for each event, its length in bytes as a little-endian
+ * uint32 followed by the event (a finished EventWrapper flatbuffer).
+ *
+ * A bare event starts with the offset of its root table, which is never
+ * as big as "bcb1" read as a little-endian uint32, so a reader can tell
+ * the two apart and handle either. See schema/README.md for the client's
+ * side of it.
+ */
+public final class EventBatch {
+
+    /**
+     * The first four bytes of a batch.
+     */
+    private static final byte[] MAGIC = "bcb1".getBytes(StandardCharsets.US_ASCII);
+
+    private EventBatch() {}
+
+    /**
+     * @param log the log to get events from
+     * @param from the index of the first event to put in the batch
+     * @param to the index after the last
+     * @return the events in a batch
+     */
+    public static byte[] create(EventLog log, int from, int to) {
+        int size = MAGIC.length;
+        for (int i = from; i < to; i++) {
+            size += 4 + log.length(i);
+        }
+        ByteBuffer batch = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        batch.put(MAGIC);
+        for (int i = from; i < to; i++) {
+            batch.putInt(log.length(i));
+            log.read(i, batch);
+        }
+        return batch.array();
+    }
+
+    /**
+     * @param message a websocket message from NetServer
+     * @return whether it's a batch, rather than a bare event
+     */
+    public static boolean isBatch(ByteBuffer message) {
+        if (message.remaining() < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (message.get(message.position() + i) != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Split a websocket message from NetServer into its events.
+     *
+     * @param message a batch, or a bare event
+     * @return a buffer for each event, sharing the message's contents
+     */
+    public static List<ByteBuffer> read(ByteBuffer message) {
+        List<ByteBuffer> events = new ArrayList<>();
+        if (!isBatch(message)) {
+            events.add(message.slice());
+            return events;
+        }
+        ByteBuffer batch = message.slice().order(ByteOrder.LITTLE_ENDIAN);
+        batch.position(MAGIC.length);
+        while (batch.hasRemaining()) {
+            int length = batch.getInt();
+            ByteBuffer event = batch.slice();
+            event.limit(length);
+            events.add(event);
+            batch.position(batch.position() + length);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,186 @@
+package battlecode.server;
+
+import battlecode.schema.Event;
+import battlecode.schema.EventWrapper;
+import battlecode.schema.Keyframe;
+import battlecode.schema.Round;
+import gnu.trove.list.array.TByteArrayList;
+import gnu.trove.list.array.TLongArrayList;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Every event sent so far, for clients that connect late or fall behind,
+ * kept in a temporary file rather than in memory. Only where each event
+ * is and what type it is are kept in memory, 9 bytes an event, so a
+ * server that streams for hours doesn't fill up the heap.
+ *
+ * Events are read back from the file, which is usually still in the OS's
+ * cache for clients that are keeping up. Safe to use from several
+ * threads.
+ */
+public class EventLog implements Closeable {
+
+    private final Path file;
+    private final FileChannel channel;
+
+    /**
+     * Where every event starts in the file, and where the next one will.
+     */
+    private final TLongArrayList starts;
+
+    /**
+     * The type of every event, as in Event.
+     */
+    private final TByteArrayList types;
+
+    /**
+     * The index of the latest round with a keyframe, or -1.
+     */
+    private int latestKeyframe;
+
+    /**
+     * Scratch accessors for looking at events as they're added.
+     */
+    private final EventWrapper wrapper;
+    private final Round round;
+    private final Keyframe keyframe;
+
+    /**
+     * Create a log, in a new temporary file.
+     */
+    public EventLog() {
+        this.starts = new TLongArrayList();
+        this.starts.add(0);
+        this.types = new TByteArrayList();
+        this.latestKeyframe = -1;
+        this.wrapper = new EventWrapper();
+        this.round = new Round();
+        this.keyframe = new Keyframe();
+        try {
+            this.file = Files.createTempFile("battlecode-", ".sent");
+            this.file.toFile().deleteOnExit();
+            this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't create a file to log events to", e);
+        }
+    }
+
+    /**
+     * @return the number of events added so far
+     */
+    public synchronized int size() {
+        return types.size();
+    }
+
+    /**
+     * Add an event to the end of the log.
+     *
+     * @param event a finished flatbuffer holding an EventWrapper
+     */
+    public synchronized void add(byte[] event) {
+        ByteBuffer buffer = ByteBuffer.wrap(event);
+        byte type = EventWrapper.getRootAsEventWrapper(buffer, wrapper).eType();
+        if (type == Event.Round && ((Round) wrapper.e(round)).keyframe(keyframe) != null) {
+            latestKeyframe = types.size();
+        }
+        try {
+            long position = starts.get(starts.size() - 1);
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            starts.add(position);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't log event", e);
+        }
+        types.add(type);
+    }
+
+    /**
+     * @param index the index of an event
+     * @return the event, as a finished flatbuffer
+     */
+    public byte[] get(int index) {
+        ByteBuffer event = ByteBuffer.allocate(length(index));
+        read(index, event);
+        return event.array();
+    }
+
+    /**
+     * @param index the index of an event
+     * @return the size of the event, in bytes
+     */
+    public synchronized int length(int index) {
+        checkIndex(index);
+        return (int) (starts.get(index + 1) - starts.get(index));
+    }
+
+    /**
+     * Read an event into a buffer, at its position, which is moved past it.
+     *
+     * @param index the index of an event
+     * @param into a buffer with room for the event
+     */
+    public void read(int index, ByteBuffer into) {
+        long start;
+        long end;
+        synchronized (this) {
+            checkIndex(index);
+            start = starts.get(index);
+            end = starts.get(index + 1);
+        }
+        ByteBuffer event = into.duplicate();
+        event.limit(event.position() + (int) (end - start));
+        try {
+            while (event.hasRemaining()) {
+                if (channel.read(event, start + event.position() - into.position()) < 0) {
+                    throw new IOException("Log ends early");
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read logged event", e);
+        }
+        into.position(event.position());
+    }
+
+    /**
+     * @param index the index of an event
+     * @return its type, as in Event
+     */
+    public synchronized byte type(int index) {
+        return types.get(index);
+    }
+
+    /**
+     * @return the index of the latest round with a keyframe, or -1 if no
+     *         round has had one
+     */
+    public synchronized int latestKeyframe() {
+        return latestKeyframe;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= types.size()) {
+            throw new IndexOutOfBoundsException("No event " + index + " of " + types.size());
+        }
+    }
+
+    /**
+     * Delete the log.
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // it's a temporary file; it goes away on exit anyway
+        }
+    }
+}
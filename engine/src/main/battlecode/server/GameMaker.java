@@ -5,21 +5,18 @@ import battlecode.common.MapLocation;
 import battlecode.common.RobotType;
 import battlecode.common.Team;
 import battlecode.schema.*;
+import battlecode.util.FlatColumn;
 import battlecode.util.FlatHelpers;
 import battlecode.util.TeamMapping;
 import battlecode.world.*;
 import com.google.flatbuffers.FlatBufferBuilder;
-import gnu.trove.list.array.TByteArrayList;
-import gnu.trove.list.array.TFloatArrayList;
 import gnu.trove.list.array.TIntArrayList;
-import gnu.trove.list.array.TCharArrayList;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
 
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.util.function.ToIntFunction;
-import java.util.zip.GZIPOutputStream;
 
 import static battlecode.util.FlatHelpers.*;
 
@@ -55,21 +52,21 @@ public strictfp class GameMaker {
     // this un-separation-of-concerns makes me uncomfortable
 
     /**
-     * We write the whole match to this builder, then write it to a file.
+     * We build each event in this builder, once, then send the finished
+     * event to the client and hand it to the replay, which keeps it out of
+     * memory until the game is written.
      */
-    private final FlatBufferBuilder fileBuilder;
+    private FlatBufferBuilder eventBuilder;
 
     /**
-     * Null until the end of the match.
+     * The events of the game so far.
      */
-    private byte[] finishedGame;
+    private final ReplayWriter replay;
 
     /**
-     * We have a separate byte[] for each packet sent to the client.
-     * This is necessary because flatbuffers shares metadata between structures, so we
-     * can't just cut out chunks of the larger buffer :/
+     * Null until toBytes is called.
      */
-    private FlatBufferBuilder packetBuilder;
+    private byte[] finishedGame;
 
     /**
      * The server we're sending packets on.
@@ -83,12 +80,11 @@ public strictfp class GameMaker {
     private final GameInfo gameInfo;
 
     /**
-     * Only relevant to the file builder:
+     * Only relevant to the file:
      * We add a table called a GameWrapper to the front of the saved files
      * that lets you quickly navigate to events by index, and tells you the
      * indices of headers and footers.
      */
-    private TIntArrayList events;
     private TIntArrayList matchHeaders;
     private TIntArrayList matchFooters;
 
@@ -97,27 +93,71 @@ public strictfp class GameMaker {
      */
     private final MatchMaker matchMaker;
 
+    /**
+     * Whether this GameMaker only records matches, to be added to another.
+     */
+    private final boolean recordMatches;
+
+    /**
+     * Every how many rounds to write a keyframe; 0 for never.
+     */
+    private final int keyframeInterval;
+
     /**
      * @param gameInfo the mapping of teams to bytes
      * @param packetSink the NetServer to send packets to
      */
     public GameMaker(final GameInfo gameInfo, final NetServer packetSink){
+        this(gameInfo, packetSink, false);
+    }
+
+    private GameMaker(final GameInfo gameInfo, final NetServer packetSink, final boolean recordMatches){
         this.state = State.GAME_HEADER;
 
         this.gameInfo = gameInfo;
 
         this.packetSink = packetSink;
-        if (packetSink != null) {
-            this.packetBuilder = new FlatBufferBuilder();
-        }
+        this.recordMatches = recordMatches;
+        this.keyframeInterval = Config.getGlobalConfig().getInt("bc.server.keyframe-interval");
 
-        this.fileBuilder = new FlatBufferBuilder();
+        this.eventBuilder = new FlatBufferBuilder();
+        this.replay = new ReplayWriter();
 
-        this.events = new TIntArrayList();
         this.matchHeaders = new TIntArrayList();
         this.matchFooters = new TIntArrayList();
 
-        this.matchMaker = new MatchMaker();
+        this.matchMaker = createMatchMaker(Config.getGlobalConfig().get("bc.server.recording"));
+    }
+
+    /**
+     * @param recording the value of bc.server.recording
+     * @return the MatchMaker that records that much
+     */
+    private MatchMaker createMatchMaker(String recording) {
+        switch (recording) {
+            case "full":
+                return new RecordingMatchMaker();
+            case "selective":
+                return new SelectiveMatchMaker();
+            case "results":
+                return new ResultsMatchMaker();
+            default:
+                throw new IllegalArgumentException("Unknown recording mode: " + recording);
+        }
+    }
+
+    /**
+     * Creates a GameMaker that only records matches, so that they can be
+     * run on their own and added to the game afterwards with
+     * {@link #appendMatches}. It starts out in a game, and is never written.
+     *
+     * @param gameInfo the game the matches belong to
+     * @return a GameMaker recording matches
+     */
+    public static GameMaker recordMatches(final GameInfo gameInfo) {
+        GameMaker recorder = new GameMaker(gameInfo, null, true);
+        recorder.changeState(State.GAME_HEADER, State.IN_GAME);
+        return recorder;
     }
 
     /**
@@ -143,43 +183,26 @@ public strictfp class GameMaker {
 
     /**
      * Convert entire game to a byte array.
+     * Only for small games; use writeGame to save a game.
      *
      * @return game as a packed flatbuffer byte array.
      */
     public byte[] toBytes() {
         if (finishedGame == null) {
-            assertState(State.DONE);
-
-            int events = offsetVector(fileBuilder, this.events, GameWrapper::startEventsVector);
-            int matchHeaders = offsetVector(fileBuilder, this.matchHeaders, GameWrapper::startMatchHeadersVector);
-            int matchFooters = offsetVector(fileBuilder, this.matchFooters, GameWrapper::startMatchFootersVector);
-
-            GameWrapper.startGameWrapper(fileBuilder);
-            GameWrapper.addEvents(fileBuilder, events);
-            GameWrapper.addMatchHeaders(fileBuilder, matchHeaders);
-            GameWrapper.addMatchFooters(fileBuilder, matchFooters);
-
-            fileBuilder.finish(GameWrapper.endGameWrapper(fileBuilder));
-
-            byte[] rawBytes = fileBuilder.sizedByteArray();
-
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
             try {
-                ByteArrayOutputStream result = new ByteArrayOutputStream();
-                GZIPOutputStream zipper = new GZIPOutputStream(result);
-                IOUtils.copy(new ByteArrayInputStream(rawBytes), zipper);
-                zipper.close();
-                zipper.flush();
-                result.flush();
-                finishedGame = result.toByteArray();
+                writeGame(result);
             } catch (IOException e) {
                 throw new RuntimeException("Gzipping failed?", e);
             }
+            finishedGame = result.toByteArray();
         }
         return finishedGame;
     }
 
     /**
      * Write a match out to a file.
+     * The game is streamed to the file, so it's never all in memory.
      *
      * @param saveFile the file to save to
      */
@@ -189,30 +212,105 @@ public strictfp class GameMaker {
         }
 
         try {
-            FileUtils.writeByteArrayToFile(saveFile, toBytes());
+            if (finishedGame != null) {
+                FileUtils.writeByteArrayToFile(saveFile, finishedGame);
+                return;
+            }
+            File parent = saveFile.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                FileUtils.forceMkdir(parent);
+            }
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(saveFile))) {
+                writeGame(out);
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     /**
-     * Run the same logic for both builders.
+     * Write the whole game, gzipped.
+     * Compression is spread over bc.server.replay-compression-threads.
+     */
+    private void writeGame(OutputStream out) throws IOException {
+        assertState(State.DONE);
+
+        Config options = Config.getGlobalConfig();
+        int threads = options.getInt("bc.server.replay-compression-threads");
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        ParallelGZIPOutputStream zipper = new ParallelGZIPOutputStream(out,
+                options.getInt("bc.server.replay-compression-level"), threads);
+        boolean written = false;
+        try {
+            replay.writeTo(zipper, matchHeaders, matchFooters);
+            written = true;
+        } finally {
+            if (!written) {
+                zipper.abort();
+            }
+        }
+        zipper.finish();
+    }
+
+    /**
+     * Let go of the game's events once it has been written. The game can't
+     * be written again after this, except from what toBytes has kept.
+     */
+    public void dispose() {
+        replay.close();
+    }
+
+    /**
+     * Build an event, and send it to both the file and the client.
      *
-     * @param perBuilder called with each builder; return event id. Should not mutate state.
+     * Every event is a finished flatbuffer of its own, which is what the
+     * client expects as a packet, and what the replay copies into the
+     * file. So each event is only serialized once.
+     *
+     * @param perBuilder called with the builder; return event id.
      */
     private void createEvent(ToIntFunction<FlatBufferBuilder> perBuilder) {
-        // make file event and add its offset to the list
-        int eventAP = perBuilder.applyAsInt(fileBuilder);
-        events.add(eventAP);
+        int eventP = perBuilder.applyAsInt(eventBuilder);
+        eventBuilder.finish(eventP);
 
+        // the replay first: sizedByteArray() moves the buffer's position
+        replay.addEvent(eventBuilder.dataBuffer());
         if (packetSink != null) {
-            // make packet event and package it up
-            int eventBP = perBuilder.applyAsInt(packetBuilder);
-            packetBuilder.finish(eventBP);
-            packetSink.addEvent(packetBuilder.sizedByteArray());
+            packetSink.addEvent(eventBuilder.sizedByteArray());
+        }
+
+        // reset builder
+        eventBuilder = new FlatBufferBuilder(eventBuilder.dataBuffer());
+    }
 
-            // reset packet builder
-            packetBuilder = new FlatBufferBuilder(packetBuilder.dataBuffer());
+    /**
+     * Adds the matches recorded by another GameMaker to this game, as if
+     * they had been run here.
+     *
+     * @param recording a GameMaker created with {@link #recordMatches}
+     */
+    public void appendMatches(GameMaker recording) {
+        assertState(State.IN_GAME);
+        recording.assertState(State.IN_GAME);
+        if (!recording.recordMatches) {
+            throw new RuntimeException("GameMaker is not recording matches");
+        }
+
+        int firstEvent = replay.size();
+        recording.replay.forEachEvent((event) -> {
+            replay.addEvent(event);
+            if (packetSink != null) {
+                packetSink.addEvent(event);
+            }
+        });
+        recording.replay.close();
+        for (int i = 0; i < recording.matchHeaders.size(); i++) {
+            matchHeaders.add(firstEvent + recording.matchHeaders.get(i));
+        }
+        for (int i = 0; i < recording.matchFooters.size(); i++) {
+            matchFooters.add(firstEvent + recording.matchFooters.get(i));
         }
     }
 
@@ -306,163 +404,262 @@ public strictfp class GameMaker {
                 GameFooter.createGameFooter(builder, TeamMapping.id(winner))));
     }
 
+    private void writeMatchHeader(LiveMap gameMap) {
+        changeState(State.IN_GAME, State.IN_MATCH);
+
+        createEvent((builder) -> {
+            int map = GameMapIO.Serial.serialize(builder, gameMap);
+
+            return EventWrapper.createEventWrapper(builder, Event.MatchHeader,
+                    MatchHeader.createMatchHeader(builder, map, gameMap.getRounds()));
+        });
+
+        matchHeaders.add(replay.size() - 1);
+    }
+
+    private void writeMatchFooter(Team winTeam, int totalRounds) {
+        changeState(State.IN_MATCH, State.IN_GAME);
+
+        createEvent((builder) -> EventWrapper.createEventWrapper(builder, Event.MatchFooter,
+                MatchFooter.createMatchFooter(builder, TeamMapping.id(winTeam), totalRounds)));
+
+        matchFooters.add(replay.size() - 1);
+    }
+
+    /**
+     * What the world tells about a match as it runs. Every change to the
+     * state of the match goes through here, so how much of it is kept is
+     * up to the implementation, chosen by bc.server.recording:
+     * {@link RecordingMatchMaker} keeps everything,
+     * {@link SelectiveMatchMaker} leaves out what only helps debugging, and
+     * {@link ResultsMatchMaker} only keeps who won.
+     *
+     * There is only one of these per GameMaker.
+     */
+    public interface MatchMaker {
+
+        void makeMatchHeader(LiveMap gameMap);
+
+        void makeMatchFooter(Team winTeam, int totalRounds);
+
+        void makeRound(int roundNum);
+
+        /**
+         * @param roundNum the round about to be made
+         * @return whether that round should carry a keyframe, set with
+         *         addKeyframe and addKeyframeBody before making the round
+         */
+        boolean isKeyframe(int roundNum);
+
+        /**
+         * Set the grids of this round's keyframe. The arrays are read when
+         * the round is made, so they must not change until then.
+         */
+        void addKeyframe(int[] dirt, boolean[] water, int[] pollution, int[] soup, float waterLevel);
+
+        /**
+         * Add a robot that's alive at the end of this round to its keyframe.
+         */
+        void addKeyframeBody(InternalRobot robot);
+
+        /**
+         * @return an outputstream that will be baked into the output file
+         */
+        OutputStream getOut();
+
+        void addMoved(int id, MapLocation newLocation);
+
+        void addDied(int id);
+
+        void addAction(int userID, byte action, int targetID);
+
+        void addDirtChanged(MapLocation loc, int change);
+
+        void addWaterChanged(MapLocation loc);
+
+        void setGlobalPollution(int globalPollution);
+
+        void addLocalPollution(MapLocation loc, int radiusSquared, int additive, float multiplicative);
+
+        void addSoupChanged(MapLocation loc, int change);
+
+        void addNewMessage(int cost, String message);
+
+        void addBroadcastedMessage(int cost, String message);
+
+        void addTeamSoup(Team team, int soup);
+
+        void addIndicatorDot(int id, MapLocation loc, int red, int green, int blue);
+
+        void addIndicatorLine(int id, MapLocation startLoc, MapLocation endLoc, int red, int green, int blue);
+
+        void addBytecodes(int id, int bytecodes);
+
+        void addSpawnedRobot(InternalRobot robot);
+    }
+
     /**
      * Writes events from match to one or multiple flatbuffers.
      *
      * One of the rare cases where we want a non-static inner class in Java:
      * this basically just provides a restricted interface to GameMaker.
-     *
-     * There is only one of these per GameMaker.
      */
-    public class MatchMaker {
-        private TIntArrayList movedIDs; // ints
+    public class RecordingMatchMaker implements MatchMaker {
+        private final FlatColumn.Int movedIDs; // ints
         // VecTable for movedLocs in Round
-        private TIntArrayList movedLocsXs;
-        private TIntArrayList movedLocsYs;
+        private final FlatColumn.Int movedLocsXs;
+        private final FlatColumn.Int movedLocsYs;
 
         // SpawnedBodyTable for spawnedBodies
-        private TIntArrayList spawnedBodiesRobotIDs;
-        private TByteArrayList spawnedBodiesTeamIDs;
-        private TByteArrayList spawnedBodiesTypes;
-        private TIntArrayList spawnedBodiesLocsXs; //For locs
-        private TIntArrayList spawnedBodiesLocsYs; //For locs
+        private final FlatColumn.Int spawnedBodiesRobotIDs;
+        private final FlatColumn.Byte spawnedBodiesTeamIDs;
+        private final FlatColumn.Byte spawnedBodiesTypes;
+        private final FlatColumn.Int spawnedBodiesLocsXs; //For locs
+        private final FlatColumn.Int spawnedBodiesLocsYs; //For locs
 
-        private TIntArrayList diedIDs; // ints
+        private final FlatColumn.Int diedIDs; // ints
 
-        private TIntArrayList actionIDs; // ints
-        private TByteArrayList actions; // Actions
-        private TIntArrayList actionTargets; // ints (IDs)
+        private final FlatColumn.Int actionIDs; // ints
+        private final FlatColumn.Byte actions; // Actions
+        private final FlatColumn.Int actionTargets; // ints (IDs)
 
-        private TIntArrayList dirtChangedLocsXs; //For locs
-        private TIntArrayList dirtChangedLocsYs; //For locs
-        private TIntArrayList dirtChanges; // ints
+        private final FlatColumn.Int dirtChangedLocsXs; //For locs
+        private final FlatColumn.Int dirtChangedLocsYs; //For locs
+        private final FlatColumn.Int dirtChanges; // ints
 
-        private TIntArrayList waterChangedLocsXs; //For locs
-        private TIntArrayList waterChangedLocsYs; //For locs
+        private final FlatColumn.Int waterChangedLocsXs; //For locs
+        private final FlatColumn.Int waterChangedLocsYs; //For locs
 
         private int globalPollution;
 
-        private TIntArrayList pollutionLocsXs; //For locs
-        private TIntArrayList pollutionLocsYs; //For locs
-        private TIntArrayList pollutionRadiiSquared;
-        private TIntArrayList pollutionAdditiveEffects;
-        private TFloatArrayList pollutionMultiplicativeEffects;
+        private final FlatColumn.Int pollutionLocsXs; //For locs
+        private final FlatColumn.Int pollutionLocsYs; //For locs
+        private final FlatColumn.Int pollutionRadiiSquared;
+        private final FlatColumn.Int pollutionAdditiveEffects;
+        private final FlatColumn.Float pollutionMultiplicativeEffects;
 
-        private TIntArrayList soupChangedLocsXs; //For locs
-        private TIntArrayList soupChangedLocsYs; //For locs
-        private TIntArrayList soupChanges; // ints
+        private final FlatColumn.Int soupChangedLocsXs; //For locs
+        private final FlatColumn.Int soupChangedLocsYs; //For locs
+        private final FlatColumn.Int soupChanges; // ints
 
-        private TIntArrayList newMessagesCosts;
-        private TCharArrayList newMessages;
+        private final FlatColumn.Int newMessagesCosts;
+        private final FlatColumn.Int newMessages;
 
-        private TIntArrayList broadcastedMessagesCosts;
-        private TCharArrayList broadcastedMessages;
+        private final FlatColumn.Int broadcastedMessagesCosts;
+        private final FlatColumn.Int broadcastedMessages;
 
         // Round statistics
-        private TIntArrayList teamIDs;
-        private TIntArrayList teamSoups;
+        private final FlatColumn.Int teamIDs;
+        private final FlatColumn.Int teamSoups;
 
         // Indicator dots with locations and RGB values
-        private TIntArrayList indicatorDotIDs;
-        private TIntArrayList indicatorDotLocsX;
-        private TIntArrayList indicatorDotLocsY;
-        private TIntArrayList indicatorDotRGBsRed;
-        private TIntArrayList indicatorDotRGBsGreen;
-        private TIntArrayList indicatorDotRGBsBlue;
+        private final FlatColumn.Int indicatorDotIDs;
+        private final FlatColumn.Int indicatorDotLocsX;
+        private final FlatColumn.Int indicatorDotLocsY;
+        private final FlatColumn.Int indicatorDotRGBsRed;
+        private final FlatColumn.Int indicatorDotRGBsGreen;
+        private final FlatColumn.Int indicatorDotRGBsBlue;
 
         // Indicator lines with locations and RGB values
-        private TIntArrayList indicatorLineIDs;
-        private TIntArrayList indicatorLineStartLocsX;
-        private TIntArrayList indicatorLineStartLocsY;
-        private TIntArrayList indicatorLineEndLocsX;
-        private TIntArrayList indicatorLineEndLocsY;
-        private TIntArrayList indicatorLineRGBsRed;
-        private TIntArrayList indicatorLineRGBsGreen;
-        private TIntArrayList indicatorLineRGBsBlue;
+        private final FlatColumn.Int indicatorLineIDs;
+        private final FlatColumn.Int indicatorLineStartLocsX;
+        private final FlatColumn.Int indicatorLineStartLocsY;
+        private final FlatColumn.Int indicatorLineEndLocsX;
+        private final FlatColumn.Int indicatorLineEndLocsY;
+        private final FlatColumn.Int indicatorLineRGBsRed;
+        private final FlatColumn.Int indicatorLineRGBsGreen;
+        private final FlatColumn.Int indicatorLineRGBsBlue;
 
         // Robot IDs and their bytecode usage
-        private TIntArrayList bytecodeIDs;
-        private TIntArrayList bytecodesUsed;
+        private final FlatColumn.Int bytecodeIDs;
+        private final FlatColumn.Int bytecodesUsed;
+
+        // The complete state of the match, in rounds with a keyframe
+        private boolean keyframe;
+        private int[] keyframeDirt;
+        private boolean[] keyframeWater;
+        private int[] keyframePollution;
+        private int[] keyframeSoup;
+        private float keyframeWaterLevel;
+        private final FlatColumn.Int keyframeBodyIDs;
+        private final FlatColumn.Byte keyframeBodyTeamIDs;
+        private final FlatColumn.Byte keyframeBodyTypes;
+        private final FlatColumn.Int keyframeBodyLocsXs;
+        private final FlatColumn.Int keyframeBodyLocsYs;
 
         // Used to write logs.
         private final ByteArrayOutputStream logger;
 
-        public MatchMaker() {
-            this.movedIDs = new TIntArrayList();
-            this.movedLocsXs = new TIntArrayList();
-            this.movedLocsYs = new TIntArrayList();
-            this.spawnedBodiesRobotIDs = new TIntArrayList();
-            this.spawnedBodiesTeamIDs = new TByteArrayList();
-            this.spawnedBodiesTypes = new TByteArrayList();
-            this.spawnedBodiesLocsXs = new TIntArrayList();
-            this.spawnedBodiesLocsYs = new TIntArrayList();
-            this.diedIDs = new TIntArrayList();
-            this.actionIDs = new TIntArrayList();
-            this.actions = new TByteArrayList();
-            this.actionTargets = new TIntArrayList();
-            this.dirtChangedLocsXs = new TIntArrayList();
-            this.dirtChangedLocsYs = new TIntArrayList();
-            this.dirtChanges = new TIntArrayList();
-            this.waterChangedLocsXs = new TIntArrayList();
-            this.waterChangedLocsYs = new TIntArrayList();
+        public RecordingMatchMaker() {
+            this.movedIDs = new FlatColumn.Int();
+            this.movedLocsXs = new FlatColumn.Int();
+            this.movedLocsYs = new FlatColumn.Int();
+            this.spawnedBodiesRobotIDs = new FlatColumn.Int();
+            this.spawnedBodiesTeamIDs = new FlatColumn.Byte();
+            this.spawnedBodiesTypes = new FlatColumn.Byte();
+            this.spawnedBodiesLocsXs = new FlatColumn.Int();
+            this.spawnedBodiesLocsYs = new FlatColumn.Int();
+            this.diedIDs = new FlatColumn.Int();
+            this.actionIDs = new FlatColumn.Int();
+            this.actions = new FlatColumn.Byte();
+            this.actionTargets = new FlatColumn.Int();
+            this.dirtChangedLocsXs = new FlatColumn.Int();
+            this.dirtChangedLocsYs = new FlatColumn.Int();
+            this.dirtChanges = new FlatColumn.Int();
+            this.waterChangedLocsXs = new FlatColumn.Int();
+            this.waterChangedLocsYs = new FlatColumn.Int();
             this.globalPollution = 0;
-            this.pollutionLocsXs = new TIntArrayList();
-            this.pollutionLocsYs = new TIntArrayList();
-            this.pollutionRadiiSquared = new TIntArrayList();
-            this.pollutionAdditiveEffects = new TIntArrayList();
-            this.pollutionMultiplicativeEffects = new TFloatArrayList();
-            this.soupChangedLocsXs = new TIntArrayList();
-            this.soupChangedLocsYs = new TIntArrayList();
-            this.soupChanges = new TIntArrayList();
-            this.newMessagesCosts = new TIntArrayList();
-            this.newMessages = new TCharArrayList();
-            this.broadcastedMessagesCosts = new TIntArrayList();
-            this.broadcastedMessages = new TCharArrayList();
-            this.teamIDs = new TIntArrayList();
-            this.teamSoups = new TIntArrayList();
-            this.indicatorDotIDs = new TIntArrayList();
-            this.indicatorDotLocsX = new TIntArrayList();
-            this.indicatorDotLocsY = new TIntArrayList();
-            this.indicatorDotRGBsRed = new TIntArrayList();
-            this.indicatorDotRGBsBlue = new TIntArrayList();
-            this.indicatorDotRGBsGreen = new TIntArrayList();
-            this.indicatorLineIDs = new TIntArrayList();
-            this.indicatorLineStartLocsX = new TIntArrayList();
-            this.indicatorLineStartLocsY = new TIntArrayList();
-            this.indicatorLineEndLocsX = new TIntArrayList();
-            this.indicatorLineEndLocsY = new TIntArrayList();
-            this.indicatorLineRGBsRed = new TIntArrayList();
-            this.indicatorLineRGBsBlue = new TIntArrayList();
-            this.indicatorLineRGBsGreen = new TIntArrayList();
-            this.bytecodeIDs = new TIntArrayList();
-            this.bytecodesUsed = new TIntArrayList();
+            this.pollutionLocsXs = new FlatColumn.Int();
+            this.pollutionLocsYs = new FlatColumn.Int();
+            this.pollutionRadiiSquared = new FlatColumn.Int();
+            this.pollutionAdditiveEffects = new FlatColumn.Int();
+            this.pollutionMultiplicativeEffects = new FlatColumn.Float();
+            this.soupChangedLocsXs = new FlatColumn.Int();
+            this.soupChangedLocsYs = new FlatColumn.Int();
+            this.soupChanges = new FlatColumn.Int();
+            this.newMessagesCosts = new FlatColumn.Int();
+            this.newMessages = new FlatColumn.Int();
+            this.broadcastedMessagesCosts = new FlatColumn.Int();
+            this.broadcastedMessages = new FlatColumn.Int();
+            this.teamIDs = new FlatColumn.Int();
+            this.teamSoups = new FlatColumn.Int();
+            this.indicatorDotIDs = new FlatColumn.Int();
+            this.indicatorDotLocsX = new FlatColumn.Int();
+            this.indicatorDotLocsY = new FlatColumn.Int();
+            this.indicatorDotRGBsRed = new FlatColumn.Int();
+            this.indicatorDotRGBsBlue = new FlatColumn.Int();
+            this.indicatorDotRGBsGreen = new FlatColumn.Int();
+            this.indicatorLineIDs = new FlatColumn.Int();
+            this.indicatorLineStartLocsX = new FlatColumn.Int();
+            this.indicatorLineStartLocsY = new FlatColumn.Int();
+            this.indicatorLineEndLocsX = new FlatColumn.Int();
+            this.indicatorLineEndLocsY = new FlatColumn.Int();
+            this.indicatorLineRGBsRed = new FlatColumn.Int();
+            this.indicatorLineRGBsBlue = new FlatColumn.Int();
+            this.indicatorLineRGBsGreen = new FlatColumn.Int();
+            this.bytecodeIDs = new FlatColumn.Int();
+            this.bytecodesUsed = new FlatColumn.Int();
+            this.keyframeBodyIDs = new FlatColumn.Int();
+            this.keyframeBodyTeamIDs = new FlatColumn.Byte();
+            this.keyframeBodyTypes = new FlatColumn.Byte();
+            this.keyframeBodyLocsXs = new FlatColumn.Int();
+            this.keyframeBodyLocsYs = new FlatColumn.Int();
             this.logger = new ByteArrayOutputStream();
         }
 
+        @Override
         public void makeMatchHeader(LiveMap gameMap) {
-            changeState(State.IN_GAME, State.IN_MATCH);
-
-            createEvent((builder) -> {
-                int map = GameMapIO.Serial.serialize(builder, gameMap);
-
-                return EventWrapper.createEventWrapper(builder, Event.MatchHeader,
-                        MatchHeader.createMatchHeader(builder, map, gameMap.getRounds()));
-            });
-
-            matchHeaders.add(events.size() - 1);
+            writeMatchHeader(gameMap);
 
             clearData();
         }
 
+        @Override
         public void makeMatchFooter(Team winTeam, int totalRounds) {
-            changeState(State.IN_MATCH, State.IN_GAME);
-
-            createEvent((builder) -> EventWrapper.createEventWrapper(builder, Event.MatchFooter,
-                    MatchFooter.createMatchFooter(builder, TeamMapping.id(winTeam), totalRounds)));
-
-            matchFooters.add(events.size() - 1);
+            writeMatchFooter(winTeam, totalRounds);
         }
 
+        @Override
         public void makeRound(int roundNum) {
             assertState(State.IN_MATCH);
 
@@ -477,9 +674,9 @@ public strictfp class GameMaker {
             createEvent((builder) -> {
                 // The bodies that spawned
                 int spawnedBodiesLocsP = createVecTable(builder, spawnedBodiesLocsXs, spawnedBodiesLocsYs);
-                int spawnedBodiesRobotIDsP = intVector(builder, spawnedBodiesRobotIDs, SpawnedBodyTable::startRobotIDsVector);
-                int spawnedBodiesTeamIDsP = byteVector(builder, spawnedBodiesTeamIDs, SpawnedBodyTable::startTeamIDsVector);
-                int spawnedBodiesTypesP = byteVector(builder, spawnedBodiesTypes, SpawnedBodyTable::startTypesVector);
+                int spawnedBodiesRobotIDsP = spawnedBodiesRobotIDs.createVector(builder, SpawnedBodyTable::startRobotIDsVector);
+                int spawnedBodiesTeamIDsP = spawnedBodiesTeamIDs.createVector(builder, SpawnedBodyTable::startTeamIDsVector);
+                int spawnedBodiesTypesP = spawnedBodiesTypes.createVector(builder, SpawnedBodyTable::startTypesVector);
                 SpawnedBodyTable.startSpawnedBodyTable(builder);
                 SpawnedBodyTable.addLocs(builder, spawnedBodiesLocsP);
                 SpawnedBodyTable.addRobotIDs(builder, spawnedBodiesRobotIDsP);
@@ -488,33 +685,33 @@ public strictfp class GameMaker {
                 int spawnedBodiesP = SpawnedBodyTable.endSpawnedBodyTable(builder);
 
                 // Round statistics
-                int teamIDsP = intVector(builder, teamIDs, Round::startTeamIDsVector);
-                int teamSoupsP = intVector(builder, teamSoups, Round::startTeamSoupsVector);
+                int teamIDsP = teamIDs.createVector(builder, Round::startTeamIDsVector);
+                int teamSoupsP = teamSoups.createVector(builder, Round::startTeamSoupsVector);
 
                 // The bodies that moved
-                int movedIDsP = intVector(builder, movedIDs, Round::startMovedIDsVector);
+                int movedIDsP = movedIDs.createVector(builder, Round::startMovedIDsVector);
                 int movedLocsP = createVecTable(builder, movedLocsXs, movedLocsYs);
 
                 // The bodies that died
-                int diedIDsP = intVector(builder, diedIDs, Round::startDiedIDsVector);
+                int diedIDsP = diedIDs.createVector(builder, Round::startDiedIDsVector);
 
                 // The actions that happened
-                int actionIDsP = intVector(builder, actionIDs, Round::startActionIDsVector);
-                int actionsP = byteVector(builder, actions, Round::startActionsVector);
-                int actionTargetsP = intVector(builder, actionTargets, Round::startActionTargetsVector);
+                int actionIDsP = actionIDs.createVector(builder, Round::startActionIDsVector);
+                int actionsP = actions.createVector(builder, Round::startActionsVector);
+                int actionTargetsP = actionTargets.createVector(builder, Round::startActionTargetsVector);
 
                 // The dirt changes on locations
                 int dirtChangedLocsP = createVecTable(builder, dirtChangedLocsXs, dirtChangedLocsYs);
-                int dirtChangesP = intVector(builder, dirtChanges, Round::startDirtChangesVector);
+                int dirtChangesP = dirtChanges.createVector(builder, Round::startDirtChangesVector);
 
                 // The water changes on locations
                 int waterChangedLocsP = createVecTable(builder, waterChangedLocsXs, waterChangedLocsYs);
 
                 // The local pollution
                 int pollutionLocationsP = createVecTable(builder, pollutionLocsXs, pollutionLocsYs);
-                int pollutionRadiiSquaredP = intVector(builder, pollutionRadiiSquared, LocalPollutionTable::startRadiiSquaredVector);
-                int pollutionAdditiveEffectsP = intVector(builder, pollutionAdditiveEffects, LocalPollutionTable::startAdditiveEffectsVector);
-                int pollutionMultiplicativeEffectsP = floatVector(builder, pollutionMultiplicativeEffects, LocalPollutionTable::startMultiplicativeEffectsVector);
+                int pollutionRadiiSquaredP = pollutionRadiiSquared.createVector(builder, LocalPollutionTable::startRadiiSquaredVector);
+                int pollutionAdditiveEffectsP = pollutionAdditiveEffects.createVector(builder, LocalPollutionTable::startAdditiveEffectsVector);
+                int pollutionMultiplicativeEffectsP = pollutionMultiplicativeEffects.createVector(builder, LocalPollutionTable::startMultiplicativeEffectsVector);
                 LocalPollutionTable.startLocalPollutionTable(builder);
                 LocalPollutionTable.addLocations(builder, pollutionLocationsP);
                 LocalPollutionTable.addRadiiSquared(builder, pollutionRadiiSquaredP);
@@ -524,33 +721,56 @@ public strictfp class GameMaker {
 
                 // The soup changes on locations
                 int soupChangedLocsP = createVecTable(builder, soupChangedLocsXs, soupChangedLocsYs);
-                int soupChangesP = intVector(builder, soupChanges, Round::startSoupChangesVector);
+                int soupChangesP = soupChanges.createVector(builder, Round::startSoupChangesVector);
 
                 // New message requests
-                int newMessagesCostsP = intVector(builder, newMessagesCosts, Round::startNewMessagesCostsVector);
-                int newMessagesP = charVector(builder, newMessages, Round::startNewMessagesVector);
+                int newMessagesCostsP = newMessagesCosts.createVector(builder, Round::startNewMessagesCostsVector);
+                int newMessagesP = newMessages.createVector(builder, Round::startNewMessagesVector);
                 
                 // Broadcasted messages
-                int broadcastedMessagesCostsP = intVector(builder, broadcastedMessagesCosts, Round::startBroadcastedMessagesCostsVector);
-                int broadcastedMessagesP = charVector(builder, broadcastedMessages, Round::startBroadcastedMessagesVector);
+                int broadcastedMessagesCostsP = broadcastedMessagesCosts.createVector(builder, Round::startBroadcastedMessagesCostsVector);
+                int broadcastedMessagesP = broadcastedMessages.createVector(builder, Round::startBroadcastedMessagesVector);
 
                 // The indicator dots that were set
-                int indicatorDotIDsP = intVector(builder, indicatorDotIDs, Round::startIndicatorDotIDsVector);
+                int indicatorDotIDsP = indicatorDotIDs.createVector(builder, Round::startIndicatorDotIDsVector);
                 int indicatorDotLocsP = createVecTable(builder, indicatorDotLocsX, indicatorDotLocsY);
                 int indicatorDotRGBsP = createRGBTable(builder, indicatorDotRGBsRed, indicatorDotRGBsGreen, indicatorDotRGBsBlue);
 
                 // The indicator lines that were set
-                int indicatorLineIDsP = intVector(builder, indicatorLineIDs, Round::startIndicatorLineIDsVector);
+                int indicatorLineIDsP = indicatorLineIDs.createVector(builder, Round::startIndicatorLineIDsVector);
                 int indicatorLineStartLocsP = createVecTable(builder, indicatorLineStartLocsX, indicatorLineStartLocsY);
                 int indicatorLineEndLocsP = createVecTable(builder, indicatorLineEndLocsX, indicatorLineEndLocsY);
                 int indicatorLineRGBsP = createRGBTable(builder, indicatorLineRGBsRed, indicatorLineRGBsGreen, indicatorLineRGBsBlue);
 
                 // The bytecode usage
-                int bytecodeIDsP = intVector(builder, bytecodeIDs, Round::startBytecodeIDsVector);
-                int bytecodesUsedP = intVector(builder, bytecodesUsed, Round::startBytecodesUsedVector);
+                int bytecodeIDsP = bytecodeIDs.createVector(builder, Round::startBytecodeIDsVector);
+                int bytecodesUsedP = bytecodesUsed.createVector(builder, Round::startBytecodesUsedVector);
 
                 int logsP = builder.createString(ByteBuffer.wrap(logs));
 
+                // The complete state of the match, if this round has it
+                int keyframeP = 0;
+                if (keyframe) {
+                    int keyframeBodiesLocsP = createVecTable(builder, keyframeBodyLocsXs, keyframeBodyLocsYs);
+                    int keyframeBodiesRobotIDsP = keyframeBodyIDs.createVector(builder, SpawnedBodyTable::startRobotIDsVector);
+                    int keyframeBodiesTeamIDsP = keyframeBodyTeamIDs.createVector(builder, SpawnedBodyTable::startTeamIDsVector);
+                    int keyframeBodiesTypesP = keyframeBodyTypes.createVector(builder, SpawnedBodyTable::startTypesVector);
+                    SpawnedBodyTable.startSpawnedBodyTable(builder);
+                    SpawnedBodyTable.addLocs(builder, keyframeBodiesLocsP);
+                    SpawnedBodyTable.addRobotIDs(builder, keyframeBodiesRobotIDsP);
+                    SpawnedBodyTable.addTeamIDs(builder, keyframeBodiesTeamIDsP);
+                    SpawnedBodyTable.addTypes(builder, keyframeBodiesTypesP);
+                    int keyframeBodiesP = SpawnedBodyTable.endSpawnedBodyTable(builder);
+
+                    keyframeP = Keyframe.createKeyframe(builder,
+                            keyframeBodiesP,
+                            Keyframe.createDirtVector(builder, keyframeDirt),
+                            Keyframe.createWaterVector(builder, keyframeWater),
+                            Keyframe.createPollutionVector(builder, keyframePollution),
+                            Keyframe.createSoupVector(builder, keyframeSoup),
+                            keyframeWaterLevel);
+                }
+
                 Round.startRound(builder);
                 Round.addTeamIDs(builder, teamIDsP);
                 Round.addTeamSoups(builder, teamSoupsP);
@@ -583,6 +803,8 @@ public strictfp class GameMaker {
                 Round.addBytecodeIDs(builder, bytecodeIDsP);
                 Round.addBytecodesUsed(builder, bytecodesUsedP);
                 Round.addLogs(builder, logsP);
+                if (keyframe)
+                    Round.addKeyframe(builder, keyframeP);
                 int round = Round.endRound(builder);
                 return EventWrapper.createEventWrapper(builder, Event.Round, round);
             });
@@ -590,44 +812,73 @@ public strictfp class GameMaker {
             clearData();
         }
 
-        /**
-         * @return an outputstream that will be baked into the output file
-         */
+        @Override
+        public boolean isKeyframe(int roundNum) {
+            return keyframeInterval > 0 && roundNum % keyframeInterval == 0;
+        }
+
+        @Override
+        public void addKeyframe(int[] dirt, boolean[] water, int[] pollution, int[] soup, float waterLevel) {
+            keyframe = true;
+            keyframeDirt = dirt;
+            keyframeWater = water;
+            keyframePollution = pollution;
+            keyframeSoup = soup;
+            keyframeWaterLevel = waterLevel;
+        }
+
+        @Override
+        public void addKeyframeBody(InternalRobot robot) {
+            keyframeBodyIDs.add(robot.getID());
+            keyframeBodyLocsXs.add(robot.getLocation().x);
+            keyframeBodyLocsYs.add(robot.getLocation().y);
+            keyframeBodyTeamIDs.add(TeamMapping.id(robot.getTeam()));
+            keyframeBodyTypes.add(FlatHelpers.getBodyTypeFromRobotType(robot.getType()));
+        }
+
+        @Override
         public OutputStream getOut() {
             return logger;
         }
 
+        @Override
         public void addMoved(int id, MapLocation newLocation) {
             movedIDs.add(id);
             movedLocsXs.add(newLocation.x);
             movedLocsYs.add(newLocation.y);
         }
 
+        @Override
         public void addDied(int id) {
             diedIDs.add(id);
         }
 
+        @Override
         public void addAction(int userID, byte action, int targetID) {
             actionIDs.add(userID);
             actions.add(action);
             actionTargets.add(targetID);
         }
 
+        @Override
         public void addDirtChanged(MapLocation loc, int change) {
             dirtChangedLocsXs.add(loc.x);
             dirtChangedLocsYs.add(loc.y);
             dirtChanges.add(change);
         }
 
+        @Override
         public void addWaterChanged(MapLocation loc) {
             waterChangedLocsXs.add(loc.x);
             waterChangedLocsYs.add(loc.y);
         }
 
+        @Override
         public void setGlobalPollution(int globalPollution) {
             this.globalPollution = globalPollution;
         }
 
+        @Override
         public void addLocalPollution(MapLocation loc, int radiusSquared, int additive, float multiplicative) {
             pollutionLocsXs.add(loc.x);
             pollutionLocsYs.add(loc.y);
@@ -636,31 +887,36 @@ public strictfp class GameMaker {
             pollutionMultiplicativeEffects.add(multiplicative);
         }
 
+        @Override
         public void addSoupChanged(MapLocation loc, int change) {
             soupChangedLocsXs.add(loc.x);
             soupChangedLocsYs.add(loc.y);
             soupChanges.add(change);
         }
 
+        @Override
         public void addNewMessage(int cost, String message) {
             newMessagesCosts.add(cost);
-            for (char c : message.toCharArray())
-                newMessages.add(c);
+            for (int i = 0; i < message.length(); i++)
+                newMessages.add(message.charAt(i));
             newMessages.add(' ');
         }
 
+        @Override
         public void addBroadcastedMessage(int cost, String message) {
             broadcastedMessagesCosts.add(cost);
-            for (char c : message.toCharArray())
-                broadcastedMessages.add(c);
+            for (int i = 0; i < message.length(); i++)
+                broadcastedMessages.add(message.charAt(i));
             broadcastedMessages.add(' ');
         }
 
+        @Override
         public void addTeamSoup(Team team, int soup) {
             teamIDs.add(TeamMapping.id(team));
             teamSoups.add(soup);
         }
 
+        @Override
         public void addIndicatorDot(int id, MapLocation loc, int red, int green, int blue) {
             indicatorDotIDs.add(id);
             indicatorDotLocsX.add(loc.x);
@@ -670,6 +926,7 @@ public strictfp class GameMaker {
             indicatorDotRGBsBlue.add(blue);
         }
 
+        @Override
         public void addIndicatorLine(int id, MapLocation startLoc, MapLocation endLoc, int red, int green, int blue) {
             indicatorLineIDs.add(id);
             indicatorLineStartLocsX.add(startLoc.x);
@@ -681,11 +938,13 @@ public strictfp class GameMaker {
             indicatorLineRGBsBlue.add(blue);
         }
 
+        @Override
         public void addBytecodes(int id, int bytecodes) {
             bytecodeIDs.add(id);
             bytecodesUsed.add(bytecodes);
         }
 
+        @Override
         public void addSpawnedRobot(InternalRobot robot) {
             spawnedBodiesRobotIDs.add(robot.getID());
             spawnedBodiesLocsXs.add(robot.getLocation().x);
@@ -743,6 +1002,129 @@ public strictfp class GameMaker {
             indicatorLineRGBsGreen.clear();
             bytecodeIDs.clear();
             bytecodesUsed.clear();
+            keyframe = false;
+            keyframeDirt = null;
+            keyframeWater = null;
+            keyframePollution = null;
+            keyframeSoup = null;
+            keyframeBodyIDs.clear();
+            keyframeBodyTeamIDs.clear();
+            keyframeBodyTypes.clear();
+            keyframeBodyLocsXs.clear();
+            keyframeBodyLocsYs.clear();
         }
     }
+
+    /**
+     * Records everything but indicator dots and lines, robot output and
+     * bytecode counts. Those are only there to debug players with, and
+     * are most of what players make, so leaving them out makes replays
+     * much smaller and cheaper to write. The replay still plays back.
+     */
+    public class SelectiveMatchMaker extends RecordingMatchMaker {
+
+        private final OutputStream discarded = new NullOutputStream();
+
+        @Override
+        public OutputStream getOut() {
+            return discarded;
+        }
+
+        @Override
+        public void addIndicatorDot(int id, MapLocation loc, int red, int green, int blue) {}
+
+        @Override
+        public void addIndicatorLine(int id, MapLocation startLoc, MapLocation endLoc, int red, int green, int blue) {}
+
+        @Override
+        public void addBytecodes(int id, int bytecodes) {}
+    }
+
+    /**
+     * Only records the match headers and footers, so the game still says
+     * which maps were played and who won them, but has no rounds to play
+     * back. Everything else is thrown away as it's told, with no lists or
+     * flatbuffers built, for when only the results matter: tuning runs
+     * and the like.
+     */
+    public class ResultsMatchMaker implements MatchMaker {
+
+        private final OutputStream discarded = new NullOutputStream();
+
+        @Override
+        public void makeMatchHeader(LiveMap gameMap) {
+            writeMatchHeader(gameMap);
+        }
+
+        @Override
+        public void makeMatchFooter(Team winTeam, int totalRounds) {
+            writeMatchFooter(winTeam, totalRounds);
+        }
+
+        @Override
+        public void makeRound(int roundNum) {
+            assertState(State.IN_MATCH);
+        }
+
+        @Override
+        public boolean isKeyframe(int roundNum) {
+            return false;
+        }
+
+        @Override
+        public void addKeyframe(int[] dirt, boolean[] water, int[] pollution, int[] soup, float waterLevel) {}
+
+        @Override
+        public void addKeyframeBody(InternalRobot robot) {}
+
+        @Override
+        public OutputStream getOut() {
+            return discarded;
+        }
+
+        @Override
+        public void addMoved(int id, MapLocation newLocation) {}
+
+        @Override
+        public void addDied(int id) {}
+
+        @Override
+        public void addAction(int userID, byte action, int targetID) {}
+
+        @Override
+        public void addDirtChanged(MapLocation loc, int change) {}
+
+        @Override
+        public void addWaterChanged(MapLocation loc) {}
+
+        @Override
+        public void setGlobalPollution(int globalPollution) {}
+
+        @Override
+        public void addLocalPollution(MapLocation loc, int radiusSquared, int additive, float multiplicative) {}
+
+        @Override
+        public void addSoupChanged(MapLocation loc, int change) {}
+
+        @Override
+        public void addNewMessage(int cost, String message) {}
+
+        @Override
+        public void addBroadcastedMessage(int cost, String message) {}
+
+        @Override
+        public void addTeamSoup(Team team, int soup) {}
+
+        @Override
+        public void addIndicatorDot(int id, MapLocation loc, int red, int green, int blue) {}
+
+        @Override
+        public void addIndicatorLine(int id, MapLocation startLoc, MapLocation endLoc, int red, int green, int blue) {}
+
+        @Override
+        public void addBytecodes(int id, int bytecodes) {}
+
+        @Override
+        public void addSpawnedRobot(InternalRobot robot) {}
+    }
 }
@@ -1,34 +1,115 @@
 package battlecode.server;
 
+import battlecode.schema.Event;
 import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.java_websocket.framing.CloseFrame;
 import org.java_websocket.handshake.ClientHandshake;
 import org.java_websocket.server.WebSocketServer;
 
 import java.net.InetSocketAddress;
 import java.nio.channels.ClosedByInterruptException;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Serve a battlecode match over a websocket connection.
  *
  * Sends one battlecode event per websocket message; ignores incoming messages.
+ * Or, with bc.server.batch-rounds or bc.server.batch-millis set, sends
+ * rounds a batch at a time, in an {@link EventBatch}: a batch goes out
+ * when it has bc.server.batch-rounds rounds (0 for no limit), or when
+ * the client hasn't been sent anything for bc.server.batch-millis
+ * milliseconds (0 to always wait for a full batch). Headers and footers
+ * end a batch, so they are never held back.
+ *
+ * Events go into an {@link EventLog} on disk, and each client has its own
+ * place in it, so clients that connect late are sent everything from the
+ * start, and a slow client holds up no one else. A client is only handed
+ * as many events as fit in its send queue, bc.server.client-queue-size
+ * messages, so memory doesn't grow when the engine outruns it. When a
+ * client falls more than bc.server.client-max-lag events behind, not
+ * counting the events from before it connected, so that a late client
+ * can catch up on those at its own pace, bc.server.slow-client says what
+ * to do about it:
+ *
+ * "throttle": the engine waits for it, in addEvent.
+ * "keyframe": skip its rounds up to the latest round with a keyframe. It
+ *             still gets every header and footer. Needs
+ *             bc.server.keyframe-interval set.
+ * "disconnect": close its connection.
  *
  * @author james
  */
 public class NetServer extends WebSocketServer {
 
-    private final List<byte[]> previousEvents;
-    private final BlockingQueue<byte[]> incomingEvents;
+    /**
+     * How long the sending thread waits for something to do, in
+     * milliseconds, before checking whether clients' queues have room.
+     */
+    private static final int POLL_MILLIS = 10;
+
+    private enum SlowClientPolicy {
+        THROTTLE, KEYFRAME, DISCONNECT
+    }
+
+    /**
+     * A client and the index of the next event to send it.
+     */
+    private static final class Client {
+        final WebSocket socket;
+        volatile int next;
+
+        /**
+         * The number of events there were when it connected. It isn't
+         * behind for catching up on those, only for what came after.
+         */
+        final int joined;
+
+        /**
+         * When it was last sent something, as in System.nanoTime.
+         * Only used on the sending thread.
+         */
+        long lastSent;
+
+        Client(WebSocket socket, int joined) {
+            this.socket = socket;
+            this.joined = joined;
+        }
+
+        /**
+         * @param end the number of events
+         * @return how many events it's behind, not counting any from
+         *         before it connected
+         */
+        int lag(int end) {
+            return end - Math.max(next, joined);
+        }
+    }
+
+    private final EventLog previousEvents;
+    private final Map<WebSocket, Client> clients;
+
+    private final int queueSize;
+    private final int maxLag;
+    private final SlowClientPolicy slowClientPolicy;
+
+    private final boolean batching;
+    private final int batchRounds;
+    private final long batchNanos;
+
+    /**
+     * Only for waiting on: the sending thread waits on it for new events,
+     * and addEvent for slow clients to catch up.
+     */
+    private final Object progress = new Object();
 
     private boolean waitForClient;
 
-    private boolean done = false;
-    private boolean connected = false;
+    private volatile boolean done = false;
+    private volatile boolean connected = false;
 
     private Thread queueThread;
 
@@ -41,20 +122,45 @@ public class NetServer extends WebSocketServer {
 
         this.waitForClient = waitForClient;
 
-        previousEvents = new ArrayList<>();
-        incomingEvents = new ArrayBlockingQueue<>(64);
+        Config options = Config.getGlobalConfig();
+        this.queueSize = options.getInt("bc.server.client-queue-size");
+        this.maxLag = options.getInt("bc.server.client-max-lag");
+        this.slowClientPolicy = slowClientPolicy(options.get("bc.server.slow-client"));
+        if (slowClientPolicy == SlowClientPolicy.KEYFRAME && options.getInt("bc.server.keyframe-interval") <= 0) {
+            // there would never be a keyframe to skip to
+            throw new IllegalArgumentException("Slow client policy \"keyframe\" needs bc.server.keyframe-interval set");
+        }
+        this.batchRounds = options.getInt("bc.server.batch-rounds");
+        int batchMillis = options.getInt("bc.server.batch-millis");
+        if (batchRounds < 0 || batchMillis < 0 || (batchRounds == 0 && batchMillis == 0)) {
+            throw new IllegalArgumentException("Bad batch size: " + batchRounds
+                    + " rounds, " + batchMillis + " milliseconds");
+        }
+        if (batchRounds > maxLag) {
+            // the client would be too far behind before it had a full batch
+            throw new IllegalArgumentException("Batches of " + batchRounds
+                    + " rounds don't fit in a lag of " + maxLag + " events");
+        }
+        this.batching = batchRounds != 1;
+        this.batchNanos = TimeUnit.MILLISECONDS.toNanos(batchMillis);
+
+        previousEvents = new EventLog();
+        clients = new ConcurrentHashMap<>();
 
         queueThread = new Thread(() -> {
             try {
-                while (!done) {
-                    byte[] event = incomingEvents.poll(300, TimeUnit.MILLISECONDS);
-                    if (event != null) {
-                        processEvent(event);
+                while (true) {
+                    // once done, no more events are coming
+                    boolean finishing = done;
+                    boolean sent = sendEvents(finishing);
+                    if (finishing) {
+                        break;
+                    }
+                    if (!sent) {
+                        synchronized (progress) {
+                            progress.wait(POLL_MILLIS);
+                        }
                     }
-                }
-                while (incomingEvents.size() > 0) {
-                    byte[] event = incomingEvents.remove();
-                    processEvent(event);
                 }
             } catch(Exception e) {
                 ErrorReporter.report(e, true);
@@ -62,6 +168,19 @@ public class NetServer extends WebSocketServer {
         });
     }
 
+    private static SlowClientPolicy slowClientPolicy(String policy) {
+        switch (policy) {
+            case "throttle":
+                return SlowClientPolicy.THROTTLE;
+            case "keyframe":
+                return SlowClientPolicy.KEYFRAME;
+            case "disconnect":
+                return SlowClientPolicy.DISCONNECT;
+            default:
+                throw new IllegalArgumentException("Unknown slow client policy: " + policy);
+        }
+    }
+
     /**
      * Run the server on a new thread.
      */
@@ -90,6 +209,8 @@ public class NetServer extends WebSocketServer {
     /**
      * Add an event.
      * It will be sent to clients at some point in the future.
+     * With bc.server.slow-client set to "throttle", blocks while a client
+     * is too far behind.
      *
      * @param event
      */
@@ -97,7 +218,19 @@ public class NetServer extends WebSocketServer {
         if (done) {
             throw new RuntimeException("Can't add event, server already finished");
         }
-        incomingEvents.add(event);
+        previousEvents.add(event);
+        synchronized (progress) {
+            progress.notifyAll();
+            if (slowClientPolicy == SlowClientPolicy.THROTTLE) {
+                try {
+                    while (!done && maxClientLag() > maxLag) {
+                        progress.wait(POLL_MILLIS);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
     }
 
     /**
@@ -113,45 +246,168 @@ public class NetServer extends WebSocketServer {
         }
 
         done = true;
+        synchronized (progress) {
+            progress.notifyAll();
+        }
         try {
             queueThread.join();
             stop();
         } catch (Exception e) {
             ErrorReporter.report(e, true);
+        } finally {
+            previousEvents.close();
         }
     }
 
     // implementation details
 
-    // Two threads: one polling websocket stuff, one awaiting queue inputs
-    // When there's a new client, we lock, all events are sent to client, we unlock
-    // When there is a queue input, we lock, all clients receive event, we unlock
-    // There may still be thread-safety issues here:
-    //
-    // onOpen
-
-    private void processEvent(byte[] event) {
-        synchronized (connections()) {
-            for (WebSocket client : connections()) {
-                client.send(event);
+    // Three kinds of threads: the engine adding events, one polling
+    // websocket stuff, and one sending events.
+    // The engine appends to the log; the sending thread is the only one
+    // that moves clients through it; websocket threads only add and
+    // remove clients. Nothing is locked while sending.
+
+    /**
+     * Hand every client as many of the events it hasn't had as fit in its
+     * send queue, dealing with clients that are too far behind first.
+     * Only called on the sending thread.
+     *
+     * @param finishing whether this is the last time; then every client
+     *                  gets everything left, room or not
+     * @return whether anything was sent
+     */
+    boolean sendEvents(boolean finishing) {
+        final int end = previousEvents.size();
+        final long now = System.nanoTime();
+        boolean sent = false;
+        for (Client client : clients.values()) {
+            if (!finishing && client.lag(end) > maxLag) {
+                if (slowClientPolicy == SlowClientPolicy.DISCONNECT) {
+                    System.err.println("Disconnecting " + client.socket.getRemoteSocketAddress()
+                            + ": more than " + maxLag + " events behind");
+                    clients.remove(client.socket);
+                    client.socket.close(CloseFrame.GOING_AWAY, "Too far behind");
+                    continue;
+                } else if (slowClientPolicy == SlowClientPolicy.KEYFRAME) {
+                    sent |= skipToKeyframe(client);
+                }
+            }
+
+            int room = finishing ? Integer.MAX_VALUE : queueSize - queuedMessages(client.socket);
+            boolean due = finishing || (batchNanos > 0 && now - client.lastSent >= batchNanos);
+            try {
+                while (room > 0 && client.next < end) {
+                    int last = batchEnd(client.next, end, due);
+                    if (last < 0) {
+                        break;
+                    }
+                    send(client, client.next, last, now);
+                    client.next = last;
+                    room--;
+                    sent = true;
+                    due = finishing;
+                }
+            } catch (WebsocketNotConnectedException e) {
+                clients.remove(client.socket);
+            }
+        }
+        if (sent) {
+            synchronized (progress) {
+                progress.notifyAll();
             }
-            previousEvents.add(event);
         }
+        return sent;
     }
 
-    @Override
-    public void onOpen(WebSocket client, ClientHandshake handshake) {
-        synchronized (connections()) {
-            connected = true;
+    /**
+     * Move a client up to the latest round with a keyframe, if it hasn't
+     * got there yet, sending it the headers and footers on the way.
+     *
+     * @return whether anything was sent
+     */
+    private boolean skipToKeyframe(Client client) {
+        final int keyframe = previousEvents.latestKeyframe();
+        boolean sent = false;
+        try {
+            for (; client.next < keyframe; client.next++) {
+                if (previousEvents.type(client.next) != Event.Round) {
+                    send(client, client.next, client.next + 1, System.nanoTime());
+                    sent = true;
+                }
+            }
+        } catch (WebsocketNotConnectedException e) {
+            clients.remove(client.socket);
+        }
+        return sent;
+    }
 
-            for (byte[] event : previousEvents) {
-                client.send(event);
+    /**
+     * Find where the next message to a client should end.
+     *
+     * @param from the index of the first event not sent yet
+     * @param end the number of events
+     * @param due whether to send a batch that isn't full
+     * @return the index after the last event to send, or -1 if nothing
+     *         should be sent yet
+     */
+    private int batchEnd(int from, int end, boolean due) {
+        int rounds = 0;
+        for (int i = from; i < end; i++) {
+            if (previousEvents.type(i) != Event.Round || ++rounds == batchRounds) {
+                return i + 1;
             }
         }
+        return due ? end : -1;
+    }
+
+    /**
+     * Send a client some events, one bare event or a batch of them.
+     */
+    private void send(Client client, int from, int to, long now) {
+        if (batching) {
+            client.socket.send(EventBatch.create(previousEvents, from, to));
+        } else {
+            client.socket.send(previousEvents.get(from));
+        }
+        client.lastSent = now;
+    }
+
+    /**
+     * @return how many events the client furthest behind hasn't been
+     *         handed yet, of those added since it connected
+     */
+    private int maxClientLag() {
+        int end = previousEvents.size();
+        int lag = 0;
+        for (Client client : clients.values()) {
+            lag = Math.max(lag, client.lag(end));
+        }
+        return lag;
+    }
+
+    /**
+     * @return the number of messages waiting to be written to a client
+     */
+    int queuedMessages(WebSocket client) {
+        return client instanceof WebSocketImpl ? ((WebSocketImpl) client).outQueue.size() : 0;
+    }
+
+    @Override
+    public void onOpen(WebSocket client, ClientHandshake handshake) {
+        // it starts from the first event, but only what comes after it
+        // connected counts towards its lag
+        Client newClient = new Client(client, previousEvents.size());
+        newClient.lastSent = System.nanoTime();
+        clients.put(client, newClient);
+        connected = true;
+        synchronized (progress) {
+            progress.notifyAll();
+        }
     }
 
     @Override
     public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+        clients.remove(conn);
         System.out.println("Closed: "+conn.getRemoteSocketAddress() + " for "+reason);
     }
 
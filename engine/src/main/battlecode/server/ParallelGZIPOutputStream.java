@@ -0,0 +1,320 @@
+package battlecode.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A gzip stream that compresses on several threads, like pigz.
+ *
+ * The input is cut into blocks that are deflated independently, each
+ * primed with the last 32K of the block before it so that compression
+ * barely suffers. Every block but the last ends with a sync flush, which
+ * ends on a byte boundary, so the compressed blocks simply concatenate
+ * into one deflate stream. The output is a single ordinary gzip member.
+ *
+ * Only a few blocks are in flight at a time, so memory use doesn't depend
+ * on how much is written.
+ *
+ * Like the streams it replaces, this is not thread safe.
+ */
+public class ParallelGZIPOutputStream extends FilterOutputStream {
+
+    private static final int BLOCK_SIZE = 128 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private final int level;
+
+    /**
+     * Deflaters are expensive to create, and hold native memory until
+     * they're ended, so a block takes one from here and gives it back when
+     * it's done; there are never more than there are blocks in flight.
+     * All of them are ended when the stream is finished. Guarded by itself.
+     */
+    private final ArrayDeque<Deflater> idleDeflaters;
+
+    /**
+     * Whether the deflaters have been ended; any given back after that
+     * are ended straight away. Guarded by idleDeflaters.
+     */
+    private boolean deflatersEnded;
+
+    /**
+     * Compresses blocks; null when compressing on the calling thread.
+     */
+    private final ExecutorService pool;
+
+    /**
+     * Blocks being compressed, oldest first.
+     */
+    private final ArrayDeque<Future<byte[]>> pending;
+    private final int maxPending;
+
+    private final CRC32 crc;
+    private long totalIn;
+
+    private byte[] block;
+    private int blockLength;
+
+    /**
+     * The end of the last block, to prime the next one with.
+     */
+    private byte[] dictionary;
+
+    private boolean finished;
+
+    /**
+     * @param out the stream to write the gzipped data to
+     * @param level the compression level, 0-9, or -1 for the default
+     * @param threads how many threads to compress on; if 1 or less,
+     *                everything happens on the calling thread
+     * @throws IOException if the gzip header can't be written
+     */
+    public ParallelGZIPOutputStream(OutputStream out, int level, int threads) throws IOException {
+        super(out);
+        if (level < -1 || level > 9) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        this.level = level;
+        this.idleDeflaters = new ArrayDeque<>();
+        if (threads > 1) {
+            AtomicInteger count = new AtomicInteger();
+            this.pool = Executors.newFixedThreadPool(threads, (runnable) -> {
+                Thread thread = new Thread(runnable, "replay-compressor-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.pool = null;
+        }
+        this.pending = new ArrayDeque<>();
+        this.maxPending = 2 * Math.max(threads, 1);
+        this.crc = new CRC32();
+        this.block = new byte[BLOCK_SIZE];
+
+        writeHeader();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (finished) {
+            throw new IOException("write beyond end of stream");
+        }
+        crc.update(b, off, len);
+        totalIn += len;
+        while (len > 0) {
+            int copied = Math.min(len, BLOCK_SIZE - blockLength);
+            System.arraycopy(b, off, block, blockLength, copied);
+            blockLength += copied;
+            off += copied;
+            len -= copied;
+            if (blockLength == BLOCK_SIZE) {
+                submitBlock(false);
+            }
+        }
+    }
+
+    /**
+     * Does nothing: flushing would end a block early, and hurt compression.
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Finish writing compressed data, without closing the underlying stream.
+     *
+     * @throws IOException if writing fails
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        try {
+            submitBlock(true);
+            while (!pending.isEmpty()) {
+                writeOldest();
+            }
+            writeTrailer();
+            out.flush();
+        } finally {
+            shutdown();
+        }
+    }
+
+    /**
+     * Give up on the stream after a failure: stop compressing and release
+     * the threads and deflaters, without writing anything more or closing
+     * the underlying stream. Nothing can be written after this.
+     */
+    public void abort() {
+        finished = true;
+        for (Future<byte[]> block : pending) {
+            block.cancel(true);
+        }
+        pending.clear();
+        shutdown();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            shutdown();
+            out.close();
+        }
+    }
+
+    private void submitBlock(boolean last) throws IOException {
+        final byte[] input = block;
+        final int inputLength = blockLength;
+        final byte[] primer = dictionary;
+
+        // the end of this block primes the next one
+        if (!last) {
+            dictionary = Arrays.copyOfRange(input, inputLength - DICTIONARY_SIZE, inputLength);
+            block = new byte[BLOCK_SIZE];
+            blockLength = 0;
+        }
+
+        Callable<byte[]> task = () -> deflate(input, inputLength, primer, last);
+        if (pool == null) {
+            FutureTask<byte[]> inline = new FutureTask<>(task);
+            inline.run();
+            pending.add(inline);
+        } else {
+            pending.add(pool.submit(task));
+        }
+        while (pending.size() >= maxPending) {
+            writeOldest();
+        }
+    }
+
+    private void writeOldest() throws IOException {
+        try {
+            out.write(pending.removeFirst().get());
+        } catch (ExecutionException e) {
+            throw new IOException("Compression failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        }
+    }
+
+    private byte[] deflate(byte[] input, int length, byte[] primer, boolean last) {
+        Deflater deflater = takeDeflater();
+        try {
+            return deflate(deflater, input, length, primer, last);
+        } finally {
+            giveBackDeflater(deflater);
+        }
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] input, int length, byte[] primer, boolean last) {
+        if (primer != null) {
+            deflater.setDictionary(primer);
+        }
+        deflater.setInput(input, 0, length);
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream(length / 2 + 64);
+        byte[] buffer = new byte[16 * 1024];
+        if (last) {
+            deflater.finish();
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                result.write(buffer, 0, n);
+            }
+        } else {
+            // a sync flush is done once it stops filling the buffer
+            int n;
+            do {
+                n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                result.write(buffer, 0, n);
+            } while (n == buffer.length);
+        }
+        return result.toByteArray();
+    }
+
+    private Deflater takeDeflater() {
+        synchronized (idleDeflaters) {
+            Deflater deflater = idleDeflaters.poll();
+            if (deflater != null) {
+                deflater.reset();
+                return deflater;
+            }
+        }
+        return new Deflater(level, true);
+    }
+
+    private void giveBackDeflater(Deflater deflater) {
+        synchronized (idleDeflaters) {
+            if (!deflatersEnded) {
+                idleDeflaters.add(deflater);
+                return;
+            }
+        }
+        deflater.end();
+    }
+
+    /**
+     * @return how many deflaters are waiting to be used again
+     */
+    int idleDeflaters() {
+        synchronized (idleDeflaters) {
+            return idleDeflaters.size();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        out.write(new byte[]{
+                0x1f, (byte) 0x8b, // magic
+                Deflater.DEFLATED, // method
+                0,                 // flags
+                0, 0, 0, 0,        // time
+                0,                 // extra flags
+                (byte) 0xff        // unknown OS
+        });
+    }
+
+    private void writeTrailer() throws IOException {
+        long value = crc.getValue();
+        long size = totalIn & 0xffffffffL;
+        out.write(new byte[]{
+                (byte) value, (byte) (value >> 8), (byte) (value >> 16), (byte) (value >> 24),
+                (byte) size, (byte) (size >> 8), (byte) (size >> 16), (byte) (size >> 24)
+        });
+    }
+
+    private void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+        synchronized (idleDeflaters) {
+            deflatersEnded = true;
+            for (Deflater deflater : idleDeflaters) {
+                deflater.end();
+            }
+            idleDeflaters.clear();
+        }
+    }
+}
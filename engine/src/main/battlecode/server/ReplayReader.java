@@ -0,0 +1,331 @@
+package battlecode.server;
+
+import battlecode.schema.Event;
+import battlecode.schema.EventWrapper;
+import battlecode.schema.GameFooter;
+import battlecode.schema.GameHeader;
+import battlecode.schema.GameWrapper;
+import battlecode.schema.Keyframe;
+import battlecode.schema.MatchFooter;
+import battlecode.schema.MatchHeader;
+import battlecode.schema.Round;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Random access to the events of a replay, without reading it into memory.
+ *
+ * A gzipped replay is inflated once, into a cache directory, and the
+ * inflated file is memory-mapped; later readers of the same replay reuse
+ * it. Everything returned is a flatbuffer accessor over the mapping, so
+ * nothing is copied, and the GameWrapper's match header and footer indices
+ * lead straight to any round of any match.
+ *
+ * Accessors are filled in rather than allocated: methods take the object to
+ * fill, as the generated schema classes do, and the rounds of a match are
+ * iterated with a single Round. So scanning many replays allocates very
+ * little. A reader is not thread safe.
+ */
+public class ReplayReader implements Closeable {
+
+    /**
+     * Where inflated replays are kept unless told otherwise.
+     */
+    public static final Path DEFAULT_CACHE =
+            Paths.get(System.getProperty("java.io.tmpdir"), "battlecode-replays");
+
+    private final GameWrapper game;
+
+    /**
+     * Scratch accessors for looking at events.
+     */
+    private final EventWrapper event;
+    private final Round scratchRound;
+    private final Keyframe scratchKeyframe;
+
+    /**
+     * Read a replay, inflating it into {@link #DEFAULT_CACHE} if needed.
+     *
+     * @param replay a replay file, gzipped or not
+     * @return a reader for it
+     * @throws IOException if the replay can't be read
+     */
+    public static ReplayReader open(Path replay) throws IOException {
+        return open(replay, DEFAULT_CACHE);
+    }
+
+    /**
+     * Read a replay, inflating it into a cache directory if needed.
+     *
+     * @param replay a replay file, gzipped or not
+     * @param cacheDirectory where to keep inflated replays; created if needed
+     * @return a reader for it
+     * @throws IOException if the replay can't be read
+     */
+    public static ReplayReader open(Path replay, Path cacheDirectory) throws IOException {
+        Path uncompressed = isGzipped(replay) ? inflate(replay, cacheDirectory) : replay;
+        try (FileChannel channel = FileChannel.open(uncompressed, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Replay is too large to map: " + replay);
+            }
+            // the mapping outlives the channel
+            return new ReplayReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Read a replay that's already in memory, uncompressed.
+     *
+     * @param buffer a GameWrapper, from its position to its limit
+     * @throws IOException if it isn't a replay
+     */
+    public ReplayReader(ByteBuffer buffer) throws IOException {
+        ByteBuffer game = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (game.remaining() < 4 || game.getInt(0) < 4 || game.getInt(0) > game.remaining() - 4) {
+            throw new IOException("Not a replay");
+        }
+        this.game = GameWrapper.getRootAsGameWrapper(game);
+        this.event = new EventWrapper();
+        this.scratchRound = new Round();
+        this.scratchKeyframe = new Keyframe();
+    }
+
+    /**
+     * @return the number of events in the game
+     */
+    public int eventCount() {
+        return game.eventsLength();
+    }
+
+    /**
+     * @param index the index of the event
+     * @param obj the accessor to fill in
+     * @return obj, pointing at the event
+     */
+    public EventWrapper event(int index, EventWrapper obj) {
+        if (index < 0 || index >= eventCount()) {
+            throw new IndexOutOfBoundsException("No event " + index + " of " + eventCount());
+        }
+        return game.events(obj, index);
+    }
+
+    /**
+     * @param obj the accessor to fill in
+     * @return obj, pointing at the game header
+     */
+    public GameHeader gameHeader(GameHeader obj) {
+        return (GameHeader) eventOfType(0, Event.GameHeader).e(obj);
+    }
+
+    /**
+     * @param obj the accessor to fill in
+     * @return obj, pointing at the game footer, or null if the game has none
+     */
+    public GameFooter gameFooter(GameFooter obj) {
+        int last = eventCount() - 1;
+        if (last < 0 || game.events(event, last).eType() != Event.GameFooter) {
+            return null;
+        }
+        return (GameFooter) event.e(obj);
+    }
+
+    /**
+     * @return the number of matches in the game
+     */
+    public int matchCount() {
+        return game.matchHeadersLength();
+    }
+
+    /**
+     * @param match the index of the match
+     * @param obj the accessor to fill in
+     * @return obj, pointing at the match's header
+     */
+    public MatchHeader matchHeader(int match, MatchHeader obj) {
+        return (MatchHeader) eventOfType(headerIndex(match), Event.MatchHeader).e(obj);
+    }
+
+    /**
+     * @param match the index of the match
+     * @param obj the accessor to fill in
+     * @return obj, pointing at the match's footer, or null if the match
+     *         didn't finish
+     */
+    public MatchFooter matchFooter(int match, MatchFooter obj) {
+        headerIndex(match);
+        if (match >= game.matchFootersLength()) {
+            return null;
+        }
+        return (MatchFooter) eventOfType(game.matchFooters(match), Event.MatchFooter).e(obj);
+    }
+
+    /**
+     * @param match the index of the match
+     * @return the number of rounds in the match
+     */
+    public int roundCount(int match) {
+        int end = match < game.matchFootersLength() ? game.matchFooters(match) : eventCount();
+        return end - headerIndex(match) - 1;
+    }
+
+    /**
+     * @param match the index of the match
+     * @param round the index of the round within the match
+     * @param obj the accessor to fill in
+     * @return obj, pointing at the round
+     */
+    public Round round(int match, int round, Round obj) {
+        if (round < 0 || round >= roundCount(match)) {
+            throw new IndexOutOfBoundsException("No round " + round + " of " + roundCount(match)
+                    + " in match " + match);
+        }
+        return (Round) eventOfType(headerIndex(match) + 1 + round, Event.Round).e(obj);
+    }
+
+    /**
+     * Find where to start from to get the state of a match at a round: the
+     * latest round at or before it that has a keyframe. With keyframes
+     * every K rounds, that's at most K rounds back.
+     *
+     * @param match the index of the match
+     * @param round the index of the round within the match
+     * @return the index of the round with the keyframe, or -1 if there is
+     *         none, in which case the match header is the place to start
+     */
+    public int latestKeyframe(int match, int round) {
+        for (int i = round; i >= 0; i--) {
+            if (round(match, i, scratchRound).keyframe(scratchKeyframe) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Iterate over the rounds of a match. Every iterator returns the same
+     * Round over and over, pointing at the next round each time, so keep
+     * what's needed from a round before moving on.
+     *
+     * @param match the index of the match
+     * @return the rounds of the match, in order
+     */
+    public Iterable<Round> rounds(int match) {
+        final int first = headerIndex(match) + 1;
+        final int count = roundCount(match);
+        return () -> new Iterator<Round>() {
+            private final EventWrapper current = new EventWrapper();
+            private final Round round = new Round();
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public Round next() {
+                if (next >= count) {
+                    throw new NoSuchElementException();
+                }
+                game.events(current, first + next++);
+                if (current.eType() != Event.Round) {
+                    throw new IllegalStateException("Expected a round at event " + (first + next - 1));
+                }
+                return (Round) current.e(round);
+            }
+        };
+    }
+
+    /**
+     * Let go of the replay. The mapping goes away once it's garbage
+     * collected; accessors handed out are unusable after this.
+     */
+    @Override
+    public void close() {
+        game.__init(0, null);
+    }
+
+    private int headerIndex(int match) {
+        if (match < 0 || match >= matchCount()) {
+            throw new IndexOutOfBoundsException("No match " + match + " of " + matchCount());
+        }
+        return game.matchHeaders(match);
+    }
+
+    private EventWrapper eventOfType(int index, byte type) {
+        event(index, event);
+        if (event.eType() != type) {
+            throw new IllegalStateException("Expected a " + Event.name(type) + " at event " + index
+                    + ", found a " + Event.name(event.eType()));
+        }
+        return event;
+    }
+
+    private static boolean isGzipped(Path replay) throws IOException {
+        try (InputStream in = Files.newInputStream(replay)) {
+            return in.read() == 0x1f && in.read() == 0x8b;
+        }
+    }
+
+    /**
+     * Inflate a replay into the cache, unless an earlier reader already did.
+     * The cached file is named after the replay's path, size and
+     * modification time, so a replay that changes is inflated again.
+     * It's written to a temporary file and moved into place, so concurrent
+     * readers never see half of it.
+     */
+    private static Path inflate(Path replay, Path cacheDirectory) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 isn't supported on this system??", e);
+        }
+        digest.update(replay.toRealPath().toString().getBytes(StandardCharsets.UTF_8));
+        digest.update((Files.size(replay) + "/" + Files.getLastModifiedTime(replay).toMillis())
+                .getBytes(StandardCharsets.UTF_8));
+        StringBuilder name = new StringBuilder();
+        for (byte b : digest.digest()) {
+            name.append(Character.forDigit((b >>> 4) & 0xF, 16));
+            name.append(Character.forDigit(b & 0xF, 16));
+        }
+        Path cached = cacheDirectory.resolve(name.append(".bc20raw").toString());
+        if (Files.exists(cached)) {
+            return cached;
+        }
+
+        Files.createDirectories(cacheDirectory);
+        Path temp = Files.createTempFile(cacheDirectory, "inflating-", ".tmp");
+        try {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(replay), 1 << 16);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                byte[] chunk = new byte[1 << 16];
+                int read;
+                while ((read = in.read(chunk)) != -1) {
+                    out.write(chunk, 0, read);
+                }
+            }
+            Files.move(temp, cached, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return cached;
+    }
+}
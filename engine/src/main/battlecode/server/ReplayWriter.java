@@ -0,0 +1,197 @@
+package battlecode.server;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Collects the events of a game and writes them out as a GameWrapper,
+ * without holding the game in memory.
+ *
+ * Each event is a finished flatbuffer of its own. As events arrive, their
+ * tables are appended to a spool file, and only their sizes are kept in
+ * memory. Writing the game streams a GameWrapper head, which indexes the
+ * events, followed by the spooled tables. Flatbuffers only refer forward,
+ * so the head has to come first, which is why the events are spooled
+ * rather than written straight to the output.
+ *
+ * A finished flatbuffer is an offset to its root followed by tables that
+ * only refer to each other by relative offsets, so the tables stay valid
+ * wherever they're copied to, as long as they stay 4-byte aligned. The
+ * schema has nothing wider than 4 bytes, so that's all they need.
+ */
+public class ReplayWriter implements Closeable {
+
+    /**
+     * The size of the GameWrapper's vtable, padded to 4 bytes.
+     */
+    private static final int VTABLE_SIZE = 12;
+
+    /**
+     * The size of the GameWrapper table: its vtable offset and 3 fields.
+     */
+    private static final int TABLE_SIZE = 16;
+
+    private final Path spool;
+    private final FileChannel channel;
+
+    /**
+     * For every event: where its root table is, relative to the start of
+     * its tables, and how long its tables are.
+     */
+    private final TIntArrayList roots;
+    private final TIntArrayList sizes;
+
+    /**
+     * Create a writer, spooling to a new temporary file.
+     */
+    public ReplayWriter() {
+        this.roots = new TIntArrayList();
+        this.sizes = new TIntArrayList();
+        try {
+            this.spool = Files.createTempFile("battlecode-", ".events");
+            this.spool.toFile().deleteOnExit();
+            this.channel = FileChannel.open(spool, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't create a file to spool events to", e);
+        }
+    }
+
+    /**
+     * @return the number of events added so far
+     */
+    public int size() {
+        return sizes.size();
+    }
+
+    /**
+     * Add an event to the end of the game.
+     *
+     * @param event a finished flatbuffer holding an EventWrapper, from its
+     *              position to its limit; left untouched
+     */
+    public void addEvent(ByteBuffer event) {
+        ByteBuffer tables = event.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int root = tables.getInt();
+        if (root < 4 || tables.remaining() % 4 != 0) {
+            throw new RuntimeException("Event isn't a finished, aligned flatbuffer");
+        }
+        roots.add(root - 4);
+        sizes.add(tables.remaining());
+        try {
+            while (tables.hasRemaining()) {
+                channel.write(tables);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Can't spool event", e);
+        }
+    }
+
+    /**
+     * Add an event to the end of the game.
+     *
+     * @param event a finished flatbuffer holding an EventWrapper
+     */
+    public void addEvent(byte[] event) {
+        addEvent(ByteBuffer.wrap(event));
+    }
+
+    /**
+     * Read back every event added so far, in order.
+     *
+     * @param action called with each event, as a finished flatbuffer
+     */
+    public void forEachEvent(Consumer<byte[]> action) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(spool)))) {
+            for (int i = 0; i < size(); i++) {
+                byte[] event = new byte[sizes.get(i) + 4];
+                ByteBuffer.wrap(event).order(ByteOrder.LITTLE_ENDIAN).putInt(roots.get(i) + 4);
+                in.readFully(event, 4, sizes.get(i));
+                action.accept(event);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read spooled events", e);
+        }
+    }
+
+    /**
+     * Write the game: a GameWrapper holding every event added so far.
+     *
+     * @param out the stream to write to; not closed
+     * @param matchHeaders the indices of the match headers among the events
+     * @param matchFooters the indices of the match footers among the events
+     * @throws IOException if writing fails
+     */
+    public void writeTo(OutputStream out, TIntList matchHeaders, TIntList matchFooters) throws IOException {
+        final int eventCount = size();
+        final int table = 4 + VTABLE_SIZE;
+        final int eventsVector = table + TABLE_SIZE;
+        final int headersVector = eventsVector + 4 + 4 * eventCount;
+        final int footersVector = headersVector + 4 + 4 * matchHeaders.size();
+        final int firstEvent = footersVector + 4 + 4 * matchFooters.size();
+
+        ByteBuffer head = ByteBuffer.allocate(firstEvent).order(ByteOrder.LITTLE_ENDIAN);
+
+        // offset to the root table
+        head.putInt(table);
+
+        // vtable: its size, the table's size, and where the fields are
+        head.putShort((short) (4 + 2 * 3));
+        head.putShort((short) TABLE_SIZE);
+        head.putShort((short) 4);
+        head.putShort((short) 8);
+        head.putShort((short) 12);
+        head.putShort((short) 0);
+
+        // GameWrapper: offset back to the vtable, then offsets to the vectors
+        head.putInt(table - 4);
+        head.putInt(eventsVector - head.position());
+        head.putInt(headersVector - head.position());
+        head.putInt(footersVector - head.position());
+
+        // events: offsets to the root table of every event
+        head.putInt(eventCount);
+        int eventStart = firstEvent;
+        for (int i = 0; i < eventCount; i++) {
+            head.putInt(eventStart + roots.get(i) - head.position());
+            eventStart += sizes.get(i);
+        }
+
+        head.putInt(matchHeaders.size());
+        for (int i = 0; i < matchHeaders.size(); i++) {
+            head.putInt(matchHeaders.get(i));
+        }
+        head.putInt(matchFooters.size());
+        for (int i = 0; i < matchFooters.size(); i++) {
+            head.putInt(matchFooters.get(i));
+        }
+
+        out.write(head.array());
+        Files.copy(spool, out);
+    }
+
+    /**
+     * Delete the spooled events.
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            // it's a temporary file; it goes away on exit anyway
+        }
+    }
+}
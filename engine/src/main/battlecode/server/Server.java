@@ -7,8 +7,15 @@ import battlecode.world.control.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Runs matches. Specifically, this class forms a pipeline connecting match and
@@ -58,6 +65,26 @@ public strictfp class Server implements Runnable {
         HEADLESS,
     }
 
+    /**
+     * The outcome of some matches of a game, run on a worker.
+     */
+    private static class MatchResults {
+        /**
+         * The events of the matches.
+         */
+        final GameMaker recording;
+
+        /**
+         * The winner of each match.
+         */
+        final List<Team> winners;
+
+        MatchResults(GameMaker recording) {
+            this.recording = recording;
+            this.winners = new ArrayList<>();
+        }
+    }
+
     /**
      * Initializes a new server.
      *
@@ -125,6 +152,18 @@ public strictfp class Server implements Runnable {
             netServer = null;
         }
 
+        final int matchWorkers = options.getInt("bc.server.match-workers");
+        if (matchWorkers > 1 && !interactive) {
+            if (options.getInt("bc.server.robot-player-replay-file-per-team-limit-bytes") != -1) {
+                // the output limit is shared by every match in the JVM, so
+                // concurrent matches would race for it
+                warn("Running matches one at a time, since robot output is limited");
+            } else {
+                runScheduled(netServer, matchWorkers);
+                return;
+            }
+        }
+
         while (true) {
             final GameInfo currentGame;
             debug("Awaiting match");
@@ -190,20 +229,202 @@ public strictfp class Server implements Runnable {
             }
             Team winner = aWins >= bWins ? Team.A : Team.B;
             gameMaker.makeGameFooter(winner);
-            gameMaker.writeGame(currentGame.getSaveFile());
+            try {
+                gameMaker.writeGame(currentGame.getSaveFile());
+            } finally {
+                gameMaker.dispose();
+            }
         }
     }
 
 
     /**
-     * @return the winner of the match
-     * @throws Exception if the match fails to run for some reason
+     * Runs games on a pool of worker threads. Every match is recorded on its
+     * own, and a single writer thread puts each game together once its
+     * matches are done, in the order the games arrived in. The replays and
+     * the packets sent to the client are the same as when the matches run
+     * one at a time.
+     *
+     * @param netServer the server to send packets to, or null
+     * @param numWorkers the number of matches to run at once
      */
-    private Team runMatch(GameInfo currentGame,
-                          int matchIndex,
-                          RobotControlProvider prov,
-                          GameMaker gameMaker) throws Exception {
+    private void runScheduled(NetServer netServer, int numWorkers) {
+        final AtomicInteger workerCount = new AtomicInteger();
+        final ExecutorService workers = Executors.newFixedThreadPool(numWorkers, (r) -> {
+            Thread worker = new Thread(r, "match-worker-" + workerCount.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+        final ExecutorService writer = Executors.newSingleThreadExecutor((r) -> {
+            Thread gameWriter = new Thread(r, "game-writer");
+            gameWriter.setDaemon(true);
+            return gameWriter;
+        });
+        final List<Future<?>> writtenGames = new ArrayList<>();
+
+        this.state = ServerState.RUNNING;
+        try {
+            while (true) {
+                final GameInfo currentGame;
+                debug("Awaiting match");
+                try {
+                    currentGame = gameQueue.take();
+                } catch (InterruptedException e) {
+                    warn("Interrupted while waiting for next game!");
+                    e.printStackTrace();
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                // Note: ==, not .equals()
+                if (currentGame == POISON) {
+                    break;
+                }
+
+                debug("Scheduling: "+currentGame);
+
+                // Best of three games stop early, so their maps run in order
+                final List<Future<MatchResults>> matches = new ArrayList<>();
+                if (currentGame.isBestOfThree()) {
+                    matches.add(workers.submit(() ->
+                            runMatches(currentGame, 0, currentGame.getMaps().length)));
+                } else {
+                    for (int matchIndex = 0; matchIndex < currentGame.getMaps().length; matchIndex++) {
+                        final int index = matchIndex;
+                        matches.add(workers.submit(() -> runMatches(currentGame, index, index + 1)));
+                    }
+                }
+                writtenGames.add(writer.submit(() -> {
+                    writeGame(currentGame, matches, netServer);
+                    return null;
+                }));
+            }
+
+            for (Future<?> writtenGame : writtenGames) {
+                try {
+                    writtenGame.get();
+                } catch (InterruptedException e) {
+                    warn("Interrupted while waiting for games to finish!");
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    ErrorReporter.report(e.getCause());
+                    this.state = ServerState.ERROR;
+                    return;
+                }
+            }
+            this.state = ServerState.FINISHED;
+        } finally {
+            workers.shutdownNow();
+            writer.shutdownNow();
+            debug("Shutting down server");
+            if (netServer != null) {
+                netServer.finish();
+            }
+        }
+    }
+
+    /**
+     * Runs some maps of a game on the current thread, recording them to a
+     * GameMaker of their own. Each match gets its own control providers.
+     *
+     * @param game the game
+     * @param firstMap the index of the first map to run
+     * @param endMap the index after the last map to run
+     * @return the recorded matches and their winners
+     * @throws Exception if a match fails to run for some reason
+     */
+    private MatchResults runMatches(GameInfo game, int firstMap, int endMap) throws Exception {
+        final MatchResults results = new MatchResults(GameMaker.recordMatches(game));
+        int aWins = 0, bWins = 0;
+        for (int matchIndex = firstMap; matchIndex < endMap; matchIndex++) {
+            final RobotControlProvider prov = createControlProvider(game, results.recording);
+            final GameWorld world = createWorld(game, matchIndex, prov, results.recording);
+
+            long startTime = System.currentTimeMillis();
+            GameState gameState = GameState.RUNNING;
+            while (gameState != GameState.DONE) {
+                gameState = world.runRound();
+            }
+
+            final String mapName = game.getMaps()[matchIndex];
+            say("-------------------- Match Finished --------------------\n"
+                    + String.format("%s vs. %s on %s", game.getTeamAPackage(), game.getTeamBPackage(), mapName) + "\n"
+                    + getWinnerString(game, world, world.getWinner(), world.getCurrentRound()));
+
+            double timeDiff = (System.currentTimeMillis() - startTime) / 1000.0;
+            debug(String.format("match on %s completed in %.4g seconds", mapName, timeDiff));
 
+            final Team winner = world.getWinner();
+            results.winners.add(winner);
+            if (winner == Team.A) {
+                aWins++;
+            } else if (winner == Team.B) {
+                bWins++;
+            }
+            if (game.isBestOfThree() && (aWins == 2 || bWins == 2)) {
+                break;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Puts a game together from its recorded matches, in order, and saves it.
+     *
+     * @param game the game
+     * @param matches the recorded matches, in map order
+     * @param netServer the server to send packets to, or null
+     * @throws Exception if a match failed to run
+     */
+    private void writeGame(GameInfo game, List<Future<MatchResults>> matches, NetServer netServer) throws Exception {
+        GameMaker gameMaker = new GameMaker(game, netServer);
+        gameMaker.makeGameHeader();
+
+        int aWins = 0, bWins = 0;
+        for (Future<MatchResults> match : matches) {
+            final MatchResults results;
+            try {
+                results = match.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+            gameMaker.appendMatches(results.recording);
+            for (Team winner : results.winners) {
+                switch (winner) {
+                    case A:
+                        aWins++;
+                        break;
+                    case B:
+                        bWins++;
+                        break;
+                    default:
+                        warn("Team "+winner+" won???");
+                }
+            }
+        }
+
+        Team winner = aWins >= bWins ? Team.A : Team.B;
+        gameMaker.makeGameFooter(winner);
+        try {
+            gameMaker.writeGame(game.getSaveFile());
+        } finally {
+            gameMaker.dispose();
+        }
+    }
+
+    /**
+     * Loads a map and creates a world for it.
+     *
+     * @throws IOException if the map can't be loaded
+     */
+    private GameWorld createWorld(GameInfo currentGame,
+                                  int matchIndex,
+                                  RobotControlProvider prov,
+                                  GameMaker gameMaker) throws IOException {
         final String mapName = currentGame.getMaps()[matchIndex];
         final LiveMap loadedMap;
 
@@ -215,8 +436,22 @@ public strictfp class Server implements Runnable {
             throw e;
         }
 
+        return new GameWorld(loadedMap, prov, gameMaker.getMatchMaker());
+    }
+
+    /**
+     * @return the winner of the match
+     * @throws Exception if the match fails to run for some reason
+     */
+    private Team runMatch(GameInfo currentGame,
+                          int matchIndex,
+                          RobotControlProvider prov,
+                          GameMaker gameMaker) throws Exception {
+
+        final String mapName = currentGame.getMaps()[matchIndex];
+
         // Create the game world!
-        currentWorld = new GameWorld(loadedMap, prov, gameMaker.getMatchMaker());
+        currentWorld = createWorld(currentGame, matchIndex, prov, gameMaker);
 
         // Get started
         if (interactive) {
@@ -316,6 +551,10 @@ public strictfp class Server implements Runnable {
      * @return A string representing the match's winner.
      */
     public String getWinnerString(GameInfo game, Team winner, int roundNumber) {
+        return getWinnerString(game, currentWorld, winner, roundNumber);
+    }
+
+    private String getWinnerString(GameInfo game, GameWorld world, Team winner, int roundNumber) {
 
         String teamName;
 
@@ -339,7 +578,7 @@ public strictfp class Server implements Runnable {
         sb.append(" wins (round ").append(roundNumber).append(")");
 
         sb.append("\nReason: ");
-        GameStats stats = currentWorld.getGameStats();
+        GameStats stats = world.getGameStats();
         DominationFactor dom = stats.getDominationFactor();
 
         switch (dom) {
@@ -0,0 +1,171 @@
+package battlecode.util;
+
+import com.google.flatbuffers.FlatBufferBuilder;
+import com.google.flatbuffers.FlatBufferVectors;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A growable column of values, for the vectors of a round, stored the way
+ * a flatbuffer vector of them is: little-endian, back to back, in a direct
+ * buffer. So it goes into a FlatBufferBuilder with one copy, instead of a
+ * call per element, and nothing else needs to be done to it.
+ *
+ * Clearing a column keeps its buffer, so after a few rounds every column
+ * is about as big as a round needs and stops growing.
+ *
+ * Subclasses are for each type of value, like SquareArray's.
+ */
+public abstract class FlatColumn {
+
+    /**
+     * How many bytes a column starts with.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * The size of a value, in bytes.
+     */
+    private final int elementSize;
+
+    /**
+     * The values, from 0 to size * elementSize.
+     */
+    protected ByteBuffer data;
+
+    /**
+     * Another view of data, to hand to the builder without allocating.
+     */
+    private ByteBuffer view;
+
+    /**
+     * The number of values.
+     */
+    protected int size;
+
+    private FlatColumn(int elementSize) {
+        this.elementSize = elementSize;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return the number of values in the column
+     */
+    public final int size() {
+        return size;
+    }
+
+    /**
+     * Empty the column, keeping its buffer.
+     */
+    public final void clear() {
+        size = 0;
+    }
+
+    /**
+     * Add the column to a builder as a vector.
+     *
+     * Call like so:
+     * int xyzP = xyz.createVector(builder, BufferType::startXyzVector);
+     *
+     * @param builder the builder to add to
+     * @param start the generated startXyzVector method of the vector
+     * @return the offset of the vector
+     */
+    public final int createVector(FlatBufferBuilder builder, ObjIntConsumer<FlatBufferBuilder> start) {
+        start.accept(builder, size);
+        view.limit(size * elementSize).position(0);
+        FlatBufferVectors.putElements(builder, view);
+        return builder.endVector();
+    }
+
+    /**
+     * @return the index in data of a new value at the end of the column
+     */
+    protected final int append() {
+        int index = size * elementSize;
+        if (index + elementSize > data.capacity()) {
+            ByteBuffer old = view;
+            old.limit(index).position(0);
+            allocate(data.capacity() * 2);
+            data.put(old);
+        }
+        size++;
+        return index;
+    }
+
+    /**
+     * @param i the index of a value
+     * @return the index in data of the value
+     */
+    protected final int indexOf(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("No value " + i + " of " + size);
+        }
+        return i * elementSize;
+    }
+
+    private void allocate(int capacity) {
+        data = ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        view = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * A column of ints.
+     */
+    public static final class Int extends FlatColumn {
+        public Int() {
+            super(4);
+        }
+
+        public void add(int value) {
+            // append first: it may replace data
+            int index = append();
+            data.putInt(index, value);
+        }
+
+        public int get(int i) {
+            return data.getInt(indexOf(i));
+        }
+    }
+
+    /**
+     * A column of floats.
+     */
+    public static final class Float extends FlatColumn {
+        public Float() {
+            super(4);
+        }
+
+        public void add(float value) {
+            // append first: it may replace data
+            int index = append();
+            data.putFloat(index, value);
+        }
+
+        public float get(int i) {
+            return data.getFloat(indexOf(i));
+        }
+    }
+
+    /**
+     * A column of bytes.
+     */
+    public static final class Byte extends FlatColumn {
+        public Byte() {
+            super(1);
+        }
+
+        public void add(byte value) {
+            // append first: it may replace data
+            int index = append();
+            data.put(index, value);
+        }
+
+        public byte get(int i) {
+            return data.get(indexOf(i));
+        }
+    }
+}
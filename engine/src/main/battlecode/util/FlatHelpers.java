@@ -164,6 +164,15 @@ public class FlatHelpers {
         return VecTable.createVecTable(builder, xsP, ysP);
     }
 
+    public static int createVecTable(FlatBufferBuilder builder, FlatColumn.Int xs, FlatColumn.Int ys) {
+        if (xs.size() != ys.size()) {
+            throw new RuntimeException("Mismatched x/y length: "+xs.size()+" != "+ys.size());
+        }
+        int xsP = xs.createVector(builder, VecTable::startXsVector);
+        int ysP = ys.createVector(builder, VecTable::startYsVector);
+        return VecTable.createVecTable(builder, xsP, ysP);
+    }
+
     public static int createPollutionEffect(FlatBufferBuilder builder, TIntList xs, TIntList ys) {
         if (xs.size() != ys.size()) {
             throw new RuntimeException("Mismatched x/y length: "+xs.size()+" != "+ys.size());
@@ -182,4 +191,14 @@ public class FlatHelpers {
         int blueP = intVector(builder, blue, RGBTable::startBlueVector);
         return RGBTable.createRGBTable(builder, redP, greenP, blueP);
     }
+
+    public static int createRGBTable(FlatBufferBuilder builder, FlatColumn.Int red, FlatColumn.Int green, FlatColumn.Int blue) {
+        if (red.size() != green.size() || green.size() != blue.size()) {
+            throw new RuntimeException("Mismatched lengths: "+red.size()+", "+green.size()+", "+blue.size());
+        }
+        int redP = red.createVector(builder, RGBTable::startRedVector);
+        int greenP = green.createVector(builder, RGBTable::startGreenVector);
+        int blueP = blue.createVector(builder, RGBTable::startBlueVector);
+        return RGBTable.createRGBTable(builder, redP, greenP, blueP);
+    }
 }
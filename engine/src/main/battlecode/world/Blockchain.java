@@ -0,0 +1,79 @@
+package battlecode.world;
+
+import battlecode.common.Transaction;
+
+import java.util.Arrays;
+
+/**
+ * The blocks of transactions broadcast so far, one for every round that
+ * has ended, starting from round 1.
+ *
+ * Each block is an array exactly as long as the block, built once when
+ * its round ends, and every round without any transactions shares one
+ * empty array, so a long match keeps little more than the transactions
+ * themselves. Transactions can't be changed, but the arrays can, so they
+ * must be copied before they're handed to players.
+ */
+public class Blockchain {
+
+    private static final Transaction[] EMPTY_BLOCK = new Transaction[0];
+
+    /**
+     * The blocks, in round order; only the first size are used.
+     */
+    private Transaction[][] blocks;
+    private int size;
+
+    public Blockchain() {
+        this.blocks = new Transaction[64][];
+        this.size = 0;
+    }
+
+    /**
+     * @return the number of blocks, which is the last round with one
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add the block for the round after the last one.
+     *
+     * @param block the transactions broadcast in the round; kept, not copied
+     */
+    public void addBlock(Transaction[] block) {
+        if (size == blocks.length)
+            blocks = Arrays.copyOf(blocks, 2 * size);
+        blocks[size++] = block.length == 0 ? EMPTY_BLOCK : block;
+    }
+
+    /**
+     * @param round the round, from 1
+     * @return the transactions broadcast in it, which MUST NOT BE MODIFIED
+     */
+    public Transaction[] getBlock(int round) {
+        checkRound(round);
+        return blocks[round - 1];
+    }
+
+    /**
+     * @param fromRound the first round, from 1
+     * @param toRound the round after the last
+     * @return the transactions broadcast in each round, in order; the
+     *         blocks MUST NOT BE MODIFIED
+     */
+    public Transaction[][] getBlocks(int fromRound, int toRound) {
+        if (fromRound > toRound)
+            throw new IllegalArgumentException("Rounds " + fromRound + " to " + toRound + " go backwards");
+        if (fromRound == toRound)
+            return new Transaction[0][];
+        checkRound(fromRound);
+        checkRound(toRound - 1);
+        return Arrays.copyOfRange(blocks, fromRound - 1, toRound - 1);
+    }
+
+    private void checkRound(int round) {
+        if (round < 1 || round > size)
+            throw new IndexOutOfBoundsException("No block for round " + round + " of " + size);
+    }
+}
@@ -0,0 +1,112 @@
+package battlecode.world;
+
+import gnu.trove.procedure.TObjectProcedure;
+
+import java.util.Arrays;
+
+/**
+ * The order robots take their turns in: spawn order.
+ *
+ * Robots are appended to an array and removed by leaving a tombstone in
+ * their place, using the position each robot remembers, so both are O(1).
+ * The tombstones are squeezed out once they make up more than half of the
+ * array, but never while the order is being iterated over.
+ */
+public strictfp class ExecutionOrder {
+
+    private InternalRobot[] bodies;
+
+    // number of used entries in bodies, including tombstones
+    private int length;
+
+    // number of robots in the order
+    private int size;
+
+    // number of iterations in progress
+    private int iterating;
+
+    public ExecutionOrder() {
+        this.bodies = new InternalRobot[64];
+        this.length = 0;
+        this.size = 0;
+        this.iterating = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a robot at the end of the order. Robots added while iterating
+     * are not visited by that iteration.
+     *
+     * @param robot the robot
+     */
+    public void add(InternalRobot robot) {
+        if (length == bodies.length) {
+            if (iterating == 0)
+                compactIfSparse();
+            if (length == bodies.length)
+                bodies = Arrays.copyOf(bodies, bodies.length * 2);
+        }
+        robot.setExecutionIndex(length);
+        bodies[length++] = robot;
+        size++;
+    }
+
+    /**
+     * Removes a robot from the order. Robots removed while iterating are
+     * not visited afterwards.
+     *
+     * @param robot the robot
+     */
+    public void remove(InternalRobot robot) {
+        int index = robot.getExecutionIndex();
+        if (index == -1)
+            return;
+        bodies[index] = null;
+        robot.setExecutionIndex(-1);
+        size--;
+    }
+
+    /**
+     * Apply an operation for every robot, in order. Return false to stop
+     * iterating.
+     *
+     * @param op a lambda (robot) -> boolean
+     */
+    public void forEach(TObjectProcedure<InternalRobot> op) {
+        int end = length;
+        iterating++;
+        try {
+            for (int i = 0; i < end; i++) {
+                InternalRobot robot = bodies[i];
+                if (robot != null && !op.execute(robot))
+                    break;
+            }
+        } finally {
+            iterating--;
+        }
+        if (iterating == 0)
+            compactIfSparse();
+    }
+
+    // *********************************
+    // ****** PRIVATE METHODS **********
+    // *********************************
+
+    private void compactIfSparse() {
+        if (length - size <= size)
+            return;
+        int newLength = 0;
+        for (int i = 0; i < length; i++) {
+            InternalRobot robot = bodies[i];
+            if (robot == null)
+                continue;
+            robot.setExecutionIndex(newLength);
+            bodies[newLength++] = robot;
+        }
+        Arrays.fill(bodies, newLength, length, null);
+        length = newLength;
+    }
+}
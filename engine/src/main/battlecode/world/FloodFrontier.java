@@ -0,0 +1,242 @@
+package battlecode.world;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.Arrays;
+
+/**
+ * Tracks the flooded tiles that border dry land, so that flooding only
+ * visits tiles that can actually spread this round.
+ *
+ * A flooded tile with a dry neighbor is pending, keyed by the lowest
+ * elevation among its dry neighbors: it can't spread until the water level
+ * rises above that elevation. Since the water level never goes down, pending
+ * tiles are kept in a min-heap by elevation and only the ones below the
+ * current water level are ever looked at. Keys may be too low (they are
+ * rechecked when popped), so the only changes that must be reported are
+ * flood status changes and changes to the elevation of dry tiles.
+ */
+public strictfp class FloodFrontier {
+
+    /**
+     * Neighbor offsets, in the same order as Direction.allDirections().
+     */
+    private static final int[] NEIGHBOR_DX = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] NEIGHBOR_DY = {1, 1, 0, -1, -1, -1, 0, 1};
+
+    /**
+     * The number of neighbors of a tile.
+     */
+    public static final int NUM_NEIGHBORS = NEIGHBOR_DX.length;
+
+    private final int width;
+    private final int height;
+    private final boolean[] flooded;
+    private final int[] dirt;
+
+    // whether each tile has a live entry in the heap, and its key
+    private final boolean[] pending;
+    private final int[] pendingKey;
+
+    // min-heap of (key << 32 | index); entries that don't match
+    // pendingKey are stale and skipped
+    private long[] heap;
+    private int heapSize;
+
+    private final TIntArrayList spreading;
+
+    /**
+     * Creates a frontier over the given flood and elevation arrays. The
+     * arrays are shared with the caller, who must report every change
+     * through {@link #floodStatusChanged} and {@link #dirtChanged}.
+     *
+     * @param width the width of the map
+     * @param height the height of the map
+     * @param flooded the flood status of every tile
+     * @param dirt the elevation of every tile
+     */
+    public FloodFrontier(int width, int height, boolean[] flooded, int[] dirt) {
+        this.width = width;
+        this.height = height;
+        this.flooded = flooded;
+        this.dirt = dirt;
+        this.pending = new boolean[width * height];
+        this.pendingKey = new int[width * height];
+        this.heap = new long[Math.max(16, 2 * (width + height))];
+        this.heapSize = 0;
+        this.spreading = new TIntArrayList();
+
+        for (int idx = 0; idx < flooded.length; idx++)
+            schedule(idx);
+    }
+
+    /**
+     * Returns the index of a neighbor of a tile, or -1 if it is off the map.
+     *
+     * @param idx the index of the tile
+     * @param neighbor the neighbor, in Direction.allDirections() order
+     * @return the index of the neighbor, or -1 if it is off the map
+     */
+    public int neighborIndex(int idx, int neighbor) {
+        int x = idx % width + NEIGHBOR_DX[neighbor];
+        int y = idx / width + NEIGHBOR_DY[neighbor];
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return -1;
+        return x + y * width;
+    }
+
+    /**
+     * Removes and returns the flooded tiles that have a dry neighbor below
+     * the given water level, in increasing index order. The list is reused
+     * between calls; pass it back to {@link #reschedule} once done.
+     *
+     * @param waterLevel the current water level
+     * @return the tiles that can spread
+     */
+    public TIntArrayList popSpreading(float waterLevel) {
+        spreading.resetQuick();
+        while (heapSize > 0 && (int) (heap[0] >> 32) < waterLevel) {
+            long entry = pop();
+            int idx = (int) entry;
+            if (!pending[idx] || pendingKey[idx] != (int) (entry >> 32))
+                continue;
+            pending[idx] = false;
+            int key = flooded[idx] ? lowestDryNeighbor(idx) : Integer.MAX_VALUE;
+            if (key == Integer.MAX_VALUE)
+                continue;
+            if (key < waterLevel)
+                spreading.add(idx);
+            else
+                push(idx, key);
+        }
+        spreading.sort();
+        return spreading;
+    }
+
+    /**
+     * Puts tiles returned by {@link #popSpreading} back in the frontier
+     * if they still border dry land.
+     *
+     * @param tiles the tiles
+     */
+    public void reschedule(TIntArrayList tiles) {
+        for (int i = 0; i < tiles.size(); i++)
+            schedule(tiles.getQuick(i));
+    }
+
+    /**
+     * Must be called whenever the flood status of a tile changes.
+     *
+     * @param idx the index of the tile
+     */
+    public void floodStatusChanged(int idx) {
+        if (flooded[idx]) {
+            schedule(idx);
+        } else {
+            // the neighbors now border a new dry tile
+            pending[idx] = false;
+            scheduleFloodedNeighbors(idx);
+        }
+    }
+
+    /**
+     * Must be called whenever the elevation of a tile changes.
+     *
+     * @param idx the index of the tile
+     */
+    public void dirtChanged(int idx) {
+        if (!flooded[idx])
+            scheduleFloodedNeighbors(idx);
+    }
+
+    // *********************************
+    // ****** PRIVATE METHODS **********
+    // *********************************
+
+    private void scheduleFloodedNeighbors(int idx) {
+        for (int i = 0; i < NUM_NEIGHBORS; i++) {
+            int neighbor = neighborIndex(idx, i);
+            if (neighbor != -1 && flooded[neighbor])
+                schedule(neighbor);
+        }
+    }
+
+    private void schedule(int idx) {
+        int key = flooded[idx] ? lowestDryNeighbor(idx) : Integer.MAX_VALUE;
+        if (key == Integer.MAX_VALUE) {
+            pending[idx] = false;
+            return;
+        }
+        if (pending[idx] && pendingKey[idx] == key)
+            return;
+        pending[idx] = true;
+        pendingKey[idx] = key;
+        push(idx, key);
+    }
+
+    /**
+     * Returns the lowest elevation among the dry neighbors of a tile, or
+     * Integer.MAX_VALUE if it has none.
+     */
+    private int lowestDryNeighbor(int idx) {
+        int lowest = Integer.MAX_VALUE;
+        for (int i = 0; i < NUM_NEIGHBORS; i++) {
+            int neighbor = neighborIndex(idx, i);
+            if (neighbor != -1 && !flooded[neighbor] && dirt[neighbor] < lowest)
+                lowest = dirt[neighbor];
+        }
+        return lowest;
+    }
+
+    private void push(int idx, int key) {
+        if (heapSize == heap.length) {
+            if (heapSize > 4 * pending.length) {
+                compact();
+            }
+            if (heapSize == heap.length)
+                heap = Arrays.copyOf(heap, heap.length * 2);
+        }
+        long entry = ((long) key << 32) | idx;
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry)
+                break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize)
+                break;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child])
+                child++;
+            if (heap[child] >= last)
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+
+    /**
+     * Drops stale entries from the heap.
+     */
+    private void compact() {
+        heapSize = 0;
+        for (int idx = 0; idx < pending.length; idx++) {
+            if (pending[idx]) {
+                pending[idx] = false;
+                schedule(idx);
+            }
+        }
+    }
+}
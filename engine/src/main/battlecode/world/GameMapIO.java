@@ -14,7 +14,9 @@ import java.net.URL;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -38,10 +40,58 @@ public final strictfp class GameMapIO {
      */
     public static final String DEFAULT_MAP_PACKAGE = "battlecode/world/resources/";
 
+    /**
+     * How many maps loadMap keeps, so that matches played one after another
+     * on the same map don't read and parse it again.
+     */
+    private static final int MAP_CACHE_SIZE = 16;
+
+    /**
+     * The maps loadMap has loaded, by where they were loaded from, least
+     * recently used first. A LiveMap isn't changed once it's loaded, so one
+     * can be shared by every match on it.
+     */
+    private static final Map<String, CachedMap> mapCache = new MapCache();
+
+    /**
+     * A map in access order that drops the least recently used entry once
+     * it holds more than MAP_CACHE_SIZE.
+     */
+    private static final class MapCache extends LinkedHashMap<String, CachedMap> {
+        private static final long serialVersionUID = -3528113592841658275L;
+
+        MapCache() {
+            super(MAP_CACHE_SIZE, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedMap> eldest) {
+            return size() > MAP_CACHE_SIZE;
+        }
+    }
+
+    /**
+     * A loaded map, and the modification time and size of its file, to
+     * notice when the file changes. Both are 0 for maps in the package.
+     */
+    private static final class CachedMap {
+        final LiveMap map;
+        final long lastModified;
+        final long length;
+
+        CachedMap(LiveMap map, long lastModified, long length) {
+            this.map = map;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+
     /**
      * Returns a LiveMap for a specific map.
      * If the map can't be found in the given directory, the package
      * "battlecode.world.resources" is checked as a backup.
+     * Recently loaded maps are kept, and returned again until their file
+     * changes; the same LiveMap may be returned to several callers.
      *
      * @param mapName name of map.
      * @param mapDir directory to load the extra map from; may be null.
@@ -54,7 +104,19 @@ public final strictfp class GameMapIO {
         final LiveMap result;
 
         final File mapFile = new File(mapDir, mapName + MAP_EXTENSION);
-        if (mapFile.exists()) {
+        final boolean inDir = mapFile.exists();
+        final String key = inDir ? mapFile.getAbsolutePath() : DEFAULT_MAP_PACKAGE + mapName;
+        final long lastModified = inDir ? mapFile.lastModified() : 0;
+        final long length = inDir ? mapFile.length() : 0;
+
+        synchronized (mapCache) {
+            CachedMap cached = mapCache.get(key);
+            if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+                return cached.map;
+            }
+        }
+
+        if (inDir) {
             result = loadMap(new FileInputStream(mapFile));
         } else {
             final InputStream backupStream = BACKUP_LOADER.getResourceAsStream(DEFAULT_MAP_PACKAGE + mapName + MAP_EXTENSION);
@@ -70,6 +132,10 @@ public final strictfp class GameMapIO {
             );
         }
 
+        synchronized (mapCache) {
+            mapCache.put(key, new CachedMap(result, lastModified, length));
+        }
+
         return result;
     }
 
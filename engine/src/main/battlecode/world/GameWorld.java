@@ -6,6 +6,9 @@ import battlecode.server.ErrorReporter;
 import battlecode.server.GameMaker;
 import battlecode.server.GameState;
 import battlecode.world.control.RobotControlProvider;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.procedure.TIntProcedure;
+import gnu.trove.procedure.TObjectProcedure;
 
 import java.util.*;
 
@@ -28,29 +31,16 @@ public strictfp class GameWorld {
     protected final GameStats gameStats;
     private final int[] initialSoup;
     private int[] soup;
-    private int globalPollution;
-    private int[] pollution;
-    private boolean pollutionNeedsUpdate;
-    // the local pollution effects that are currently active, mapped from
-    // robot ID to pollution effect
-    private class LocalPollutionEffect {
-        MapLocation loc;
-        int radiusSquared;
-        int additiveEffect;
-        float multiplicativeEffect;
-        public LocalPollutionEffect(MapLocation l, int r, int a, float m) {
-            loc = l;
-            radiusSquared = r;
-            additiveEffect = a;
-            multiplicativeEffect = m;
-        }
-    }
-    HashMap<Integer, LocalPollutionEffect> localPollutions;
+    private final PollutionField pollution;
     private int[] dirt;
     private int initialWaterLevel;
     private float waterLevel;
     private boolean[] flooded;
-    private InternalRobot[][] robots;
+    private final FloodFrontier floodFrontier;
+    private final SpatialIndex robotIndex;
+    // the robots found by getSensedRobots, before they're copied out;
+    // robots are run one at a time, so one buffer does for all of them
+    private final RobotInfo[] sensedRobots;
     private final LiveMap gameMap;
     private final TeamInfo teamInfo;
     private final ObjectInfo objectInfo;
@@ -58,32 +48,36 @@ public strictfp class GameWorld {
     private final RobotControlProvider controlProvider;
     private Random rand;
 
+    // the rng robot controllers use; reset whenever a controller is created
+    private Random controllerRandom;
+
     // the pool of messages not yet sent
     private PriorityQueue<Transaction> blockchainQueue;
     // the messages that have been broadcasted already
-    public ArrayList<ArrayList<Transaction>> blockchain;
+    private final Blockchain blockchain;
 
     private final GameMaker.MatchMaker matchMaker;
 
     @SuppressWarnings("unchecked")
     public GameWorld(LiveMap gm, RobotControlProvider cp, GameMaker.MatchMaker matchMaker) {
+        // the map's arrays are shared with other matches on it, so the
+        // world changes copies of them
         this.initialSoup = gm.getSoupArray();
-        this.soup = gm.getSoupArray();
-        this.globalPollution = 0;
-        this.pollution = gm.getPollutionArray();
-        this.pollutionNeedsUpdate = false;
-        this.localPollutions = new HashMap<>();
-        this.dirt = gm.getDirtArray();
+        this.soup = gm.getSoupArray().clone();
+        this.pollution = new PollutionField(gm, gm.getPollutionArray().clone());
+        this.dirt = gm.getDirtArray().clone();
         this.initialWaterLevel = gm.getWaterLevel();
         this.waterLevel = this.initialWaterLevel;
-        this.flooded = gm.getWaterArray();
-        this.robots = new InternalRobot[gm.getWidth()][gm.getHeight()]; // if represented in cartesian, should be height-width, but this should allow us to index x-y
+        this.flooded = gm.getWaterArray().clone();
+        this.floodFrontier = new FloodFrontier(gm.getWidth(), gm.getHeight(), this.flooded, this.dirt);
         this.currentRound = 0;
         this.idGenerator = new IDGenerator(gm.getSeed());
         this.gameStats = new GameStats();
 
         this.gameMap = gm;
         this.objectInfo = new ObjectInfo(gm);
+        this.robotIndex = this.objectInfo.getRobotIndex();
+        this.sensedRobots = new RobotInfo[gm.getWidth() * gm.getHeight()];
         this.teamInfo = new TeamInfo(this);
 
         this.controlProvider = cp;
@@ -91,7 +85,7 @@ public strictfp class GameWorld {
         this.rand = new Random(this.gameMap.getSeed());
 
         this.blockchainQueue = new PriorityQueue<Transaction>();
-        this.blockchain = new ArrayList<ArrayList<Transaction>>();
+        this.blockchain = new Blockchain();
 
         this.matchMaker = matchMaker;
 
@@ -137,13 +131,29 @@ public strictfp class GameWorld {
             return GameState.DONE;
         }
         // Write out round data
+        if (matchMaker.isKeyframe(currentRound))
+            addKeyframe();
         matchMaker.makeRound(currentRound);
         return GameState.RUNNING;
     }
 
+    /**
+     * Give the match maker the complete state of the match, for this
+     * round's keyframe.
+     */
+    private void addKeyframe() {
+        int[] pollutionLevels = new int[this.soup.length];
+        for (int idx = 0; idx < pollutionLevels.length; idx++)
+            pollutionLevels[idx] = getPollution(indexToLocation(idx));
+        matchMaker.addKeyframe(this.dirt, this.flooded, pollutionLevels, this.soup, this.waterLevel);
+        objectInfo.eachRobot((robot) -> {
+            matchMaker.addKeyframeBody(robot);
+            return true;
+        });
+    }
+
     private void updateDynamicBodies(){
         objectInfo.eachDynamicBodyByExecOrder((body) -> {
-            // System.out.println(Arrays.deepToString(this.robots));
             // System.out.println("iuqhwefiuwfiohqweofhqwiofh");
             // System.out.println(body);
             if (body instanceof InternalRobot) {
@@ -188,6 +198,14 @@ public strictfp class GameWorld {
         return this.gameMap;
     }
 
+    public Random getControllerRandom() {
+        return this.controllerRandom;
+    }
+
+    public void resetControllerRandom() {
+        this.controllerRandom = new Random(getMapSeed());
+    }
+
     public TeamInfo getTeamInfo() {
         return this.teamInfo;
     }
@@ -200,6 +218,10 @@ public strictfp class GameWorld {
         return this.objectInfo;
     }
 
+    public Blockchain getBlockchain() {
+        return this.blockchain;
+    }
+
     public GameMaker.MatchMaker getMatchMaker() {
         return this.matchMaker;
     }
@@ -261,49 +283,33 @@ public strictfp class GameWorld {
     // ***********************************
 
     public int getPollution(MapLocation loc) {
-        if (pollutionNeedsUpdate)
-            calculatePollution();
-        return this.gameMap.onTheMap(loc) ? this.pollution[locationToIndex(loc)] : 0;
+        return this.pollution.getPollution(loc);
+    }
+
+    /**
+     * @return the pollution epoch; the pollution everywhere stays the same
+     *         for as long as it does
+     */
+    public int getPollutionEpoch() {
+        return this.pollution.getEpoch();
+    }
+
+    public int getGlobalPollution() {
+        return this.pollution.getGlobalPollution();
     }
 
     public void addLocalPollution(int robotID, MapLocation loc, int radiusSquared, int additive, float multiplicative) {
-        LocalPollutionEffect pE = new LocalPollutionEffect(loc, radiusSquared, additive, multiplicative);
-        localPollutions.put(robotID, pE);
+        this.pollution.addLocalPollution(robotID, loc, radiusSquared, additive, multiplicative);
         getMatchMaker().addLocalPollution(loc, radiusSquared, additive, multiplicative);
-        pollutionNeedsUpdate = true;
     }
 
     public void resetPollutionForRobot(int robotID) {
         // reset the pollution caused by this robot
-        // i.e. remove it from the local pollution hash map
-        localPollutions.remove(robotID);
-        pollutionNeedsUpdate = true;
+        this.pollution.resetPollutionForRobot(robotID);
     }
 
     public void addGlobalPollution(int amount) {
-        this.globalPollution = Math.max(this.globalPollution + amount, 0);
-        pollutionNeedsUpdate = true;
-    }
-
-    private void calculatePollution() {
-        // calculates pollution based on pollution effects
-        // this has annoying time complexity but I think it'll be fine
-        for (int x = 0; x < this.gameMap.getWidth(); x++) {
-            for (int y = 0; y < this.gameMap.getHeight(); y++) {
-                MapLocation loc = new MapLocation(x, y);
-                int idx = locationToIndex(loc);
-                pollution[idx] = globalPollution;
-                float multiplier = 1;
-                for (LocalPollutionEffect localPollution : localPollutions.values()) {
-                    if (loc.isWithinDistanceSquared(localPollution.loc, localPollution.radiusSquared)) {
-                        pollution[idx] += localPollution.additiveEffect;
-                        multiplier *= localPollution.multiplicativeEffect;
-                    }
-                }
-                pollution[idx] = Math.round(pollution[idx] * multiplier);
-            }
-        }
-        pollutionNeedsUpdate = false;
+        this.pollution.addGlobalPollution(amount);
     }
 
     // ***********************************
@@ -348,7 +354,9 @@ public strictfp class GameWorld {
                 targetID = targetRobot.getID();
             }
             else {
-                this.dirt[locationToIndex(loc)] -= 1;
+                int idx = locationToIndex(loc);
+                this.dirt[idx] -= 1;
+                this.floodFrontier.dirtChanged(idx);
                 getMatchMaker().addDirtChanged(loc, -1);
             }
             getMatchMaker().addAction(robotID, Action.DIG_DIRT, targetID);
@@ -374,7 +382,9 @@ public strictfp class GameWorld {
                 targetID = targetRobot.getID();
             }
             else{
-                this.dirt[locationToIndex(loc)] += amount;
+                int idx = locationToIndex(loc);
+                this.dirt[idx] += amount;
+                this.floodFrontier.dirtChanged(idx);
                 getMatchMaker().addDirtChanged(loc, amount);
                 tryResurface(loc);
             }
@@ -416,6 +426,7 @@ public strictfp class GameWorld {
     public void setFloodStatus(int idx, boolean newStatus) {
         if (this.flooded[idx] != newStatus) {
             this.flooded[idx] = newStatus;
+            this.floodFrontier.floodStatusChanged(idx);
             getMatchMaker().addWaterChanged(indexToLocation(idx));
             // a robot potentially drowns
             InternalRobot floodedRobot = getRobot(indexToLocation(idx));
@@ -436,45 +447,270 @@ public strictfp class GameWorld {
     // ***********************************
 
     public InternalRobot getRobot(MapLocation loc) {
-        return this.robots[loc.x][loc.y];
+        int id = this.robotIndex.getRobotID(loc);
+        return id == SpatialIndex.NO_ROBOT ? null : objectInfo.getRobotByID(id);
     }
 
     public void moveRobot(MapLocation start, MapLocation end) {
-        addRobot(end, this.robots[start.x][start.y]);
-        removeRobot(start);
+        this.robotIndex.move(start, end);
     }
 
     public void addRobot(MapLocation loc, InternalRobot robot) {
-        this.robots[loc.x][loc.y] = robot;
+        this.robotIndex.add(loc, robot.getID(), robot.getTeam());
     }
 
     public void removeRobot(MapLocation loc) {
-        this.robots[loc.x][loc.y] = null;
+        this.robotIndex.remove(loc);
+    }
+
+    /**
+     * Applies an operation to the index of every on-map location within a
+     * squared radius of a center, in order of increasing distance from the
+     * center. Return false to stop iterating.
+     *
+     * @param center the center of the query
+     * @param radiusSquared the squared radius of the query
+     * @param op a lambda (location index) -> boolean
+     */
+    public void forEachLocationWithinRadiusSquared(MapLocation center, int radiusSquared, TIntProcedure op) {
+        int width = this.gameMap.getWidth();
+        int height = this.gameMap.getHeight();
+        int cx = center.x - this.gameMap.getOrigin().x;
+        int cy = center.y - this.gameMap.getOrigin().y;
+        RadiusOffsets offsets = RadiusOffsets.get(clampRadiusSquared(cx, cy, radiusSquared));
+        for (int i = 0; i < offsets.length; i++) {
+            int x = cx + offsets.getDx(i);
+            int y = cy + offsets.getDy(i);
+            if (x < 0 || y < 0 || x >= width || y >= height)
+                continue;
+            if (!op.execute(x + y * width))
+                return;
+        }
+    }
+
+    /**
+     * Applies an operation to every robot on the map within a squared radius
+     * of a center, in order of increasing distance from the center. Robots
+     * held by delivery drones are not on the map. Return false to stop
+     * iterating.
+     *
+     * @param center the center of the query
+     * @param radiusSquared the squared radius of the query
+     * @param op a lambda (robot) -> boolean
+     */
+    public void forEachRobotWithinRadiusSquared(MapLocation center, int radiusSquared, TObjectProcedure<InternalRobot> op) {
+        int width = this.gameMap.getWidth();
+        int height = this.gameMap.getHeight();
+        int cx = center.x - this.gameMap.getOrigin().x;
+        int cy = center.y - this.gameMap.getOrigin().y;
+        RadiusOffsets offsets = RadiusOffsets.get(clampRadiusSquared(cx, cy, radiusSquared));
+        for (int i = 0; i < offsets.length; i++) {
+            int x = cx + offsets.getDx(i);
+            int y = cy + offsets.getDy(i);
+            if (x < 0 || y < 0 || x >= width || y >= height)
+                continue;
+            int id = this.robotIndex.getRobotID(x + y * width);
+            if (id != SpatialIndex.NO_ROBOT && !op.execute(objectInfo.getRobotByID(id)))
+                return;
+        }
+    }
+
+    /**
+     * Writes every robot within a squared radius of a center into a
+     * caller-owned buffer, in order of increasing distance from the center.
+     * The buffer must hold at least RadiusOffsets.get(radiusSquared).length
+     * robots, or at least as many robots as there are on the map.
+     *
+     * @param center the center of the query
+     * @param radiusSquared the squared radius of the query
+     * @param result the buffer to write the robots into
+     * @return the number of robots written
+     */
+    public int getAllRobotsWithinRadiusSquared(MapLocation center, int radiusSquared, InternalRobot[] result) {
+        int width = this.gameMap.getWidth();
+        int height = this.gameMap.getHeight();
+        int cx = center.x - this.gameMap.getOrigin().x;
+        int cy = center.y - this.gameMap.getOrigin().y;
+        RadiusOffsets offsets = RadiusOffsets.get(clampRadiusSquared(cx, cy, radiusSquared));
+        int count = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            int x = cx + offsets.getDx(i);
+            int y = cy + offsets.getDy(i);
+            if (x < 0 || y < 0 || x >= width || y >= height)
+                continue;
+            int id = this.robotIndex.getRobotID(x + y * width);
+            if (id != SpatialIndex.NO_ROBOT)
+                result[count++] = objectInfo.getRobotByID(id);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the robots on the map within a squared radius of a center that
+     * a robot can sense, in order of increasing distance from the center.
+     * Scans the tiles once, looking only at those the occupancy bitsets say
+     * hold a robot of the team, so the only allocation is the result.
+     *
+     * @param sensor the robot sensing; it isn't in the result
+     * @param sensorRadiusSquared the sensor's current sensor radius squared
+     * @param center the center of the query
+     * @param radiusSquared the squared radius of the query
+     * @param team the team of the robots to return, or null for every team
+     * @return the info of the robots found
+     */
+    public RobotInfo[] getSensedRobots(InternalRobot sensor, int sensorRadiusSquared,
+                                       MapLocation center, int radiusSquared, Team team) {
+        int width = this.gameMap.getWidth();
+        int height = this.gameMap.getHeight();
+        int originX = this.gameMap.getOrigin().x;
+        int originY = this.gameMap.getOrigin().y;
+        int cx = center.x - originX;
+        int cy = center.y - originY;
+        MapLocation sensorLocation = sensor.getLocation();
+        int sx = sensorLocation.x - originX;
+        int sy = sensorLocation.y - originY;
+        // a query around the sensor within its range needs no range checks
+        boolean checkRange = cx != sx || cy != sy || radiusSquared > sensorRadiusSquared;
+        int sensorID = sensor.getID();
+        long[] occupancy = team == null ? null : this.robotIndex.getOccupancy(team);
+        RadiusOffsets offsets = RadiusOffsets.get(clampRadiusSquared(cx, cy, radiusSquared));
+        int count = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            int x = cx + offsets.getDx(i);
+            int y = cy + offsets.getDy(i);
+            if (x < 0 || y < 0 || x >= width || y >= height)
+                continue;
+            int idx = x + y * width;
+            if (occupancy == null ? !this.robotIndex.isOccupied(idx) : (occupancy[idx >>> 6] & (1L << idx)) == 0)
+                continue;
+            if (checkRange) {
+                int dx = x - sx;
+                int dy = y - sy;
+                if (dx * dx + dy * dy > sensorRadiusSquared)
+                    continue;
+            }
+            int id = this.robotIndex.getRobotID(idx);
+            if (id != sensorID)
+                this.sensedRobots[count++] = objectInfo.getRobotByID(id).getRobotInfo();
+        }
+        return Arrays.copyOf(this.sensedRobots, count);
     }
 
+    /**
+     * This allocates; prefer forEachRobotWithinRadiusSquared()
+     */
     public InternalRobot[] getAllRobotsWithinRadiusSquared(MapLocation center, int radiusSquared) {
         ArrayList<InternalRobot> returnRobots = new ArrayList<InternalRobot>();
-        for (MapLocation newLocation : getAllLocationsWithinRadiusSquared(center, radiusSquared))
-            if (this.robots[newLocation.x][newLocation.y] != null)
-                returnRobots.add(this.robots[newLocation.x][newLocation.y]);
+        forEachRobotWithinRadiusSquared(center, radiusSquared, (robot) -> {
+            returnRobots.add(robot);
+            return true;
+        });
         return returnRobots.toArray(new InternalRobot[returnRobots.size()]);
     }
 
+    /**
+     * This allocates; prefer forEachLocationWithinRadiusSquared()
+     */
     public MapLocation[] getAllLocationsWithinRadiusSquared(MapLocation center, int radiusSquared) {
         ArrayList<MapLocation> returnLocations = new ArrayList<MapLocation>();
-        int ceiledRadius = (int) Math.ceil(Math.sqrt(radiusSquared)) + 1; // add +1 just to be safe
-        int minX = Math.max(center.x - ceiledRadius, 0);
-        int minY = Math.max(center.y - ceiledRadius, 0);
-        int maxX = Math.min(center.x + ceiledRadius, this.gameMap.getWidth() - 1);
-        int maxY = Math.min(center.y + ceiledRadius, this.gameMap.getHeight() - 1);
-        for (int x = minX; x <= maxX; x++) {
-            for (int y = minY; y <= maxY; y++) {
-                MapLocation newLocation = new MapLocation(x, y);
-                if (center.isWithinDistanceSquared(newLocation, radiusSquared))
-                    returnLocations.add(newLocation);
-            }
+        forEachLocationWithinRadiusSquared(center, radiusSquared, (idx) -> {
+            returnLocations.add(indexToLocation(idx));
+            return true;
+        });
+        return returnLocations.toArray(new MapLocation[returnLocations.size()]);
+    }
+
+    /**
+     * Returns the soup at every location within a squared radius of a
+     * center, laid out as in RobotController.senseNearbySoup(), with -1
+     * where a location is out of range or off the map.
+     *
+     * @param center the center of the square
+     * @param radiusSquared the squared radius
+     * @return the soup in the square around the center
+     */
+    public int[] getSoupAround(MapLocation center, int radiusSquared) {
+        return squareAround(this.soup, center, radiusSquared, -1);
+    }
+
+    /**
+     * Returns the dirt at every location within a squared radius of a
+     * center, laid out as in RobotController.senseNearbySoup(), with
+     * Integer.MIN_VALUE where a location is out of range or off the map.
+     *
+     * @param center the center of the square
+     * @param radiusSquared the squared radius
+     * @return the dirt in the square around the center
+     */
+    public int[] getDirtAround(MapLocation center, int radiusSquared) {
+        return squareAround(this.dirt, center, radiusSquared, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Returns whether every location within a squared radius of a center is
+     * flooded, laid out as in RobotController.senseNearbySoup(), with false
+     * where a location is out of range or off the map.
+     *
+     * @param center the center of the square
+     * @param radiusSquared the squared radius
+     * @return whether each location in the square around the center is flooded
+     */
+    public boolean[] getFloodedAround(MapLocation center, int radiusSquared) {
+        int r = (int) Math.sqrt(radiusSquared);
+        int side = 2 * r + 1;
+        boolean[] result = new boolean[side * side];
+        int width = this.gameMap.getWidth();
+        int height = this.gameMap.getHeight();
+        int cx = center.x - this.gameMap.getOrigin().x;
+        int cy = center.y - this.gameMap.getOrigin().y;
+        RadiusOffsets offsets = RadiusOffsets.get(clampRadiusSquared(cx, cy, radiusSquared));
+        for (int i = 0; i < offsets.length; i++) {
+            int dx = offsets.getDx(i);
+            int dy = offsets.getDy(i);
+            int x = cx + dx;
+            int y = cy + dy;
+            if (x < 0 || y < 0 || x >= width || y >= height)
+                continue;
+            result[(dx + r) + (dy + r) * side] = this.flooded[x + y * width];
+        }
+        return result;
+    }
+
+    /**
+     * Copies a per-tile array into the square around a center, for every
+     * location within a squared radius of it, in one pass over the offsets.
+     */
+    private int[] squareAround(int[] values, MapLocation center, int radiusSquared, int missing) {
+        int r = (int) Math.sqrt(radiusSquared);
+        int side = 2 * r + 1;
+        int[] result = new int[side * side];
+        Arrays.fill(result, missing);
+        int width = this.gameMap.getWidth();
+        int height = this.gameMap.getHeight();
+        int cx = center.x - this.gameMap.getOrigin().x;
+        int cy = center.y - this.gameMap.getOrigin().y;
+        RadiusOffsets offsets = RadiusOffsets.get(clampRadiusSquared(cx, cy, radiusSquared));
+        for (int i = 0; i < offsets.length; i++) {
+            int dx = offsets.getDx(i);
+            int dy = offsets.getDy(i);
+            int x = cx + dx;
+            int y = cy + dy;
+            if (x < 0 || y < 0 || x >= width || y >= height)
+                continue;
+            result[(dx + r) + (dy + r) * side] = values[x + y * width];
         }
-        return returnLocations.toArray(new MapLocation[0]);
+        return result;
+    }
+
+    /**
+     * Shrinks a squared radius to the distance from a center to the farthest
+     * map corner; anything beyond that is off the map anyway.
+     */
+    private int clampRadiusSquared(int cx, int cy, int radiusSquared) {
+        long farX = Math.max(Math.abs(cx), Math.abs(this.gameMap.getWidth() - 1 - cx));
+        long farY = Math.max(Math.abs(cy), Math.abs(this.gameMap.getHeight() - 1 - cy));
+        long farthest = farX * farX + farY * farY;
+        return farthest < radiusSquared ? (int) farthest : radiusSquared;
     }
 
     // *********************************
@@ -487,11 +723,10 @@ public strictfp class GameWorld {
         this.teamInfo.addSoupIncome(GameConstants.BASE_INCOME_PER_ROUND);
 
         // Process beginning of each robot's round
-        objectInfo.eachRobot((robot) -> {
-            if (!robot.isBlocked()) // blocked robots don't do anything
-                robot.processBeginningOfRound();
-            return true;
-        });
+        RobotTable robots = objectInfo.getRobotTable();
+        for (int slot = 0; slot < robots.size(); slot++)
+            if (!robots.isBlocked(slot)) // blocked robots don't do anything
+                robots.getRobot(slot).processBeginningOfRound();
     }
 
     public void setWinner(Team t, DominationFactor d)  {
@@ -545,9 +780,11 @@ public strictfp class GameWorld {
         int[] netWorths = new int[2];
         netWorths[0] = this.teamInfo.getSoup(Team.A);
         netWorths[1] = this.teamInfo.getSoup(Team.B);
-        for (InternalRobot robot : objectInfo.robotsArray()) {
-            if (robot.getTeam() == Team.NEUTRAL) continue;
-            netWorths[robot.getTeam().ordinal()] += robot.getType().cost;
+        RobotTable robots = objectInfo.getRobotTable();
+        for (int slot = 0; slot < robots.size(); slot++) {
+            Team team = robots.getTeam(slot);
+            if (team == Team.NEUTRAL) continue;
+            netWorths[team.ordinal()] += robots.getType(slot).cost;
         }
         if (netWorths[0] > netWorths[1]) {
             setWinner(Team.A, DominationFactor.QUALITY_OVER_QUANTITY);
@@ -573,13 +810,14 @@ public strictfp class GameWorld {
      * Sets winner based on highest robot id.
      */
     public boolean setWinnerHighestRobotID() {
-        InternalRobot highestIDRobot = null;
-        for (InternalRobot robot : objectInfo.robotsArray())
-            if (highestIDRobot == null || robot.getID() > highestIDRobot.getID())
-                highestIDRobot = robot;
-        if (highestIDRobot == null)
+        RobotTable robots = objectInfo.getRobotTable();
+        int highestIDSlot = -1;
+        for (int slot = 0; slot < robots.size(); slot++)
+            if (highestIDSlot == -1 || robots.getID(slot) > robots.getID(highestIDSlot))
+                highestIDSlot = slot;
+        if (highestIDSlot == -1)
             return false;
-        setWinner(highestIDRobot.getTeam(), DominationFactor.HIGHBORN);
+        setWinner(robots.getTeam(highestIDSlot), DominationFactor.HIGHBORN);
         return true;
     }
 
@@ -597,11 +835,10 @@ public strictfp class GameWorld {
 
     public void processEndOfRound() {
         // Process end of each robot's round
-        objectInfo.eachRobot((robot) -> {
-            if (!robot.isBlocked()) // blocked robots don't do anything
-                robot.processEndOfRound();
-            return true;
-        });
+        RobotTable robots = objectInfo.getRobotTable();
+        for (int slot = 0; slot < robots.size(); slot++)
+            if (!robots.isBlocked(slot)) // blocked robots don't do anything
+                robots.getRobot(slot).processEndOfRound();
 
         // process blockchain messages
         processBlockchain();
@@ -623,7 +860,7 @@ public strictfp class GameWorld {
         // update the round statistics
         matchMaker.addTeamSoup(Team.A, teamInfo.getSoup(Team.A));
         matchMaker.addTeamSoup(Team.B, teamInfo.getSoup(Team.B));
-        matchMaker.setGlobalPollution(this.globalPollution);
+        matchMaker.setGlobalPollution(getGlobalPollution());
 
         if (gameStats.getWinner() != null)
             running = false;
@@ -632,23 +869,21 @@ public strictfp class GameWorld {
     /**
      * Flood expands from currently flooded locations to immediately
      *  adjacent locations that are beneath the current water level.
+     *  Only flooded locations on the frontier whose dry neighbors are
+     *  low enough to flood are visited.
      */
     public void floodfill() {
-        ArrayList<MapLocation> floodOrigins = new ArrayList<MapLocation>();
-        for (int idx = 0; idx < this.flooded.length; idx++)
-            if (this.flooded[idx])
-                floodOrigins.add(indexToLocation(idx));
-        for (MapLocation center : floodOrigins) {
-            for (Direction dir : Direction.allDirections()) {
-                MapLocation targetLoc = center.add(dir);
-                if (!this.gameMap.onTheMap(targetLoc))
-                    continue;
-                int idx = locationToIndex(targetLoc);
-                if (flooded[idx] || dirt[idx] >= waterLevel)
+        TIntArrayList floodOrigins = this.floodFrontier.popSpreading(this.waterLevel);
+        for (int i = 0; i < floodOrigins.size(); i++) {
+            int center = floodOrigins.getQuick(i);
+            for (int neighbor = 0; neighbor < FloodFrontier.NUM_NEIGHBORS; neighbor++) {
+                int idx = this.floodFrontier.neighborIndex(center, neighbor);
+                if (idx == -1 || flooded[idx] || dirt[idx] >= waterLevel)
                     continue;
                 setFloodStatus(idx, true);
             }
         }
+        this.floodFrontier.reschedule(floodOrigins);
     }
 
     // *********************************
@@ -658,7 +893,6 @@ public strictfp class GameWorld {
     public int spawnRobot(int ID, RobotType type, MapLocation location, Team team){
         InternalRobot robot = new InternalRobot(this, ID, type, location, team);
         objectInfo.spawnRobot(robot);
-        addRobot(location, robot);
 
         controlProvider.robotSpawned(robot);
         matchMaker.addSpawnedRobot(robot);
@@ -688,18 +922,16 @@ public strictfp class GameWorld {
 
     private void processBlockchain() {
         // process messages, take the K first ones!
-        ArrayList<Transaction> block = new ArrayList<Transaction>();
-        for (int i = 0; i < GameConstants.NUMBER_OF_TRANSACTIONS_PER_BLOCK; i++) {
-            if (blockchainQueue.size() > 0) {
-                Transaction transaction = blockchainQueue.poll();
-                // send this to match maker!
-                matchMaker.addBroadcastedMessage(transaction.getCost(), transaction.getSerializedMessage());
-                // also add it to this round's list of messages!
-                block.add(transaction);
-            }
+        Transaction[] block = new Transaction[Math.min(GameConstants.NUMBER_OF_TRANSACTIONS_PER_BLOCK, blockchainQueue.size())];
+        for (int i = 0; i < block.length; i++) {
+            Transaction transaction = blockchainQueue.poll();
+            // send this to match maker!
+            matchMaker.addBroadcastedMessage(transaction.getCost(), transaction.getSerializedMessage());
+            // also add it to this round's list of messages!
+            block[i] = transaction;
         }
         // add this to the blockchain!
-        blockchain.add(block);
+        blockchain.addBlock(block);
     }
    
     // *********************************
@@ -710,7 +942,9 @@ public strictfp class GameWorld {
         // System.out.println("Killing robot: ");
         // System.out.println(id);
         InternalRobot robot = objectInfo.getRobotByID(id);
-        removeRobot(robot.getLocation());
+        // a held robot isn't on the map; its location is its drone's
+        if (this.robotIndex.getRobotID(robot.getLocation()) == id)
+            removeRobot(robot.getLocation());
         
         if (robot.getType() == RobotType.HQ)
             this.teamInfo.destroyHQ(robot.getTeam());
@@ -4,37 +4,57 @@ import battlecode.common.*;
 import battlecode.schema.Action;
 
 /**
- * The representation of a robot used by the server.
+ * The representation of a robot used by the server. The state that whole
+ * population passes look at lives in a RobotTable; this is a view of one
+ * slot of it, or holds that state itself while the robot isn't in a table.
  */
 public strictfp class InternalRobot {
     private final RobotControllerImpl controller;
     private final GameWorld gameWorld;
 
     private final int ID;
-    private Team team;
+
+    // where the state of this robot is stored, or null if it isn't in a table
+    private RobotTable table;
+    private int slot;
+
+    // the state of this robot while it isn't in a table: before it spawns,
+    // and after it is destroyed
     private RobotType type;
+    private Team team;
     private MapLocation location;
+    private float cooldownTurns;
+    private int soupCarrying;
+    private int dirtCarrying;
+    private boolean blocked;
+
+    // position in the execution order, or -1
+    private int executionIndex;
 
     private long controlBits;
     private int currentBytecodeLimit;
     private int bytecodesUsed;
 
     private int roundsAlive; // WILL NOT INCLUDE ROUNDS BLOCKED WHEN PICKED UP BY DRONE
-    private int soupCarrying; // amount of soup the robot is carrying (miners and refineries)
-    private int dirtCarrying; // amount of dirt the robot is carrying (landscapers and buildings)
-    
-    private float cooldownTurns;
 
     private boolean currentlyHoldingUnit;
     private int idOfUnitCurrentlyHeld;
 
-    private boolean blocked;  // when picked up by a delivery drone
-
     /**
      * Used to avoid recreating the same RobotInfo object over and over.
      */
     private RobotInfo cachedRobotInfo;
 
+    /**
+     * The sensor radius squared and cooldown coefficient for the pollution
+     * at pollutionLocation, in the pollution epoch pollutionEpoch. Used to
+     * avoid looking up the pollution on every sensing call.
+     */
+    private int pollutionEpoch = -1;
+    private MapLocation pollutionLocation;
+    private int sensorRadiusSquared;
+    private float cooldownCoefficient;
+
     /**
      * Create a new internal representation of a robot
      *
@@ -46,25 +66,22 @@ public strictfp class InternalRobot {
     @SuppressWarnings("unchecked")
     public InternalRobot(GameWorld gw, int id, RobotType type, MapLocation loc, Team team) {
         this.ID = id;
-        this.team = team;
+        this.table = null;
+        this.slot = -1;
         this.type = type;
+        this.team = team;
         this.location = loc;
+        this.executionIndex = -1;
 
         this.controlBits = 0;
         this.currentBytecodeLimit = type.bytecodeLimit;
         this.bytecodesUsed = 0;
 
         this.roundsAlive = 0;
-        this.soupCarrying = 0;
-        this.dirtCarrying = 0;
-        
-        this.cooldownTurns = 0;
 
         this.currentlyHoldingUnit = false;
         this.idOfUnitCurrentlyHeld = -1;
 
-        this.blocked = false;
-
         this.gameWorld = gw;
         this.controller = new RobotControllerImpl(gameWorld, this);
     }
@@ -86,15 +103,47 @@ public strictfp class InternalRobot {
     }
 
     public Team getTeam() {
-        return team;
+        return table == null ? team : table.getTeam(slot);
     }
 
     public RobotType getType() {
-        return type;
+        return table == null ? type : table.getType(slot);
     }
 
     public MapLocation getLocation() {
-        return location;
+        return table == null ? location : table.getLocation(slot);
+    }
+
+    /**
+     * Called by the table whenever the state of this robot moves.
+     */
+    void setSlot(RobotTable table, int slot) {
+        this.table = table;
+        this.slot = slot;
+    }
+
+    /**
+     * Called by the table before it removes this robot, to keep a copy of
+     * the state it had there.
+     */
+    void detach() {
+        this.type = table.getType(slot);
+        this.team = table.getTeam(slot);
+        this.location = table.getLocation(slot);
+        this.cooldownTurns = table.getCooldownTurns(slot);
+        this.soupCarrying = table.getSoupCarrying(slot);
+        this.dirtCarrying = table.getDirtCarrying(slot);
+        this.blocked = table.isBlocked(slot);
+        this.table = null;
+        this.slot = -1;
+    }
+
+    int getExecutionIndex() {
+        return executionIndex;
+    }
+
+    void setExecutionIndex(int executionIndex) {
+        this.executionIndex = executionIndex;
     }
 
     public long getControlBits() {
@@ -110,15 +159,15 @@ public strictfp class InternalRobot {
     }
 
     public int getSoupCarrying() {
-        return soupCarrying;
+        return table == null ? soupCarrying : table.getSoupCarrying(slot);
     }
 
     public int getDirtCarrying() {
-        return dirtCarrying;
+        return table == null ? dirtCarrying : table.getDirtCarrying(slot);
     }
     
     public float getCooldownTurns() {
-        return cooldownTurns;
+        return table == null ? cooldownTurns : table.getCooldownTurns(slot);
     }
 
     public boolean isCurrentlyHoldingUnit() {
@@ -130,10 +179,13 @@ public strictfp class InternalRobot {
     }
 
     public boolean isBlocked() {
-        return blocked;
+        return table == null ? blocked : table.isBlocked(slot);
     }
 
     public RobotInfo getRobotInfo() {
+        Team team = getTeam();
+        RobotType type = getType();
+        MapLocation location = getLocation();
         if (this.cachedRobotInfo != null
                 && this.cachedRobotInfo.ID == ID
                 && this.cachedRobotInfo.team == team
@@ -156,11 +208,18 @@ public strictfp class InternalRobot {
     }
 
     public void blockUnit() {
-        this.blocked = true;
+        setBlocked(true);
     }
 
     public void unblockUnit() {
-        this.blocked = false;
+        setBlocked(false);
+    }
+
+    private void setBlocked(boolean blocked) {
+        if (table == null)
+            this.blocked = blocked;
+        else
+            table.setBlocked(slot, blocked);
     }
 
     // **********************************
@@ -172,7 +231,24 @@ public strictfp class InternalRobot {
      * by the current pollution level at the present location.
      */
     public int getCurrentSensorRadiusSquared() {
-        return (int) Math.round(this.type.sensorRadiusSquared * GameConstants.getSensorRadiusPollutionCoefficient(this.gameWorld.getPollution(getLocation())));
+        updatePollutionEffects();
+        return this.sensorRadiusSquared;
+    }
+
+    /**
+     * Recomputes the sensor radius and cooldown coefficient if the robot
+     * has moved or the pollution has changed since they were computed.
+     */
+    private void updatePollutionEffects() {
+        int epoch = this.gameWorld.getPollutionEpoch();
+        MapLocation location = getLocation();
+        if (epoch == this.pollutionEpoch && location.equals(this.pollutionLocation))
+            return;
+        int pollution = this.gameWorld.getPollution(location);
+        this.sensorRadiusSquared = (int) Math.round(getType().sensorRadiusSquared * GameConstants.getSensorRadiusPollutionCoefficient(pollution));
+        this.cooldownCoefficient = GameConstants.getCooldownPollutionCoefficient(pollution);
+        this.pollutionEpoch = epoch;
+        this.pollutionLocation = location;
     }
 
     /**
@@ -181,7 +257,7 @@ public strictfp class InternalRobot {
      * @param toSense the MapLocation to sense
      */
     public boolean canSenseLocation(MapLocation toSense){
-        return this.location.distanceSquaredTo(toSense) <= getCurrentSensorRadiusSquared();
+        return getLocation().distanceSquaredTo(toSense) <= getCurrentSensorRadiusSquared();
     }
 
     /**
@@ -203,15 +279,18 @@ public strictfp class InternalRobot {
      * @param loc the new location of the robot
      */
     public void setLocation(MapLocation loc) {
-        this.gameWorld.getObjectInfo().moveRobot(this, loc);
-        this.location = loc;
+        if (table == null)
+            this.location = loc;
+        else
+            table.setLocation(slot, loc);
     }
 
     /**
      * Resets the action cooldown using the formula cooldown = type_cooldown + pollution_at_location.
      */
     public void addCooldownTurns() {
-        setCooldownTurns(this.cooldownTurns + this.type.actionCooldown * GameConstants.getCooldownPollutionCoefficient(this.gameWorld.getPollution(getLocation())));
+        updatePollutionEffects();
+        setCooldownTurns(getCooldownTurns() + getType().actionCooldown * this.cooldownCoefficient);
     }
     
     /**
@@ -220,7 +299,10 @@ public strictfp class InternalRobot {
      * @param newTurns the number of cooldown turns
      */
     public void setCooldownTurns(float newTurns) {
-        this.cooldownTurns = newTurns;
+        if (table == null)
+            this.cooldownTurns = newTurns;
+        else
+            table.setCooldownTurns(slot, newTurns);
     }
 
     // ******************************************
@@ -228,11 +310,19 @@ public strictfp class InternalRobot {
     // ******************************************
 
     public void addSoupCarrying(int amount) {
-        this.soupCarrying += amount;
+        setSoupCarrying(getSoupCarrying() + amount);
     }
 
     public void removeSoupCarrying(int amount) {
-        this.soupCarrying = amount > this.soupCarrying ? 0 : this.soupCarrying - amount;
+        int soupCarrying = getSoupCarrying();
+        setSoupCarrying(amount > soupCarrying ? 0 : soupCarrying - amount);
+    }
+
+    private void setSoupCarrying(int amount) {
+        if (table == null)
+            this.soupCarrying = amount;
+        else
+            table.setSoupCarrying(slot, amount);
     }
 
     // ******************************************
@@ -247,8 +337,9 @@ public strictfp class InternalRobot {
      * @param amount the amount of dirt to add
      */
     public void addDirtCarrying(int amount) {
-        this.dirtCarrying += amount;
-        if (getType().isBuilding() && this.dirtCarrying >= getType().dirtLimit)
+        int dirtCarrying = getDirtCarrying() + amount;
+        setDirtCarrying(dirtCarrying);
+        if (getType().isBuilding() && dirtCarrying >= getType().dirtLimit)
             this.gameWorld.destroyRobot(getID());
     }
 
@@ -259,9 +350,17 @@ public strictfp class InternalRobot {
      * @return the amount of dirt removed
      */
     public int removeDirtCarrying(int amount) {
-        int oldDirtCarrying = this.dirtCarrying;
-        this.dirtCarrying = amount > this.dirtCarrying ? 0 : this.dirtCarrying - amount;
-        return oldDirtCarrying - this.dirtCarrying;
+        int oldDirtCarrying = getDirtCarrying();
+        int dirtCarrying = amount > oldDirtCarrying ? 0 : oldDirtCarrying - amount;
+        setDirtCarrying(dirtCarrying);
+        return oldDirtCarrying - dirtCarrying;
+    }
+
+    private void setDirtCarrying(int amount) {
+        if (table == null)
+            this.dirtCarrying = amount;
+        else
+            table.setDirtCarrying(slot, amount);
     }
 
     // *********************************
@@ -274,41 +373,45 @@ public strictfp class InternalRobot {
     }
 
     public void processBeginningOfTurn() {
-        if (this.cooldownTurns > 0)
-            this.cooldownTurns = Math.max(0, this.cooldownTurns-1);
+        float cooldownTurns = getCooldownTurns();
+        if (cooldownTurns > 0)
+            setCooldownTurns(Math.max(0, cooldownTurns-1));
         this.currentBytecodeLimit = getType().bytecodeLimit;
     }
 
     public void processEndOfTurn() {
+        RobotType type = getType();
+        Team team = getTeam();
         // REFINING AND POLLUTION
         // if can produce pollution, reset it now
-        if (this.type.canAffectPollution()) {
+        if (type.canAffectPollution()) {
             this.gameWorld.resetPollutionForRobot(this.ID);
         }
         // whether the robot should pollute
         boolean shouldPollute = false;
         // If refinery//hq, produces refined soup
-        if (this.type.canRefine() && this.soupCarrying > 0) {
-            int soupProduced = Math.min(this.soupCarrying, this.type.maxSoupProduced);
-            this.soupCarrying -= soupProduced;
-            this.gameWorld.getTeamInfo().adjustSoup(this.team, soupProduced);
+        int soupCarrying = getSoupCarrying();
+        if (type.canRefine() && soupCarrying > 0) {
+            int soupProduced = Math.min(soupCarrying, type.maxSoupProduced);
+            setSoupCarrying(soupCarrying - soupProduced);
+            this.gameWorld.getTeamInfo().adjustSoup(team, soupProduced);
             // this is an action!
             this.gameWorld.getMatchMaker().addAction(this.ID, Action.REFINE_SOUP, -1);
             shouldPollute = true;
         }
         // If vaporator, produces refined soup always
-        if (this.type == RobotType.VAPORATOR) {
-            this.gameWorld.getTeamInfo().adjustSoup(this.team, this.type.maxSoupProduced);
+        if (type == RobotType.VAPORATOR) {
+            this.gameWorld.getTeamInfo().adjustSoup(team, type.maxSoupProduced);
             shouldPollute = true;
         }
         // If cow, always pollute
-        if (this.type == RobotType.COW) {
+        if (type == RobotType.COW) {
             shouldPollute = true;
         }
-        if (this.type.canAffectPollution() && shouldPollute) {
-            this.gameWorld.addGlobalPollution(this.type.globalPollutionAmount);
+        if (type.canAffectPollution() && shouldPollute) {
+            this.gameWorld.addGlobalPollution(type.globalPollutionAmount);
             // now add a local pollution
-            this.gameWorld.addLocalPollution(this.ID, this.getLocation(), this.type.pollutionRadiusSquared, this.type.localPollutionAdditiveEffect, this.type.localPollutionMultiplicativeEffect);
+            this.gameWorld.addLocalPollution(this.ID, this.getLocation(), type.pollutionRadiusSquared, type.localPollutionAdditiveEffect, type.localPollutionMultiplicativeEffect);
         }
 
         // bytecode stuff!
@@ -270,18 +270,34 @@ public strictfp class LiveMap {
         return origin;
     }
 
+    /**
+     * @return the soup on every tile at the start of the game.
+     *         MUST NOT BE MODIFIED; maps are shared between matches.
+     */
     public int[] getSoupArray() {
         return soupArray;
     }
 
+    /**
+     * @return the pollution on every tile at the start of the game.
+     *         MUST NOT BE MODIFIED; maps are shared between matches.
+     */
     public int[] getPollutionArray() {
         return pollutionArray;
     }
 
+    /**
+     * @return whether every tile is flooded at the start of the game.
+     *         MUST NOT BE MODIFIED; maps are shared between matches.
+     */
     public boolean[] getWaterArray() {
         return waterArray;
     }
 
+    /**
+     * @return the dirt on every tile at the start of the game.
+     *         MUST NOT BE MODIFIED; maps are shared between matches.
+     */
     public int[] getDirtArray() {
         return dirtArray;
     }
@@ -5,18 +5,12 @@ import battlecode.common.MapLocation;
 import battlecode.common.RobotType;
 import battlecode.common.Team;
 
-import gnu.trove.list.array.TIntArrayList;
-import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.procedure.TIntObjectProcedure;
 import gnu.trove.procedure.TIntProcedure;
 
 import gnu.trove.procedure.TObjectProcedure;
-import net.sf.jsi.SpatialIndex;
-import net.sf.jsi.rtree.RTree;
-import net.sf.jsi.Rectangle;
-import net.sf.jsi.Point;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumMap;
 import java.util.Map;
@@ -27,32 +21,22 @@ import java.util.Map;
  * in the game world.
  */
 public strictfp class ObjectInfo {
-    private final int mapWidth;
-    private final int mapHeight;
-    private final MapLocation mapTopLeft;
-
-    private final TIntObjectHashMap<InternalRobot> gameRobotsByID;
+    private final RobotTable robotTable;
 
     private final SpatialIndex robotIndex;
 
-    private final TIntArrayList dynamicBodyExecOrder;
+    private final ExecutionOrder dynamicBodyExecOrder;
 
     private Map<Team, Map<RobotType, Integer>> robotTypeCount = new EnumMap<>(
             Team.class);
     private int[] robotCount = new int[3];
 
     public ObjectInfo(LiveMap gm){
-        this.mapWidth = gm.getWidth();
-        this.mapHeight = gm.getHeight();
-        this.mapTopLeft = gm.getOrigin();
-
-        this.gameRobotsByID = new TIntObjectHashMap<>();
-
-        robotIndex = new RTree();
+        this.robotTable = new RobotTable(64);
 
-        dynamicBodyExecOrder = new TIntArrayList();
+        robotIndex = new SpatialIndex(gm);
 
-        robotIndex.init(null);
+        dynamicBodyExecOrder = new ExecutionOrder();
 
         robotTypeCount.put(Team.A, new EnumMap<>(
                 RobotType.class));
@@ -71,16 +55,22 @@ public strictfp class ObjectInfo {
     }
 
     /**
-     * Apply an operation for every robot, ordered based on robot ID hash (effectively random).
+     * Apply an operation for every robot, in no particular order.
      * Return false to stop iterating.
-     * If you call destroyRobot() on a robot that hasn't been seen yet,
-     * that robot will be silently skipped.
+     * Robots destroyed during iteration are never visited afterwards, but
+     * destroying a robot may cause one that was already visited to be
+     * visited again.
      *
      * @param op a lambda (currency) -> void
      */
     public void eachRobot(TObjectProcedure<InternalRobot> op) {
-        gameRobotsByID.forEachValue(op);
-        //eachRobotBySpawnOrder(op);
+        // walk backwards, so destroying the current robot doesn't skip any
+        for (int slot = robotTable.size() - 1; slot >= 0; slot--) {
+            if (slot >= robotTable.size())
+                continue;
+            if (!op.execute(robotTable.getRobot(slot)))
+                break;
+        }
     }
 
     /**
@@ -89,39 +79,37 @@ public strictfp class ObjectInfo {
      * Return false to stop iterating.
      *
      * If a body is removed during iteration, the body is cleanly skipped.
+     * Bodies spawned during iteration wait for the next one.
      *
      * @param op a lambda (body) -> void
      */
     public void eachDynamicBodyByExecOrder(TObjectProcedure<InternalRobot> op) {
-        // We can't modify the ArrayList we are looping over
-        int[] spawnOrderArray = dynamicBodyExecOrder.toArray();
-
-        for (int id : spawnOrderArray) {
-            // Check if body still exists.
-            if (existsRobot(id)) {
-                boolean returnedTrue = op.execute(gameRobotsByID.get(id));
-                if (!returnedTrue)
-                    break;
-            } else {
-                // The body does not exist, so it was deleted in an earlier
-                // iteration and should be skipped.
-                continue;
-            }
-        }
+        dynamicBodyExecOrder.forEach(op);
     }
 
     /**
      * This allocates; prefer eachRobot()
      */
     public Collection<InternalRobot> robots() {
-        return gameRobotsByID.valueCollection();
+        return Arrays.asList(robotsArray());
     }
 
     /**
      * This allocates; prefer eachRobot()
      */
     public InternalRobot[] robotsArray() {
-        return gameRobotsByID.values(new InternalRobot[gameRobotsByID.size()]);
+        InternalRobot[] robots = new InternalRobot[robotTable.size()];
+        for (int slot = 0; slot < robots.length; slot++)
+            robots[slot] = robotTable.getRobot(slot);
+        return robots;
+    }
+
+    /**
+     * Returns the table holding the state of every robot, for passes over
+     * the whole population.
+     */
+    public RobotTable getRobotTable() {
+        return robotTable;
     }
 
     public int getRobotCount(Team team) {
@@ -129,14 +117,14 @@ public strictfp class ObjectInfo {
     }
 
     public InternalRobot getRobotByID(int id) {
-        return gameRobotsByID.get(id);
+        return robotTable.getRobotByID(id);
     }
 
-    public void moveRobot(InternalRobot robot, MapLocation newLocation) {
-        MapLocation loc = robot.getLocation();
-
-        robotIndex.delete(fromPoint(loc),robot.getID());
-        robotIndex.add(fromPoint(newLocation),robot.getID());
+    /**
+     * Returns the index of the robots on the map, shared with GameWorld.
+     */
+    public SpatialIndex getRobotIndex() {
+        return robotIndex;
     }
 
     // ****************************
@@ -148,12 +136,11 @@ public strictfp class ObjectInfo {
         incrementRobotTypeCount(robot.getTeam(), robot.getType());
 
         int id = robot.getID();
-        gameRobotsByID.put(id, robot);
+        robotTable.adopt(robot);
 
-        dynamicBodyExecOrder.add(id);
+        dynamicBodyExecOrder.add(robot);
 
-        MapLocation loc = robot.getLocation();
-        robotIndex.add(fromPoint(loc),robot.getID());
+        robotIndex.add(robot.getLocation(), id, robot.getTeam());
     }
 
     // ****************************
@@ -161,7 +148,7 @@ public strictfp class ObjectInfo {
     // ****************************
 
     public boolean existsRobot(int id){
-        return gameRobotsByID.containsKey(id);
+        return robotTable.getSlot(id) != -1;
     }
 
     // ****************************
@@ -182,25 +169,11 @@ public strictfp class ObjectInfo {
         decrementRobotTypeCount(robot.getTeam(), robot.getType());
 
         MapLocation loc = robot.getLocation();
-        gameRobotsByID.remove(id);
-        dynamicBodyExecOrder.remove(id);
-        robotIndex.delete(fromPoint(loc),id);
-    }
-    
-    // ****************************
-    // *** PLAYER METHODS *********
-    // ****************************
-
-    private Rectangle fromPoint(float x, float y) {
-        return new Rectangle(x,y,x,y);
-    }
-
-    private Rectangle fromPoint(Point p) {
-        return new Rectangle(p.x,p.y,p.x,p.y);
-    }
-
-    private Rectangle fromPoint(MapLocation loc) {
-        return new Rectangle(loc.x,loc.y,loc.x,loc.y);
+        robotTable.destroy(id);
+        dynamicBodyExecOrder.remove(robot);
+        // held robots share the location of their drone, but aren't in the index
+        if (robotIndex.getRobotID(loc) == id)
+            robotIndex.remove(loc);
     }
 
     // ****************************
@@ -0,0 +1,311 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.HashMap;
+import java.util.TreeMap;
+
+/**
+ * Maintains the pollution at every tile of the map incrementally.
+ *
+ * Every tile keeps the sum of the additive effects covering it and the
+ * product of the multiplicative effects covering it, so that a changed
+ * local pollution effect only touches the disk it covers instead of the
+ * whole map. Changes are buffered and applied lazily the next time the
+ * pollution at a tile is read, which lets a polluting robot reset and
+ * re-add the same effect every turn at no cost. Global pollution, which
+ * changes nearly every round, is the same for every tile, so it's kept as
+ * one number and added in when a tile is read.
+ *
+ * Every update that changes the pollution at some tile starts a new epoch,
+ * so the values derived from the pollution at a tile, like a robot's
+ * sensor radius, can be kept until the epoch changes.
+ *
+ * The values produced are identical to recomputing
+ * round((global + sum of additive) * product of multiplicative) from
+ * scratch. Multiplicative factors are always multiplied in robot ID order,
+ * so the result doesn't depend on the order effects were added in.
+ */
+public strictfp class PollutionField {
+
+    /**
+     * A local pollution effect, centered on the robot that produced it.
+     */
+    private static class LocalPollutionEffect {
+        final MapLocation loc;
+        final int radiusSquared;
+        final int additiveEffect;
+        final float multiplicativeEffect;
+
+        LocalPollutionEffect(MapLocation l, int r, int a, float m) {
+            loc = l;
+            radiusSquared = r;
+            additiveEffect = a;
+            multiplicativeEffect = m;
+        }
+
+        boolean sameAs(LocalPollutionEffect other) {
+            return other != null
+                    && loc.equals(other.loc)
+                    && radiusSquared == other.radiusSquared
+                    && additiveEffect == other.additiveEffect
+                    && multiplicativeEffect == other.multiplicativeEffect;
+        }
+    }
+
+    private final int width;
+    private final int height;
+    private final int originX;
+    private final int originY;
+
+    /**
+     * The pollution on the map, which is reported until any effect is
+     * applied.
+     */
+    private final int[] initialPollution;
+    private boolean fromMap;
+
+    /**
+     * Sum of the additive effects covering every tile.
+     */
+    private final int[] additive;
+
+    /**
+     * Product of the multiplicative effects covering every tile.
+     */
+    private final float[] multiplier;
+
+    // applies to every tile, so it's kept as it is and added in when a tile
+    // is read
+    private int globalPollution;
+    private boolean globalChanged;
+
+    // the local pollution effects that are currently active, mapped from
+    // robot ID to pollution effect
+    private final TreeMap<Integer, LocalPollutionEffect> localPollutions;
+
+    // the local pollution effects that are reflected in additive[] and
+    // multiplier[], mapped from robot ID to pollution effect
+    private final HashMap<Integer, LocalPollutionEffect> appliedPollutions;
+
+    // robots whose effect may differ from the applied one
+    private final TIntArrayList changedRobots;
+
+    // tiles whose multiplier must be recomputed, and the box around them
+    private final TIntArrayList dirtyTiles;
+    private final boolean[] multiplierDirty;
+    private int dirtyMinX, dirtyMinY, dirtyMaxX, dirtyMaxY;
+
+    private boolean needsUpdate;
+
+    // incremented whenever an update may change the pollution at some tile
+    private int epoch;
+
+    /**
+     * Creates a pollution field over the given map, starting from the given
+     * pollution values.
+     *
+     * @param gm the map
+     * @param initialPollution the pollution at every tile before any effect
+     *                         is added; not modified
+     */
+    public PollutionField(LiveMap gm, int[] initialPollution) {
+        this.width = gm.getWidth();
+        this.height = gm.getHeight();
+        this.originX = gm.getOrigin().x;
+        this.originY = gm.getOrigin().y;
+
+        int size = width * height;
+        this.initialPollution = initialPollution;
+        this.additive = new int[size];
+        this.multiplier = new float[size];
+        for (int i = 0; i < size; i++)
+            this.multiplier[i] = 1;
+
+        this.globalPollution = 0;
+        this.localPollutions = new TreeMap<>();
+        this.appliedPollutions = new HashMap<>();
+        this.changedRobots = new TIntArrayList();
+        this.dirtyTiles = new TIntArrayList();
+        this.multiplierDirty = new boolean[size];
+        resetDirtyBox();
+
+        // the initial map pollution is reported until something changes,
+        // then every tile is worked out from the effects
+        this.fromMap = true;
+        this.needsUpdate = false;
+    }
+
+    // *********************************
+    // ****** QUERIES ******************
+    // *********************************
+
+    /**
+     * Returns the pollution at a location, or 0 if the location is invalid.
+     *
+     * @param loc the location
+     * @return the pollution at the location
+     */
+    public int getPollution(MapLocation loc) {
+        int x = loc.x - originX;
+        int y = loc.y - originY;
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return 0;
+        if (needsUpdate)
+            update();
+        int idx = x + y * width;
+        if (fromMap)
+            return this.initialPollution[idx];
+        return Math.round((globalPollution + additive[idx]) * multiplier[idx]);
+    }
+
+    /**
+     * Returns the current epoch. The pollution at every tile stays the same
+     * for as long as the epoch does.
+     *
+     * @return the current epoch
+     */
+    public int getEpoch() {
+        if (needsUpdate)
+            update();
+        return this.epoch;
+    }
+
+    public int getGlobalPollution() {
+        return this.globalPollution;
+    }
+
+    // *********************************
+    // ****** MODIFIERS ****************
+    // *********************************
+
+    public void addLocalPollution(int robotID, MapLocation loc, int radiusSquared, int additive, float multiplicative) {
+        localPollutions.put(robotID, new LocalPollutionEffect(loc, radiusSquared, additive, multiplicative));
+        changedRobots.add(robotID);
+        needsUpdate = true;
+    }
+
+    public void resetPollutionForRobot(int robotID) {
+        localPollutions.remove(robotID);
+        changedRobots.add(robotID);
+        needsUpdate = true;
+    }
+
+    public void addGlobalPollution(int amount) {
+        int newGlobalPollution = Math.max(this.globalPollution + amount, 0);
+        if (newGlobalPollution != this.globalPollution)
+            globalChanged = true;
+        this.globalPollution = newGlobalPollution;
+        needsUpdate = true;
+    }
+
+    // *********************************
+    // ****** UPDATING *****************
+    // *********************************
+
+    /**
+     * Brings the sums and products up to date with the active effects,
+     * touching only the disks of effects that actually changed.
+     */
+    private void update() {
+        // a change anywhere changes every tile that was read from the map
+        boolean changed = fromMap || globalChanged;
+        for (int i = 0; i < changedRobots.size(); i++) {
+            Integer robotID = changedRobots.get(i);
+            LocalPollutionEffect applied = appliedPollutions.get(robotID);
+            LocalPollutionEffect current = localPollutions.get(robotID);
+            if (current == applied || (current != null && current.sameAs(applied)))
+                continue;
+            changed = true;
+            if (applied != null) {
+                stamp(applied, -1);
+                appliedPollutions.remove(robotID);
+            }
+            if (current != null) {
+                stamp(current, 1);
+                appliedPollutions.put(robotID, current);
+            }
+        }
+        changedRobots.resetQuick();
+
+        if (!dirtyTiles.isEmpty())
+            updateMultipliers();
+
+        if (changed)
+            epoch++;
+        fromMap = false;
+        globalChanged = false;
+        needsUpdate = false;
+    }
+
+    /**
+     * Adds (sign = 1) or removes (sign = -1) an effect from every tile it covers.
+     */
+    private void stamp(LocalPollutionEffect effect, int sign) {
+        int cx = effect.loc.x - originX;
+        int cy = effect.loc.y - originY;
+        RadiusOffsets offsets = RadiusOffsets.get(effect.radiusSquared);
+        boolean multiplicative = effect.multiplicativeEffect != 1;
+        for (int i = 0; i < offsets.length; i++) {
+            int x = cx + offsets.getDx(i);
+            int y = cy + offsets.getDy(i);
+            if (x < 0 || y < 0 || x >= width || y >= height)
+                continue;
+            int idx = x + y * width;
+            additive[idx] += sign * effect.additiveEffect;
+            if (multiplicative && !multiplierDirty[idx]) {
+                multiplierDirty[idx] = true;
+                dirtyTiles.add(idx);
+                dirtyMinX = Math.min(dirtyMinX, x);
+                dirtyMinY = Math.min(dirtyMinY, y);
+                dirtyMaxX = Math.max(dirtyMaxX, x);
+                dirtyMaxY = Math.max(dirtyMaxY, y);
+            }
+        }
+    }
+
+    /**
+     * Recomputes the product of the multiplicative effects covering every
+     * dirty tile, multiplying them in robot ID order. Only the effects whose
+     * disks reach the box around the dirty tiles are looked at.
+     */
+    private void updateMultipliers() {
+        for (int i = 0; i < dirtyTiles.size(); i++)
+            multiplier[dirtyTiles.getQuick(i)] = 1;
+
+        for (LocalPollutionEffect effect : localPollutions.values()) {
+            if (effect.multiplicativeEffect == 1)
+                continue;
+            int cx = effect.loc.x - originX;
+            int cy = effect.loc.y - originY;
+            int reach = (int) Math.sqrt(effect.radiusSquared);
+            if (cx + reach < dirtyMinX || cx - reach > dirtyMaxX
+                    || cy + reach < dirtyMinY || cy - reach > dirtyMaxY)
+                continue;
+            RadiusOffsets offsets = RadiusOffsets.get(effect.radiusSquared);
+            for (int i = 0; i < offsets.length; i++) {
+                int x = cx + offsets.getDx(i);
+                int y = cy + offsets.getDy(i);
+                if (x < 0 || y < 0 || x >= width || y >= height)
+                    continue;
+                int idx = x + y * width;
+                if (multiplierDirty[idx])
+                    multiplier[idx] *= effect.multiplicativeEffect;
+            }
+        }
+
+        for (int i = 0; i < dirtyTiles.size(); i++)
+            multiplierDirty[dirtyTiles.getQuick(i)] = false;
+        dirtyTiles.resetQuick();
+        resetDirtyBox();
+    }
+
+    private void resetDirtyBox() {
+        dirtyMinX = Integer.MAX_VALUE;
+        dirtyMinY = Integer.MAX_VALUE;
+        dirtyMaxX = Integer.MIN_VALUE;
+        dirtyMaxY = Integer.MIN_VALUE;
+    }
+}
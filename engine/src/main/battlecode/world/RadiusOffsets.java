@@ -0,0 +1,114 @@
+package battlecode.world;
+
+import java.util.Arrays;
+
+/**
+ * The (dx, dy) offsets of every tile within a given squared radius of a
+ * center tile, sorted by increasing distance. Tables are computed once per
+ * radius and shared, so radius queries can walk them without allocating.
+ *
+ * Offsets at the same distance are ordered by dx, then dy.
+ */
+public final class RadiusOffsets {
+
+    /**
+     * Tables indexed by radius squared, grown as larger radii are requested.
+     */
+    private static volatile RadiusOffsets[] cache = new RadiusOffsets[0];
+
+    /**
+     * The squared radius this table covers.
+     */
+    public final int radiusSquared;
+
+    /**
+     * The number of offsets in the table.
+     */
+    public final int length;
+
+    /**
+     * The x offsets, sorted by increasing distance.
+     */
+    private final int[] dx;
+
+    /**
+     * The y offsets, sorted by increasing distance.
+     */
+    private final int[] dy;
+
+    /**
+     * The squared distance of each offset.
+     */
+    private final int[] distanceSquared;
+
+    private RadiusOffsets(int radiusSquared) {
+        this.radiusSquared = radiusSquared;
+
+        int r = (int) Math.sqrt(radiusSquared);
+        long[] keys = new long[(2 * r + 1) * (2 * r + 1)];
+        int count = 0;
+        for (int x = -r; x <= r; x++) {
+            for (int y = -r; y <= r; y++) {
+                int d = x * x + y * y;
+                if (d > radiusSquared)
+                    continue;
+                // sort by distance, then dx, then dy
+                keys[count++] = ((long) d << 32) | ((long) (x + r) << 16) | (y + r);
+            }
+        }
+        Arrays.sort(keys, 0, count);
+
+        this.length = count;
+        this.dx = new int[count];
+        this.dy = new int[count];
+        this.distanceSquared = new int[count];
+        for (int i = 0; i < count; i++) {
+            this.distanceSquared[i] = (int) (keys[i] >>> 32);
+            this.dx[i] = (int) ((keys[i] >>> 16) & 0xFFFF) - r;
+            this.dy[i] = (int) (keys[i] & 0xFFFF) - r;
+        }
+    }
+
+    /**
+     * Returns the table for a squared radius.
+     *
+     * @param radiusSquared the squared radius; negative radii give an empty table
+     * @return the offsets within that squared radius
+     */
+    public static RadiusOffsets get(int radiusSquared) {
+        if (radiusSquared < 0)
+            radiusSquared = -1;
+        RadiusOffsets[] tables = cache;
+        int slot = radiusSquared + 1;
+        if (slot < tables.length && tables[slot] != null)
+            return tables[slot];
+        return compute(radiusSquared);
+    }
+
+    private static synchronized RadiusOffsets compute(int radiusSquared) {
+        int slot = radiusSquared + 1;
+        RadiusOffsets[] tables = cache;
+        if (slot >= tables.length)
+            tables = Arrays.copyOf(tables, Math.max(slot + 1, 2 * tables.length));
+        else if (tables[slot] != null)
+            return tables[slot];
+        else
+            tables = tables.clone();
+        RadiusOffsets table = new RadiusOffsets(radiusSquared);
+        tables[slot] = table;
+        cache = tables;
+        return table;
+    }
+
+    public int getDx(int i) {
+        return dx[i];
+    }
+
+    public int getDy(int i) {
+        return dy[i];
+    }
+
+    public int getDistanceSquared(int i) {
+        return distanceSquared[i];
+    }
+}
@@ -30,11 +30,6 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     private final InternalRobot robot;
 
-    /**
-     * An rng based on the world seed.
-     */
-    private static Random random;
-
     /**
      * Create a new RobotControllerImpl
      *
@@ -45,7 +40,7 @@ public final strictfp class RobotControllerImpl implements RobotController {
         this.gameWorld = gameWorld;
         this.robot = robot;
 
-        this.random = new Random(gameWorld.getMapSeed());
+        gameWorld.resetControllerRandom();
     }
 
     // *********************************
@@ -232,23 +227,25 @@ public final strictfp class RobotControllerImpl implements RobotController {
     @Override
     public RobotInfo[] senseNearbyRobots(MapLocation center, int radiusSquared, Team team) {
         assertNotNull(center);
-        int sensorRadiusSquaredUpperBound = (int) Math.ceil(this.robot.getCurrentSensorRadiusSquared());
-        InternalRobot[] allSensedRobots = gameWorld.getAllRobotsWithinRadiusSquared(center,
-                radiusSquared == -1 ? sensorRadiusSquaredUpperBound : Math.min(radiusSquared, sensorRadiusSquaredUpperBound));
-        List<RobotInfo> validSensedRobots = new ArrayList<>();
-        for(InternalRobot sensedRobot : allSensedRobots){
-            // check if this robot
-            if (sensedRobot.equals(this.robot))
-                continue;
-            // check if can sense
-            if (!canSenseLocation(sensedRobot.getLocation()))
-                continue;
-            // check if right team
-            if (team != null && sensedRobot.getTeam() != team)
-                continue;
-            validSensedRobots.add(sensedRobot.getRobotInfo());
-        }
-        return validSensedRobots.toArray(new RobotInfo[validSensedRobots.size()]);
+        int sensorRadiusSquared = this.robot.getCurrentSensorRadiusSquared();
+        return gameWorld.getSensedRobots(this.robot, sensorRadiusSquared, center,
+                radiusSquared == -1 ? sensorRadiusSquared : Math.min(radiusSquared, sensorRadiusSquared),
+                team);
+    }
+
+    @Override
+    public int[] senseNearbySoup() {
+        return gameWorld.getSoupAround(getLocation(), this.robot.getCurrentSensorRadiusSquared());
+    }
+
+    @Override
+    public int[] senseNearbyElevation() {
+        return gameWorld.getDirtAround(getLocation(), this.robot.getCurrentSensorRadiusSquared());
+    }
+
+    @Override
+    public boolean[] senseNearbyFlooding() {
+        return gameWorld.getFloodedAround(getLocation(), this.robot.getCurrentSensorRadiusSquared());
     }
 
     @Override
@@ -315,31 +312,114 @@ public final strictfp class RobotControllerImpl implements RobotController {
         return this.robot.getCooldownTurns();
     }
 
+    // ***********************************
+    // ****** ACTION CHECKS **************
+    // ***********************************
+
+    // Why an action can't be done. Each action's checkCanX method makes
+    // the same checks, in the same order, as its assertCanX always has,
+    // but returns the first that fails as one of these, or CAN, without
+    // allocating anything; canX is called every turn by most players, so
+    // it doesn't build a GameActionException and its message only to
+    // catch and drop it. Only assertCanX turns a reason into an exception.
+
+    private static final int CAN = 0;
+    private static final int WRONG_TYPE = 1;
+    private static final int NOT_ADJACENT = 2;
+    private static final int OFF_MAP = 3;
+    private static final int NOT_SENSED = 4;
+    private static final int OCCUPIED = 5;
+    private static final int TOO_STEEP = 6;
+    private static final int COOLING_DOWN = 7;
+    private static final int CANT_AFFORD = 8;
+    private static final int FLOODED = 9;
+    private static final int FULL = 10;
+    private static final int EMPTY = 11;
+    private static final int NOTHING_THERE = 12;
+    private static final int UNDER_BUILDING = 13;
+    private static final int HOLDING_UNIT = 14;
+    private static final int NO_SUCH_ROBOT = 15;
+    private static final int WRONG_TARGET = 16;
+    private static final int TOO_FAR = 17;
+    private static final int BLOCKED = 18;
+    private static final int TOO_LONG = 19;
+    private static final int BAD_COST = 20;
+
+    /**
+     * The check isLocationOccupied makes, without throwing.
+     *
+     * @return NOT_SENSED if the location can't be sensed, OCCUPIED if there
+     *         is a robot there, or CAN
+     */
+    private int checkUnoccupied(MapLocation loc) {
+        if (!canSenseLocation(loc))
+            return NOT_SENSED;
+        return this.gameWorld.getRobot(loc) != null ? OCCUPIED : CAN;
+    }
+
+    /**
+     * @param reason a reason that isn't particular to any action
+     * @return the exception for it
+     */
+    private static GameActionException actionException(int reason) {
+        switch (reason) {
+            case NOT_SENSED:
+                return new GameActionException(CANT_SENSE_THAT,
+                        "Target location not within sensor range");
+            case COOLING_DOWN:
+                return new GameActionException(IS_NOT_READY,
+                        "Robot is still cooling down! You need to wait before you can perform another action.");
+            default:
+                throw new IllegalArgumentException("Unknown reason: " + reason);
+        }
+    }
+
     // ***********************************
     // ****** MOVEMENT METHODS ***********
     // ***********************************
 
     private void assertCanMove(MapLocation loc) throws GameActionException {
+        int reason = checkCanMove(loc);
+        switch (reason) {
+            case CAN:
+                return;
+            case WRONG_TYPE:
+                throw new GameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot move.");
+            case NOT_ADJACENT:
+                throw new GameActionException(OUT_OF_RANGE,
+                        "Can only move to adjacent locations; " + loc + " is not adjacent to " + getLocation() + ".");
+            case OFF_MAP:
+                throw new GameActionException(OUT_OF_RANGE,
+                        "Can only move to locations on the map; " + loc + " is not on the map.");
+            case OCCUPIED:
+                throw new GameActionException(CANT_MOVE_THERE,
+                        "Cannot move to an occupied location; " + loc + " is occupied.");
+            case TOO_STEEP:
+                throw new GameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot fly, and the dirt difference to " + loc + " is " +
+                        gameWorld.getDirtDifference(getLocation(), loc) + " which is higher than the limit of " +
+                        GameConstants.MAX_DIRT_DIFFERENCE + " for non-flying units.");
+            default:
+                throw actionException(reason);
+        }
+    }
+
+    private int checkCanMove(MapLocation loc) {
         if (!getType().canMove())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot move.");
+            return WRONG_TYPE;
         if (!getLocation().isAdjacentTo(loc))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only move to adjacent locations; " + loc + " is not adjacent to " + getLocation() + ".");
-        if (!onTheMap(loc))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only move to locations on the map; " + loc + " is not on the map.");
-        if (isLocationOccupied(loc))
-            throw new GameActionException(CANT_MOVE_THERE,
-                    "Cannot move to an occupied location; " + loc + " is occupied.");
+            return NOT_ADJACENT;
+        if (!gameWorld.getGameMap().onTheMap(loc))
+            return OFF_MAP;
+        int unoccupied = checkUnoccupied(loc);
+        if (unoccupied != CAN)
+            return unoccupied;
         if (gameWorld.getDirtDifference(getLocation(), loc) > GameConstants.MAX_DIRT_DIFFERENCE && !getType().canFly())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot fly, and the dirt difference to " + loc + " is " +
-                    gameWorld.getDirtDifference(getLocation(), loc) + " which is higher than the limit of " +
-                    GameConstants.MAX_DIRT_DIFFERENCE + " for non-flying units.");
+            return TOO_STEEP;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return COOLING_DOWN;
+        return CAN;
     }
 
     @Override
@@ -349,11 +429,8 @@ public final strictfp class RobotControllerImpl implements RobotController {
     }
 
     private boolean canMove(MapLocation location) {
-        try {
-            assertNotNull(location);
-            assertCanMove(location);
-            return true;
-        } catch (GameActionException e) { return false; }
+        assertNotNull(location);
+        return checkCanMove(location) == CAN;
     }
 
     @Override
@@ -385,40 +462,60 @@ public final strictfp class RobotControllerImpl implements RobotController {
 
     private void assertCanBuildRobot(RobotType type, Direction dir) throws GameActionException {
         MapLocation spawnLoc = adjacentLocation(dir);
+        int reason = checkCanBuildRobot(type, spawnLoc);
+        switch (reason) {
+            case CAN:
+                return;
+            case WRONG_TYPE:
+                throw new GameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot build robots of type" + type + ".");
+            case CANT_AFFORD:
+                throw new GameActionException(NOT_ENOUGH_RESOURCE,
+                        "Not enough refined soup to build a robot of type" + type + ".");
+            case OFF_MAP:
+                throw new GameActionException(OUT_OF_RANGE,
+                        "Can only spawn to locations on the map; " + spawnLoc + " is not on the map.");
+            case OCCUPIED:
+                throw new GameActionException(CANT_MOVE_THERE,
+                        "Cannot spawn to an occupied location; " + spawnLoc + " is occupied.");
+            case FLOODED:
+                throw new GameActionException(CANT_DO_THAT,
+                        "Can only spawn delivery drones to flooded locations; " + spawnLoc + " is flooded but " + type + " is not a delivery drone.");
+            case TOO_STEEP:
+                throw new GameActionException(CANT_DO_THAT,
+                        "Can only spawn delivery drones to locations with high dirt difference; " +
+                        "the dirt difference to " + spawnLoc + " is " +
+                            gameWorld.getDirtDifference(getLocation(), spawnLoc) + " which is higher than the limit of " +
+                            GameConstants.MAX_DIRT_DIFFERENCE + " for non-flying units like " + type + ".");
+            default:
+                throw actionException(reason);
+        }
+    }
+
+    private int checkCanBuildRobot(RobotType type, MapLocation spawnLoc) {
         if (!getType().canBuild(type))
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot build robots of type" + type + ".");
+            return WRONG_TYPE;
         if (gameWorld.getTeamInfo().getSoup(getTeam()) < type.cost)
-            throw new GameActionException(NOT_ENOUGH_RESOURCE,
-                    "Not enough refined soup to build a robot of type" + type + ".");
-        if (!onTheMap(spawnLoc))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only spawn to locations on the map; " + spawnLoc + " is not on the map.");
-        if (isLocationOccupied(spawnLoc))
-            throw new GameActionException(CANT_MOVE_THERE,
-                    "Cannot spawn to an occupied location; " + spawnLoc + " is occupied.");
+            return CANT_AFFORD;
+        if (!gameWorld.getGameMap().onTheMap(spawnLoc))
+            return OFF_MAP;
+        int unoccupied = checkUnoccupied(spawnLoc);
+        if (unoccupied != CAN)
+            return unoccupied;
         if (gameWorld.isFlooded(spawnLoc) && type != RobotType.DELIVERY_DRONE)
-            throw new GameActionException(CANT_DO_THAT,
-                    "Can only spawn delivery drones to flooded locations; " + spawnLoc + " is flooded but " + type + " is not a delivery drone.");
+            return FLOODED;
         if (type != RobotType.DELIVERY_DRONE && gameWorld.getDirtDifference(getLocation(), spawnLoc) > GameConstants.MAX_DIRT_DIFFERENCE)
-            throw new GameActionException(CANT_DO_THAT,
-                    "Can only spawn delivery drones to locations with high dirt difference; " +
-                    "the dirt difference to " + spawnLoc + " is " +
-                        gameWorld.getDirtDifference(getLocation(), spawnLoc) + " which is higher than the limit of " +
-                        GameConstants.MAX_DIRT_DIFFERENCE + " for non-flying units like " + type + ".");
+            return TOO_STEEP;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return COOLING_DOWN;
+        return CAN;
     }
 
     @Override
     public boolean canBuildRobot(RobotType type, Direction dir) {
-        try {
-            assertNotNull(type);
-            assertNotNull(dir);
-            assertCanBuildRobot(type, dir);
-            return true;
-        } catch (GameActionException e) { return false; }
+        assertNotNull(type);
+        assertNotNull(dir);
+        return checkCanBuildRobot(type, adjacentLocation(dir)) == CAN;
     }
 
     @Override
@@ -446,21 +543,39 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     private void assertCanMineSoup(Direction dir) throws GameActionException {
         MapLocation center = adjacentLocation(dir);
+        int reason = checkCanMineSoup(center);
+        switch (reason) {
+            case CAN:
+                return;
+            case WRONG_TYPE:
+                throw new GameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot mine soup.");
+            case FULL:
+                throw new GameActionException(NOT_ENOUGH_RESOURCE,
+                        "No space to carry more soup; robot is already carrying " + getType().soupLimit + " units of soup.");
+            case OFF_MAP:
+                throw new GameActionException(OUT_OF_RANGE,
+                        "Can only mine from locations on the map; " + center + " is not on the map.");
+            case NOTHING_THERE:
+                throw new GameActionException(CANT_DO_THAT,
+                        center + " does not have any soup to mine.");
+            default:
+                throw actionException(reason);
+        }
+    }
+
+    private int checkCanMineSoup(MapLocation center) {
         if (!getType().canMine())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot mine soup.");
+            return WRONG_TYPE;
         if (getSoupCarrying() >= getType().soupLimit)
-            throw new GameActionException(NOT_ENOUGH_RESOURCE,
-                    "No space to carry more soup; robot is already carrying " + getType().soupLimit + " units of soup.");
-        if (!onTheMap(center))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only mine from locations on the map; " + center + " is not on the map.");
+            return FULL;
+        if (!gameWorld.getGameMap().onTheMap(center))
+            return OFF_MAP;
         if (gameWorld.getSoup(center) <= 0)
-            throw new GameActionException(CANT_DO_THAT,
-                    center + " does not have any soup to mine.");
+            return NOTHING_THERE;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return COOLING_DOWN;
+        return CAN;
     }
 
     /**
@@ -473,11 +588,8 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     @Override
     public boolean canMineSoup(Direction dir) {
-        try {
-            assertNotNull(dir);
-            assertCanMineSoup(dir);
-            return true;
-        } catch (GameActionException e) { return false; }
+        assertNotNull(dir);
+        return checkCanMineSoup(adjacentLocation(dir)) == CAN;
     }
 
     /**
@@ -506,22 +618,40 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     private void assertCanDepositSoup(Direction dir) throws GameActionException {
         MapLocation center = adjacentLocation(dir);
+        int reason = checkCanDepositSoup(center);
+        switch (reason) {
+            case CAN:
+                return;
+            case WRONG_TYPE:
+                throw new GameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot deposit soup.");
+            case EMPTY:
+                throw new GameActionException(NOT_ENOUGH_RESOURCE,
+                        "Robot is not carrying any soup available to be refined.");
+            case OFF_MAP:
+                throw new GameActionException(OUT_OF_RANGE,
+                        "Can only deposit soup to locations on the map; " + center + " is not on the map.");
+            case NOTHING_THERE:
+                throw new GameActionException(CANT_DO_THAT,
+                        center + " does not have a refinery or HQ.");
+            default:
+                throw actionException(reason);
+        }
+    }
+
+    private int checkCanDepositSoup(MapLocation center) {
         if (!getType().canDepositSoup())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot deposit soup.");
+            return WRONG_TYPE;
         if (getSoupCarrying() <= 0)
-            throw new GameActionException(NOT_ENOUGH_RESOURCE,
-                    "Robot is not carrying any soup available to be refined.");
-        if (!onTheMap(center))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only deposit soup to locations on the map; " + center + " is not on the map.");
+            return EMPTY;
+        if (!gameWorld.getGameMap().onTheMap(center))
+            return OFF_MAP;
         InternalRobot adjacentRobot = this.gameWorld.getRobot(center);
         if (adjacentRobot == null || !adjacentRobot.getType().canRefine())
-            throw new GameActionException(CANT_DO_THAT,
-                    center + " does not have a refinery or HQ.");
+            return NOTHING_THERE;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return COOLING_DOWN;
+        return CAN;
     }
 
     /**
@@ -534,11 +664,8 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     @Override
     public boolean canDepositSoup(Direction dir) {
-        try {
-            assertNotNull(dir);
-            assertCanDepositSoup(dir);
-            return true;
-        } catch (GameActionException e) { return false; }
+        assertNotNull(dir);
+        return checkCanDepositSoup(adjacentLocation(dir)) == CAN;
     }
 
     /**
@@ -573,23 +700,41 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     private void assertCanDigDirt(Direction dir) throws GameActionException {
         MapLocation center = adjacentLocation(dir);
+        int reason = checkCanDigDirt(center);
+        switch (reason) {
+            case CAN:
+                return;
+            case WRONG_TYPE:
+                throw new GameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot dig dirt.");
+            case FULL:
+                throw new GameActionException(NOT_ENOUGH_RESOURCE,
+                        "No space to carry more dirt; robot is already carrying " + getType().dirtLimit + " units of dirt.");
+            case OFF_MAP:
+                throw new GameActionException(OUT_OF_RANGE,
+                        "Can only dig dirt from locations on the map; " + center + " is not on the map.");
+            case UNDER_BUILDING:
+                throw new GameActionException(CANT_DO_THAT,
+                        "Can't dig dirt from underneath buildings; " + center + " has a " + this.gameWorld.getRobot(center).getType() + ".");
+            default:
+                throw actionException(reason);
+        }
+    }
+
+    private int checkCanDigDirt(MapLocation center) {
         if (!getType().canDig())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot dig dirt.");
+            return WRONG_TYPE;
         if (getDirtCarrying() >= getType().dirtLimit)
-            throw new GameActionException(NOT_ENOUGH_RESOURCE,
-                    "No space to carry more dirt; robot is already carrying " + getType().dirtLimit + " units of dirt.");
-        if (!onTheMap(center))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only dig dirt from locations on the map; " + center + " is not on the map.");
+            return FULL;
+        if (!gameWorld.getGameMap().onTheMap(center))
+            return OFF_MAP;
         InternalRobot adjacentRobot = this.gameWorld.getRobot(center);
         if (adjacentRobot != null)
             if (adjacentRobot.getType().isBuilding() && adjacentRobot.getDirtCarrying() <= 0)
-                throw new GameActionException(CANT_DO_THAT,
-                        "Can't dig dirt from underneath buildings; " + center + " has a " + adjacentRobot.getType() + ".");
+                return UNDER_BUILDING;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return COOLING_DOWN;
+        return CAN;
     }
 
     /**
@@ -601,11 +746,8 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     @Override
     public boolean canDigDirt(Direction dir) {
-        try {
-            assertNotNull(dir);
-            assertCanDigDirt(dir);
-            return true;
-        } catch (GameActionException e) { return false; }
+        assertNotNull(dir);
+        return checkCanDigDirt(adjacentLocation(dir)) == CAN;
     }
 
     /**
@@ -632,18 +774,34 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     private void assertCanDepositDirt(Direction dir) throws GameActionException {
         MapLocation center = adjacentLocation(dir);
+        int reason = checkCanDepositDirt(center);
+        switch (reason) {
+            case CAN:
+                return;
+            case WRONG_TYPE:
+                throw new GameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot deposit dirt.");
+            case EMPTY:
+                throw new GameActionException(NOT_ENOUGH_RESOURCE,
+                        "Robot is carrying " + getDirtCarrying() + " units of dirt, and thus cannot deposit any dirt.");
+            case OFF_MAP:
+                throw new GameActionException(OUT_OF_RANGE,
+                        "Can only deposit dirt to locations on the map; " + center + " is not on the map.");
+            default:
+                throw actionException(reason);
+        }
+    }
+
+    private int checkCanDepositDirt(MapLocation center) {
         if (!getType().canDepositDirt())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot deposit dirt.");
+            return WRONG_TYPE;
         if (getDirtCarrying() < 1)
-            throw new GameActionException(NOT_ENOUGH_RESOURCE,
-                    "Robot is carrying " + getDirtCarrying() + " units of dirt, and thus cannot deposit any dirt.");
-        if (!onTheMap(center))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only deposit dirt to locations on the map; " + center + " is not on the map.");
+            return EMPTY;
+        if (!gameWorld.getGameMap().onTheMap(center))
+            return OFF_MAP;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return COOLING_DOWN;
+        return CAN;
     }
 
     /**
@@ -655,11 +813,8 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     @Override
     public boolean canDepositDirt(Direction dir) {
-        try {
-            assertNotNull(dir);
-            assertCanDepositDirt(dir);
-            return true;
-        } catch (GameActionException e) { return false; }
+        assertNotNull(dir);
+        return checkCanDepositDirt(adjacentLocation(dir)) == CAN;
     }
 
     /**
@@ -689,29 +844,52 @@ public final strictfp class RobotControllerImpl implements RobotController {
      * @throws GameActionException
      */
     private void assertCanPickUpUnit(int id) throws GameActionException {
+        int reason = checkCanPickUpUnit(id);
+        switch (reason) {
+            case CAN:
+                return;
+            case WRONG_TYPE:
+                throw new GameActionException(CANT_PICK_UP_UNIT,
+                        "Robot is of type " + getType() + " which cannot pick up other units.");
+            case HOLDING_UNIT:
+                throw new GameActionException(CANT_PICK_UP_UNIT,
+                        "Robot is already holding a unit; you can't pick up another one!");
+            case NO_SUCH_ROBOT:
+                throw new GameActionException(NO_ROBOT_THERE,
+                        "No unit of ID " + id + " exists! Impossible to pick up nonexistent things.");
+            case WRONG_TARGET:
+                throw new GameActionException(CANT_PICK_UP_UNIT,
+                        "Cannot pick up any unit of type " + getRobotByID(id).getType() + ".");
+            case TOO_FAR:
+                throw new GameActionException(OUT_OF_RANGE,
+                        "Cannot pick up unit outside pickup radius; unit is " +
+                        getRobotByID(id).getLocation().distanceSquaredTo(getLocation()) +
+                                " squared distance away, but the pickup radius squared is " + GameConstants.DELIVERY_DRONE_PICKUP_RADIUS_SQUARED);
+            case BLOCKED:
+                throw new GameActionException(CANT_PICK_UP_UNIT,
+                        "Cannot pick up a unit that is currently picked up by another drone, which " + id + " is.");
+            default:
+                throw actionException(reason);
+        }
+    }
+
+    private int checkCanPickUpUnit(int id) {
         if (!getType().canPickUpUnits())
-            throw new GameActionException(CANT_PICK_UP_UNIT,
-                    "Robot is of type " + getType() + " which cannot pick up other units.");
+            return WRONG_TYPE;
         if (robot.isCurrentlyHoldingUnit())
-            throw new GameActionException(CANT_PICK_UP_UNIT,
-                    "Robot is already holding a unit; you can't pick up another one!");
-        if (getRobotByID(id) == null)
-            throw new GameActionException(NO_ROBOT_THERE,
-                    "No unit of ID " + id + " exists! Impossible to pick up nonexistent things.");
-        if (!getRobotByID(id).getType().canBePickedUp())
-            throw new GameActionException(CANT_PICK_UP_UNIT,
-                    "Cannot pick up any unit of type " + getRobotByID(id).getType() + ".");
-        if (!getRobotByID(id).getLocation().isWithinDistanceSquared(getLocation(), GameConstants.DELIVERY_DRONE_PICKUP_RADIUS_SQUARED))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Cannot pick up unit outside pickup radius; unit is " +
-                    getRobotByID(id).getLocation().distanceSquaredTo(getLocation()) +
-                            " squared distance away, but the pickup radius squared is " + GameConstants.DELIVERY_DRONE_PICKUP_RADIUS_SQUARED);
-        if (getRobotByID(id).isBlocked())
-            throw new GameActionException(CANT_PICK_UP_UNIT,
-                    "Cannot pick up a unit that is currently picked up by another drone, which " + id + " is.");
+            return HOLDING_UNIT;
+        InternalRobot targetRobot = getRobotByID(id);
+        if (targetRobot == null)
+            return NO_SUCH_ROBOT;
+        if (!targetRobot.getType().canBePickedUp())
+            return WRONG_TARGET;
+        if (!targetRobot.getLocation().isWithinDistanceSquared(getLocation(), GameConstants.DELIVERY_DRONE_PICKUP_RADIUS_SQUARED))
+            return TOO_FAR;
+        if (targetRobot.isBlocked())
+            return BLOCKED;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return COOLING_DOWN;
+        return CAN;
     }
 
     /**
@@ -724,10 +902,7 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     @Override
     public boolean canPickUpUnit(int id) {
-        try {
-            assertCanPickUpUnit(id);
-            return true;
-        } catch (GameActionException e) { return false; }
+        return checkCanPickUpUnit(id) == CAN;
     }
 
     /**
@@ -756,21 +931,40 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     private void assertCanDropUnit(Direction dir) throws GameActionException {
         MapLocation center = adjacentLocation(dir);
+        int reason = checkCanDropUnit(center);
+        switch (reason) {
+            case CAN:
+                return;
+            case WRONG_TYPE:
+                throw new GameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot drop off units.");
+            case EMPTY:
+                throw new GameActionException(NOT_ENOUGH_RESOURCE,
+                        "Robot is not currently holding any units to drop off.");
+            case OFF_MAP:
+                throw new GameActionException(OUT_OF_RANGE,
+                        "Can only drop units to locations on the map; " + center + " is not on the map.");
+            case OCCUPIED:
+                throw new GameActionException(CANT_MOVE_THERE,
+                        "Cannot drop off units to an occupied location; " + center + " is occupied.");
+            default:
+                throw actionException(reason);
+        }
+    }
+
+    private int checkCanDropUnit(MapLocation center) {
         if (!getType().canDropOffUnits())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot drop off units.");
+            return WRONG_TYPE;
         if (!this.robot.isCurrentlyHoldingUnit())
-            throw new GameActionException(NOT_ENOUGH_RESOURCE,
-                    "Robot is not currently holding any units to drop off.");
-        if (!onTheMap(center))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only drop units to locations on the map; " + center + " is not on the map.");
-        if (isLocationOccupied(center))
-            throw new GameActionException(CANT_MOVE_THERE,
-                    "Cannot drop off units to an occupied location; " + center + " is occupied.");
+            return EMPTY;
+        if (!gameWorld.getGameMap().onTheMap(center))
+            return OFF_MAP;
+        int unoccupied = checkUnoccupied(center);
+        if (unoccupied != CAN)
+            return unoccupied;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return COOLING_DOWN;
+        return CAN;
     }
 
     /**
@@ -782,11 +976,8 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     @Override
     public boolean canDropUnit(Direction dir) {
-        try {
-            assertNotNull(dir);
-            assertCanDropUnit(dir);
-            return true;
-        } catch (GameActionException e) { return false; }
+        assertNotNull(dir);
+        return checkCanDropUnit(adjacentLocation(dir)) == CAN;
     }
 
     /**
@@ -853,25 +1044,43 @@ public final strictfp class RobotControllerImpl implements RobotController {
      * @throws GameActionException
      */
     private void assertCanShootUnit(int id) throws GameActionException {
+        int reason = checkCanShootUnit(id);
+        switch (reason) {
+            case CAN:
+                return;
+            case WRONG_TYPE:
+                throw new GameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot shoot units.");
+            case NO_SUCH_ROBOT:
+                throw new GameActionException(NO_ROBOT_THERE,
+                        "No unit of ID " + id + " exists! Impossible to shoot nonexistent things.");
+            case WRONG_TARGET:
+                throw new GameActionException(CANT_DO_THAT,
+                        "Target robot is of type " + getRobotByID(id).getType() + " which cannot be shot.");
+            case TOO_FAR:
+                throw new GameActionException(OUT_OF_RANGE,
+                        "Cannot shoot unit outside shooting radius; unit is " +
+                        getRobotByID(id).getLocation().distanceSquaredTo(getLocation()) +
+                                " squared distance away, but the shooting radius squared is " + GameConstants.NET_GUN_SHOOT_RADIUS_SQUARED);
+            default:
+                throw actionException(reason);
+        }
+    }
+
+    private int checkCanShootUnit(int id) {
         InternalRobot targetRobot = getRobotByID(id);
         if (!getType().canShoot())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot shoot units.");
+            return WRONG_TYPE;
         if (targetRobot == null)
-            throw new GameActionException(NO_ROBOT_THERE,
-                    "No unit of ID " + id + " exists! Impossible to shoot nonexistent things.");
+            return NO_SUCH_ROBOT;
         if (!targetRobot.getType().canBeShot())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Target robot is of type " + targetRobot.getType() + " which cannot be shot.");
+            return WRONG_TARGET;
 
         if (!targetRobot.getLocation().isWithinDistanceSquared(getLocation(), GameConstants.NET_GUN_SHOOT_RADIUS_SQUARED))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Cannot shoot unit outside shooting radius; unit is " +
-                    targetRobot.getLocation().distanceSquaredTo(getLocation()) +
-                            " squared distance away, but the shooting radius squared is " + GameConstants.NET_GUN_SHOOT_RADIUS_SQUARED);
+            return TOO_FAR;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return COOLING_DOWN;
+        return CAN;
     }
 
     /**
@@ -883,10 +1092,7 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     @Override
     public boolean canShootUnit(int id) {
-        try {
-            assertCanShootUnit(id);
-            return true;
-        } catch (GameActionException e) { return false; }
+        return checkCanShootUnit(id) == CAN;
     }
 
     /**
@@ -930,25 +1136,39 @@ public final strictfp class RobotControllerImpl implements RobotController {
     // ***********************************
 
     private void assertCanSubmitTransaction(int[] message, int cost) throws GameActionException {
+        int reason = checkCanSubmitTransaction(message, cost);
+        switch (reason) {
+            case CAN:
+                return;
+            case TOO_LONG:
+                throw new GameActionException(TOO_LONG_BLOCKCHAIN_TRANSACTION,
+                        "Can only send " + Integer.toString(GameConstants.MAX_BLOCKCHAIN_TRANSACTION_LENGTH) +
+                                " integers in one message, not " + Integer.toString(message.length) + ".");
+            case CANT_AFFORD:
+                int teamSoup = gameWorld.getTeamInfo().getSoup(getTeam());
+                throw new GameActionException(NOT_ENOUGH_RESOURCE,
+                        "Tried to pay " + Integer.toString(cost) + " units of soup for a message, only has " + Integer.toString(teamSoup) + ".");
+            case BAD_COST:
+                throw new GameActionException(OUT_OF_RANGE,
+                        "Can only submit transactions with positive cost!");
+            default:
+                throw actionException(reason);
+        }
+    }
+
+    private int checkCanSubmitTransaction(int[] message, int cost) {
         if (message.length > GameConstants.MAX_BLOCKCHAIN_TRANSACTION_LENGTH)
-            throw new GameActionException(TOO_LONG_BLOCKCHAIN_TRANSACTION,
-                    "Can only send " + Integer.toString(GameConstants.MAX_BLOCKCHAIN_TRANSACTION_LENGTH) +
-                            " integers in one message, not " + Integer.toString(message.length) + ".");
-        int teamSoup = gameWorld.getTeamInfo().getSoup(getTeam());
+            return TOO_LONG;
         if (gameWorld.getTeamInfo().getSoup(getTeam()) < cost)
-            throw new GameActionException(NOT_ENOUGH_RESOURCE,
-                    "Tried to pay " + Integer.toString(cost) + " units of soup for a message, only has " + Integer.toString(teamSoup) + ".");
+            return CANT_AFFORD;
         if (cost <= 0)
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only submit transactions with positive cost!");
+            return BAD_COST;
+        return CAN;
     }
 
     @Override
     public boolean canSubmitTransaction(int[] message, int cost) {
-        try {
-            assertCanSubmitTransaction(message, cost);
-            return true;
-        } catch (GameActionException e) { return false; }
+        return checkCanSubmitTransaction(message, cost) == CAN;
     }
 
 
@@ -967,7 +1187,7 @@ public final strictfp class RobotControllerImpl implements RobotController {
         // pay!
         gameWorld.getTeamInfo().adjustSoup(getTeam(), -cost);
         // create a block chain entry
-        int id = random.nextInt();
+        int id = gameWorld.getControllerRandom().nextInt();
         Transaction transaction = new Transaction(cost, message.clone(), id);
         // add
         gameWorld.addTransaction(transaction);
@@ -987,9 +1207,8 @@ public final strictfp class RobotControllerImpl implements RobotController {
         if (roundNumber >= gameWorld.currentRound)
             throw new GameActionException(ROUND_OUT_OF_RANGE, "You cannot get the messages sent at round " + Integer.toString(roundNumber)
                 + "; you can only query previous rounds, and this is round " + Integer.toString(roundNumber) + ".");
-        // just get it!
-        Transaction[] transactions = gameWorld.blockchain.get(roundNumber-1).toArray(new Transaction[0]);
-        return transactions;
+        // every robot shares the block, so each gets its own copy to change
+        return gameWorld.getBlockchain().getBlock(roundNumber).clone();
     }
 
     // ***********************************
@@ -0,0 +1,242 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+
+import gnu.trove.impl.Constants;
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * The state of a set of robots, stored as parallel arrays indexed by slot.
+ *
+ * Live robots occupy slots 0 to size() - 1 with no gaps, so passes over the
+ * whole population are plain array scans. Removing a robot moves the robot
+ * in the last slot into the freed one, so slots are not stable; InternalRobot
+ * is a view that is told whenever its slot changes.
+ *
+ * A robot that is not in a table (before it spawns, or after it is destroyed)
+ * keeps its state in fields of its own, so its view keeps working.
+ */
+public strictfp class RobotTable {
+
+    private static final int NO_SLOT = -1;
+
+    private InternalRobot[] robots;
+    private int[] ids;
+    private RobotType[] types;
+    private Team[] teams;
+    private MapLocation[] locations;
+    private float[] cooldownTurns;
+    private int[] soupCarrying;
+    private int[] dirtCarrying;
+    private boolean[] blocked;
+
+    private int size;
+
+    private final TIntIntHashMap slotsByID;
+
+    public RobotTable(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.robots = new InternalRobot[capacity];
+        this.ids = new int[capacity];
+        this.types = new RobotType[capacity];
+        this.teams = new Team[capacity];
+        this.locations = new MapLocation[capacity];
+        this.cooldownTurns = new float[capacity];
+        this.soupCarrying = new int[capacity];
+        this.dirtCarrying = new int[capacity];
+        this.blocked = new boolean[capacity];
+        this.size = 0;
+        this.slotsByID = new TIntIntHashMap(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, 0, NO_SLOT);
+    }
+
+    // *********************************
+    // ****** QUERIES ******************
+    // *********************************
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the slot of a robot, or -1 if it isn't in the table.
+     *
+     * @param id the ID of the robot
+     * @return the slot of the robot
+     */
+    public int getSlot(int id) {
+        return slotsByID.get(id);
+    }
+
+    /**
+     * Returns the robot with the given ID, or null if it isn't in the table.
+     *
+     * @param id the ID of the robot
+     * @return the robot
+     */
+    public InternalRobot getRobotByID(int id) {
+        int slot = slotsByID.get(id);
+        return slot == NO_SLOT ? null : robots[slot];
+    }
+
+    public InternalRobot getRobot(int slot) {
+        return robots[slot];
+    }
+
+    public int getID(int slot) {
+        return ids[slot];
+    }
+
+    public RobotType getType(int slot) {
+        return types[slot];
+    }
+
+    public Team getTeam(int slot) {
+        return teams[slot];
+    }
+
+    public MapLocation getLocation(int slot) {
+        return locations[slot];
+    }
+
+    public float getCooldownTurns(int slot) {
+        return cooldownTurns[slot];
+    }
+
+    public int getSoupCarrying(int slot) {
+        return soupCarrying[slot];
+    }
+
+    public int getDirtCarrying(int slot) {
+        return dirtCarrying[slot];
+    }
+
+    public boolean isBlocked(int slot) {
+        return blocked[slot];
+    }
+
+    // *********************************
+    // ****** MODIFIERS ****************
+    // *********************************
+
+    public void setLocation(int slot, MapLocation loc) {
+        locations[slot] = loc;
+    }
+
+    public void setCooldownTurns(int slot, float turns) {
+        cooldownTurns[slot] = turns;
+    }
+
+    public void setSoupCarrying(int slot, int amount) {
+        soupCarrying[slot] = amount;
+    }
+
+    public void setDirtCarrying(int slot, int amount) {
+        dirtCarrying[slot] = amount;
+    }
+
+    public void setBlocked(int slot, boolean isBlocked) {
+        blocked[slot] = isBlocked;
+    }
+
+    /**
+     * Adds a new robot to the table.
+     *
+     * @return the slot of the robot
+     */
+    public int add(InternalRobot robot, int id, RobotType type, MapLocation loc, Team team) {
+        int slot = allocate(robot, id);
+        types[slot] = type;
+        teams[slot] = team;
+        locations[slot] = loc;
+        cooldownTurns[slot] = 0;
+        soupCarrying[slot] = 0;
+        dirtCarrying[slot] = 0;
+        blocked[slot] = false;
+        return slot;
+    }
+
+    /**
+     * Moves a robot that isn't in a table into this one.
+     *
+     * @param robot the robot
+     */
+    public void adopt(InternalRobot robot) {
+        int slot = add(robot, robot.getID(), robot.getType(), robot.getLocation(), robot.getTeam());
+        cooldownTurns[slot] = robot.getCooldownTurns();
+        soupCarrying[slot] = robot.getSoupCarrying();
+        dirtCarrying[slot] = robot.getDirtCarrying();
+        blocked[slot] = robot.isBlocked();
+        robot.setSlot(this, slot);
+    }
+
+    /**
+     * Removes a robot from the table. Its view keeps a copy of its state, so
+     * it still reports its last state.
+     *
+     * @param id the ID of the robot
+     */
+    public void destroy(int id) {
+        robots[slotsByID.get(id)].detach();
+        remove(id);
+    }
+
+    // *********************************
+    // ****** PRIVATE METHODS **********
+    // *********************************
+
+    private int allocate(InternalRobot robot, int id) {
+        if (size == robots.length)
+            grow();
+        int slot = size++;
+        robots[slot] = robot;
+        ids[slot] = id;
+        slotsByID.put(id, slot);
+        return slot;
+    }
+
+    private void copy(RobotTable from, int fromSlot, int slot) {
+        types[slot] = from.types[fromSlot];
+        teams[slot] = from.teams[fromSlot];
+        locations[slot] = from.locations[fromSlot];
+        cooldownTurns[slot] = from.cooldownTurns[fromSlot];
+        soupCarrying[slot] = from.soupCarrying[fromSlot];
+        dirtCarrying[slot] = from.dirtCarrying[fromSlot];
+        blocked[slot] = from.blocked[fromSlot];
+    }
+
+    /**
+     * Frees the slot of a robot by moving the last robot into it.
+     */
+    private void remove(int id) {
+        int slot = slotsByID.remove(id);
+        int last = --size;
+        if (slot != last) {
+            robots[slot] = robots[last];
+            ids[slot] = ids[last];
+            copy(this, last, slot);
+            slotsByID.put(ids[slot], slot);
+            robots[slot].setSlot(this, slot);
+        }
+        robots[last] = null;
+        types[last] = null;
+        teams[last] = null;
+        locations[last] = null;
+    }
+
+    private void grow() {
+        int capacity = robots.length * 2;
+        robots = Arrays.copyOf(robots, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        types = Arrays.copyOf(types, capacity);
+        teams = Arrays.copyOf(teams, capacity);
+        locations = Arrays.copyOf(locations, capacity);
+        cooldownTurns = Arrays.copyOf(cooldownTurns, capacity);
+        soupCarrying = Arrays.copyOf(soupCarrying, capacity);
+        dirtCarrying = Arrays.copyOf(dirtCarrying, capacity);
+        blocked = Arrays.copyOf(blocked, capacity);
+    }
+}
@@ -0,0 +1,188 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import battlecode.common.Team;
+
+import java.util.Arrays;
+
+/**
+ * The occupancy of every tile of the map: which robot stands on it, if any,
+ * and which team that robot belongs to.
+ *
+ * Robots are stored by ID in a dense grid indexed like the other per-tile
+ * arrays of the map (x + y * width, relative to the origin), alongside one
+ * occupancy bitset per team. Robots held by delivery drones are not on the
+ * map, so they are not in the index.
+ */
+public strictfp class SpatialIndex {
+
+    /**
+     * The ID stored for tiles without a robot.
+     */
+    public static final int NO_ROBOT = -1;
+
+    private static final int NUM_TEAMS = Team.values().length;
+
+    private final int width;
+    private final int height;
+    private final int originX;
+    private final int originY;
+
+    /**
+     * The ID of the robot on every tile, or NO_ROBOT.
+     */
+    private final int[] robotIDs;
+
+    /**
+     * For every team, a bitset of the tiles holding one of its robots.
+     */
+    private final long[][] teamOccupancy;
+
+    private int size;
+
+    public SpatialIndex(LiveMap gm) {
+        this.width = gm.getWidth();
+        this.height = gm.getHeight();
+        this.originX = gm.getOrigin().x;
+        this.originY = gm.getOrigin().y;
+
+        this.robotIDs = new int[width * height];
+        Arrays.fill(this.robotIDs, NO_ROBOT);
+        this.teamOccupancy = new long[NUM_TEAMS][(width * height + 63) >>> 6];
+        this.size = 0;
+    }
+
+    // *********************************
+    // ****** QUERIES ******************
+    // *********************************
+
+    /**
+     * Returns the index of a location, or -1 if it is off the map.
+     *
+     * @param loc the location
+     * @return the index of the location
+     */
+    public int indexOf(MapLocation loc) {
+        int x = loc.x - originX;
+        int y = loc.y - originY;
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return -1;
+        return x + y * width;
+    }
+
+    /**
+     * Returns the ID of the robot at a location, or NO_ROBOT if there is
+     * none or the location is off the map.
+     *
+     * @param loc the location
+     * @return the ID of the robot at the location
+     */
+    public int getRobotID(MapLocation loc) {
+        int idx = indexOf(loc);
+        return idx == -1 ? NO_ROBOT : robotIDs[idx];
+    }
+
+    /**
+     * Returns the ID of the robot at a location index, or NO_ROBOT.
+     *
+     * @param idx the index of the location
+     * @return the ID of the robot at the location
+     */
+    public int getRobotID(int idx) {
+        return robotIDs[idx];
+    }
+
+    public boolean isOccupied(int idx) {
+        return robotIDs[idx] != NO_ROBOT;
+    }
+
+    /**
+     * Returns whether a location index holds a robot of the given team.
+     *
+     * @param idx the index of the location
+     * @param team the team
+     * @return whether the location holds a robot of that team
+     */
+    public boolean isOccupiedBy(int idx, Team team) {
+        return (teamOccupancy[team.ordinal()][idx >>> 6] & (1L << idx)) != 0;
+    }
+
+    /**
+     * Returns the bitset of the tiles holding a robot of a team, bit idx & 63
+     * of word idx >>> 6 for location index idx. Not to be modified.
+     *
+     * @param team the team
+     * @return the team's occupancy bitset
+     */
+    long[] getOccupancy(Team team) {
+        return teamOccupancy[team.ordinal()];
+    }
+
+    /**
+     * Returns the number of robots on the map.
+     *
+     * @return the number of robots in the index
+     */
+    public int size() {
+        return size;
+    }
+
+    // *********************************
+    // ****** MODIFIERS ****************
+    // *********************************
+
+    /**
+     * Puts a robot on an empty location.
+     *
+     * @param loc the location
+     * @param id the ID of the robot
+     * @param team the team of the robot
+     */
+    public void add(MapLocation loc, int id, Team team) {
+        int idx = indexOf(loc);
+        if (robotIDs[idx] != NO_ROBOT)
+            throw new IllegalStateException("Location " + loc + " already holds robot " + robotIDs[idx]);
+        robotIDs[idx] = id;
+        teamOccupancy[team.ordinal()][idx >>> 6] |= 1L << idx;
+        size++;
+    }
+
+    /**
+     * Removes whatever robot is at a location.
+     *
+     * @param loc the location
+     */
+    public void remove(MapLocation loc) {
+        int idx = indexOf(loc);
+        if (robotIDs[idx] == NO_ROBOT)
+            return;
+        robotIDs[idx] = NO_ROBOT;
+        for (int t = 0; t < NUM_TEAMS; t++)
+            teamOccupancy[t][idx >>> 6] &= ~(1L << idx);
+        size--;
+    }
+
+    /**
+     * Moves the robot at one location to another, empty, location.
+     *
+     * @param start the location of the robot
+     * @param end the location to move it to
+     */
+    public void move(MapLocation start, MapLocation end) {
+        int from = indexOf(start);
+        int to = indexOf(end);
+        if (from == to)
+            return;
+        if (robotIDs[to] != NO_ROBOT)
+            throw new IllegalStateException("Location " + end + " already holds robot " + robotIDs[to]);
+        robotIDs[to] = robotIDs[from];
+        robotIDs[from] = NO_ROBOT;
+        for (int t = 0; t < NUM_TEAMS; t++) {
+            long[] bits = teamOccupancy[t];
+            if ((bits[from >>> 6] & (1L << from)) != 0) {
+                bits[from >>> 6] &= ~(1L << from);
+                bits[to >>> 6] |= 1L << to;
+            }
+        }
+    }
+}
@@ -42,7 +42,7 @@ public class CowControlProvider implements RobotControlProvider {
     /**
      * An rng based on the world seed.
      */
-    private static Random random;
+    private Random random;
 
 
     /**
@@ -0,0 +1,30 @@
+package com.google.flatbuffers;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bulk writes into a FlatBufferBuilder. This version of flatbuffers can
+ * only add the elements of a vector one at a time, and keeps where it's
+ * writing to itself; this lives in its package to get at it.
+ *
+ * Nothing but battlecode.util.FlatColumn should need this.
+ */
+public final class FlatBufferVectors {
+
+    private FlatBufferVectors() {}
+
+    /**
+     * Add the elements of a vector all at once, between startVector and
+     * endVector, in place of adding them one by one.
+     *
+     * @param builder the builder, with the vector started
+     * @param elements the elements, in order, already little-endian, from
+     *                 their position to their limit; that must be exactly
+     *                 the size the vector was started with
+     */
+    public static void putElements(FlatBufferBuilder builder, ByteBuffer elements) {
+        builder.space -= elements.remaining();
+        builder.bb.position(builder.space);
+        builder.bb.put(elements);
+    }
+}
@@ -0,0 +1,108 @@
+package battlecode.instrumenter;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the on-disk instrumented class cache returns exactly what was
+ * put in it, and ignores entries that have been damaged.
+ */
+public class InstrumentedClassCacheTest {
+
+    private static final byte[] TEAM = {1, 2, 3};
+    private static final byte[] CLASS = {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0, 0, 52};
+    private static final byte[] INSTRUMENTED = {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0, 0, 52, 7};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private InstrumentedClassCache cache;
+
+    @Before
+    public void createCache() throws IOException {
+        directory = folder.newFolder("battlecode-cache").toPath();
+        cache = new InstrumentedClassCache(directory);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        String key = InstrumentedClassCache.key("team/RobotPlayer", CLASS, TEAM, true, false);
+        assertNull(cache.get(key));
+        cache.put(key, INSTRUMENTED);
+        assertArrayEquals(INSTRUMENTED, cache.get(key));
+
+        // a second cache on the same directory sees it too
+        assertArrayEquals(INSTRUMENTED, new InstrumentedClassCache(directory).get(key));
+    }
+
+    @Test
+    public void testKeyCoversInputs() {
+        String key = InstrumentedClassCache.key("team/RobotPlayer", CLASS, TEAM, true, false);
+        assertEquals(key, InstrumentedClassCache.key("team/RobotPlayer", CLASS.clone(), TEAM.clone(), true, false));
+
+        byte[] otherClass = CLASS.clone();
+        otherClass[7]++;
+        assertNotEquals(key, InstrumentedClassCache.key("team/Other", CLASS, TEAM, true, false));
+        assertNotEquals(key, InstrumentedClassCache.key("team/RobotPlayer", otherClass, TEAM, true, false));
+        assertNotEquals(key, InstrumentedClassCache.key("team/RobotPlayer", CLASS, new byte[]{1, 2, 4}, true, false));
+        assertNotEquals(key, InstrumentedClassCache.key("team/RobotPlayer", CLASS, TEAM, false, false));
+        assertNotEquals(key, InstrumentedClassCache.key("team/RobotPlayer", CLASS, TEAM, true, true));
+    }
+
+    @Test
+    public void testIgnoresDamagedEntries() throws IOException {
+        String key = InstrumentedClassCache.key("team/RobotPlayer", CLASS, TEAM, true, false);
+        cache.put(key, INSTRUMENTED);
+        Path file = directory.resolve(key);
+        byte[] entry = Files.readAllBytes(file);
+
+        // every truncation and every flipped byte is caught
+        for (int length = 0; length < entry.length; length++) {
+            Files.write(file, Arrays.copyOf(entry, length));
+            assertNull("truncated to " + length, cache.get(key));
+        }
+        for (int i = 0; i < entry.length; i++) {
+            byte[] damaged = entry.clone();
+            damaged[i] ^= 0x10;
+            Files.write(file, damaged);
+            assertNull("flipped byte " + i, cache.get(key));
+        }
+
+        // an entry filed under the wrong key
+        String otherKey = InstrumentedClassCache.key("team/Other", CLASS, TEAM, true, false);
+        Files.write(directory.resolve(otherKey), entry);
+        assertNull(cache.get(otherKey));
+
+        // and can be replaced afterwards
+        cache.put(key, INSTRUMENTED);
+        assertArrayEquals(INSTRUMENTED, cache.get(key));
+    }
+
+    @Test
+    public void testTeamDigest() throws IOException {
+        String[] classes = {
+                "battlecode/instrumenter/resources/ValueA.class",
+                "battlecode/instrumenter/resources/ValueB.class"
+        };
+        URL folder = new File(URLUtils.toTempFolder(classes)).toURI().toURL();
+        URL jar = new File(URLUtils.toTempJar(classes)).toURI().toURL();
+        URL other = new File(URLUtils.toTempFolder(classes[0])).toURI().toURL();
+
+        byte[] digest = InstrumentedClassCache.teamDigest(folder);
+        assertArrayEquals(digest, InstrumentedClassCache.teamDigest(folder));
+        assertArrayEquals(digest, InstrumentedClassCache.teamDigest(jar));
+        assertFalse(Arrays.equals(digest, InstrumentedClassCache.teamDigest(other)));
+    }
+}
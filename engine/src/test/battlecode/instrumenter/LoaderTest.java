@@ -401,6 +401,30 @@ public class LoaderTest {
         );
     }
 
+    @Test
+    public void testSharesSystemClasses() throws Exception {
+        final String name = "instrumented.java.util.ArrayList";
+        final byte[][] results = new byte[8][];
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread(() ->
+                    results[index] = TeamClassLoaderFactory.getInstrumentedSystemClass(name));
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // instrumented once...
+        for (byte[] result : results) {
+            assertSame(results[0], result);
+        }
+
+        // ...but still defined separately for every robot
+        assertNotSame(l1.loadClass(name), l2.loadClass(name));
+    }
+
     @Test
     public void testMaliciousURLs() {
         for (String badURL : new String[] {
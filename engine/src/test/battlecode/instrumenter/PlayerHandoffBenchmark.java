@@ -0,0 +1,64 @@
+package battlecode.instrumenter;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures how long it takes to hand a turn to a robot player and get it
+ * back, for every value of bc.engine.robot-backend, with as many players
+ * as a large match has robots. Not a unit test; run it with
+ * java -cp ... battlecode.instrumenter.PlayerHandoffBenchmark [players] [rounds]
+ */
+public class PlayerHandoffBenchmark {
+
+    private static final String[] BACKENDS = {"thread", "park", "virtual"};
+
+    public static void main(String[] args) throws InterruptedException {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        for (String backend : BACKENDS) {
+            // warm up, then measure
+            run(backend, players, rounds / 4, false);
+            run(backend, players, rounds, true);
+        }
+    }
+
+    private static void run(String backend, int players, int rounds, boolean report) throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int threadsBefore = threads.getThreadCount();
+
+        PlayerHandoff[] handoffs = new PlayerHandoff[players];
+        boolean[] stop = new boolean[1];
+        for (int i = 0; i < players; i++) {
+            PlayerHandoff handoff = PlayerHandoff.create(backend);
+            handoffs[i] = handoff;
+            handoff.start(() -> {
+                try {
+                    handoff.pause();
+                    while (!stop[0])
+                        handoff.pause();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    handoff.finish();
+                }
+            }, "player #" + i);
+        }
+        int platformThreads = threads.getThreadCount() - threadsBefore;
+
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++)
+            for (PlayerHandoff handoff : handoffs)
+                handoff.resume();
+        long elapsed = System.nanoTime() - start;
+
+        stop[0] = true;
+        for (PlayerHandoff handoff : handoffs)
+            handoff.resume();
+
+        if (report)
+            System.out.printf("%-8s %8.1f ns/turn (%d players, %d rounds, %d platform threads)%n",
+                    backend, (double) elapsed / ((long) players * rounds), players, rounds, platformThreads);
+    }
+}
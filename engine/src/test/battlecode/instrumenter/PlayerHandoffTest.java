@@ -0,0 +1,50 @@
+package battlecode.instrumenter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that every backend runs the engine and the player strictly in turn.
+ */
+public class PlayerHandoffTest {
+
+    private static final String[] BACKENDS = {"thread", "park", "virtual"};
+
+    @Test
+    public void testTakesTurns() throws InterruptedException {
+        for (String backend : BACKENDS) {
+            PlayerHandoff handoff = PlayerHandoff.create(backend);
+            // turns[0] is the engine's count, turns[1] the player's; not
+            // volatile, since the handoff should order them
+            int[] turns = new int[2];
+            Runnable body = () -> {
+                try {
+                    for (int i = 0; i < 1000; i++) {
+                        assertEquals(backend, turns[0], turns[1]);
+                        turns[1]++;
+                        handoff.pause();
+                    }
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    turns[1] = -1;
+                    handoff.finish();
+                }
+            };
+
+            handoff.start(body, "player");
+            for (int i = 0; i < 1000; i++) {
+                turns[0]++;
+                assertEquals(backend, turns[0], turns[1]);
+                handoff.resume();
+            }
+            assertEquals(backend, -1, turns[1]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownBackend() {
+        PlayerHandoff.create("fibers");
+    }
+}
@@ -7,18 +7,26 @@ import battlecode.common.Team;
 import battlecode.schema.Event;
 import battlecode.schema.GameHeader;
 import battlecode.schema.GameWrapper;
+import battlecode.schema.MatchFooter;
+import battlecode.schema.MatchHeader;
+import battlecode.schema.Round;
 import battlecode.util.TeamMapping;
 import battlecode.world.TestMapBuilder;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
 import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.*;
@@ -90,6 +98,10 @@ public class GameMakerTest {
         assertEquals(9, output.eventsLength());
         assertEquals(2, output.matchHeadersLength());
         assertEquals(2, output.matchFootersLength());
+        assertEquals(1, output.matchHeaders(0));
+        assertEquals(5, output.matchHeaders(1));
+        assertEquals(4, output.matchFooters(0));
+        assertEquals(7, output.matchFooters(1));
 
         assertEquals(Event.GameHeader, output.events(0).eType());
 
@@ -120,6 +132,187 @@ public class GameMakerTest {
         verify(mockServer, times(9)).addEvent(any(byte[].class));
     }
 
+    private void playMatch(GameMaker.MatchMaker mm, String mapName, int originX, int rounds) throws IOException {
+        mm.makeMatchHeader(new TestMapBuilder(mapName, originX, 3, 30, 30, 1337, 50, 0)
+                .addRobot(0, Team.A, RobotType.HQ, new MapLocation(originX, 3))
+                .addRobot(1, Team.B, RobotType.HQ, new MapLocation(originX + 25, 28))
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build());
+        for (int round = 0; round < rounds; round++) {
+            mm.addMoved(round, new MapLocation(originX + round, round));
+            mm.addDied(round + 100);
+            mm.getOut().write(("round " + round + " of " + mapName + "\n").getBytes(StandardCharsets.UTF_8));
+            mm.makeRound(round);
+        }
+        mm.makeMatchFooter(rounds % 2 == 0 ? Team.A : Team.B, rounds);
+    }
+
+    @Test
+    public void appendedMatchesMatchDirectOnes() throws Exception {
+        NetServer directServer = Mockito.mock(NetServer.class);
+        GameMaker direct = new GameMaker(info, directServer);
+        direct.makeGameHeader();
+        playMatch(direct.getMatchMaker(), "honolulu", 2, 3);
+        playMatch(direct.getMatchMaker(), "argentina", 55, 4);
+        direct.makeGameFooter(Team.A);
+
+        // record the matches separately, in the wrong order
+        GameMaker second = GameMaker.recordMatches(info);
+        playMatch(second.getMatchMaker(), "argentina", 55, 4);
+        GameMaker first = GameMaker.recordMatches(info);
+        playMatch(first.getMatchMaker(), "honolulu", 2, 3);
+
+        NetServer appendedServer = Mockito.mock(NetServer.class);
+        GameMaker appended = new GameMaker(info, appendedServer);
+        appended.makeGameHeader();
+        appended.appendMatches(first);
+        appended.appendMatches(second);
+        appended.makeGameFooter(Team.A);
+
+        // the client sees exactly the same packets
+        ArgumentCaptor<byte[]> directPackets = ArgumentCaptor.forClass(byte[].class);
+        verify(directServer, times(13)).addEvent(directPackets.capture());
+        ArgumentCaptor<byte[]> appendedPackets = ArgumentCaptor.forClass(byte[].class);
+        verify(appendedServer, times(13)).addEvent(appendedPackets.capture());
+        List<byte[]> expectedPackets = directPackets.getAllValues();
+        List<byte[]> actualPackets = appendedPackets.getAllValues();
+        for (int i = 0; i < expectedPackets.size(); i++)
+            assertArrayEquals("packet " + i, expectedPackets.get(i), actualPackets.get(i));
+
+        // and the files hold the same events
+        GameWrapper expected = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(ungzip(direct.toBytes())));
+        GameWrapper actual = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(ungzip(appended.toBytes())));
+        assertEquals(expected.eventsLength(), actual.eventsLength());
+        assertEquals(expected.matchHeadersLength(), actual.matchHeadersLength());
+        assertEquals(expected.matchFootersLength(), actual.matchFootersLength());
+        for (int i = 0; i < expected.eventsLength(); i++) {
+            assertEquals(expected.events(i).eType(), actual.events(i).eType());
+            switch (expected.events(i).eType()) {
+                case Event.MatchHeader:
+                    MatchHeader expectedHeader = (MatchHeader) expected.events(i).e(new MatchHeader());
+                    MatchHeader actualHeader = (MatchHeader) actual.events(i).e(new MatchHeader());
+                    assertEquals(expectedHeader.map().name(), actualHeader.map().name());
+                    assertEquals(expectedHeader.map().minCorner().x(), actualHeader.map().minCorner().x());
+                    assertEquals(expectedHeader.map().bodies().robotIDsLength(), actualHeader.map().bodies().robotIDsLength());
+                    break;
+                case Event.Round:
+                    Round expectedRound = (Round) expected.events(i).e(new Round());
+                    Round actualRound = (Round) actual.events(i).e(new Round());
+                    assertEquals(expectedRound.roundID(), actualRound.roundID());
+                    assertEquals(expectedRound.movedIDs(0), actualRound.movedIDs(0));
+                    assertEquals(expectedRound.movedLocs().xs(0), actualRound.movedLocs().xs(0));
+                    assertEquals(expectedRound.diedIDs(0), actualRound.diedIDs(0));
+                    assertEquals(expectedRound.logs(), actualRound.logs());
+                    break;
+                case Event.MatchFooter:
+                    MatchFooter expectedFooter = (MatchFooter) expected.events(i).e(new MatchFooter());
+                    MatchFooter actualFooter = (MatchFooter) actual.events(i).e(new MatchFooter());
+                    assertEquals(expectedFooter.winner(), actualFooter.winner());
+                    assertEquals(expectedFooter.totalRounds(), actualFooter.totalRounds());
+                    break;
+            }
+        }
+        for (int i = 0; i < expected.matchHeadersLength(); i++) {
+            assertEquals(expected.matchHeaders(i), actual.matchHeaders(i));
+            assertEquals(expected.matchFooters(i), actual.matchFooters(i));
+        }
+    }
+
+    @Test
+    public void writesGameToFile() throws Exception {
+        GameMaker written = new GameMaker(info, null);
+        written.makeGameHeader();
+        playMatch(written.getMatchMaker(), "honolulu", 2, 300);
+        written.makeGameFooter(Team.A);
+        File saveFile = File.createTempFile("battlecode-test", ".bc20");
+        saveFile.deleteOnExit();
+        written.writeGame(saveFile);
+
+        GameMaker inMemory = new GameMaker(info, null);
+        inMemory.makeGameHeader();
+        playMatch(inMemory.getMatchMaker(), "honolulu", 2, 300);
+        inMemory.makeGameFooter(Team.A);
+
+        byte[] fileBytes = ungzip(Files.readAllBytes(saveFile.toPath()));
+        assertArrayEquals(ungzip(inMemory.toBytes()), fileBytes);
+
+        GameWrapper output = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(fileBytes));
+        assertEquals(304, output.eventsLength());
+        assertEquals(Event.GameHeader, output.events(0).eType());
+        assertEquals(Event.MatchHeader, output.events(1).eType());
+        for (int i = 0; i < 300; i++) {
+            assertEquals(Event.Round, output.events(i + 2).eType());
+            assertEquals(i, ((Round) output.events(i + 2).e(new Round())).roundID());
+        }
+        assertEquals(Event.MatchFooter, output.events(302).eType());
+        assertEquals(Event.GameFooter, output.events(303).eType());
+
+        // the game can be written again until it's disposed of
+        written.writeGame(saveFile);
+        assertArrayEquals(fileBytes, ungzip(Files.readAllBytes(saveFile.toPath())));
+        assertArrayEquals(fileBytes, ungzip(written.toBytes()));
+        written.dispose();
+        inMemory.dispose();
+    }
+
+    private GameMaker recordingGame(String recording) throws IOException {
+        Config previous = Config.getGlobalConfig();
+        Config config = new Config(new String[0]);
+        config.set("bc.server.recording", recording);
+        Config.setGlobalConfig(config);
+        try {
+            GameMaker gm = new GameMaker(info, null);
+            gm.makeGameHeader();
+            GameMaker.MatchMaker mm = gm.getMatchMaker();
+            mm.addIndicatorDot(0, new MapLocation(1, 2), 255, 0, 0);
+            mm.addIndicatorLine(0, new MapLocation(1, 2), new MapLocation(3, 4), 0, 255, 0);
+            mm.addBytecodes(0, 1234);
+            playMatch(mm, "honolulu", 2, 3);
+            gm.makeGameFooter(Team.B);
+            return gm;
+        } finally {
+            Config.setGlobalConfig(previous);
+        }
+    }
+
+    @Test
+    public void selectiveRecordingLeavesOutDebugging() throws Exception {
+        GameWrapper output = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(ungzip(
+                recordingGame("selective").toBytes())));
+        assertEquals(7, output.eventsLength());
+        Round round = (Round) output.events(2).e(new Round());
+        assertEquals(0, round.movedIDs(0));
+        assertEquals(100, round.diedIDs(0));
+        assertEquals(0, round.indicatorDotIDsLength());
+        assertEquals(0, round.indicatorLineIDsLength());
+        assertEquals(0, round.bytecodeIDsLength());
+        assertEquals("", round.logs());
+    }
+
+    @Test
+    public void resultsRecordingOnlyKeepsWinners() throws Exception {
+        GameWrapper output = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(ungzip(
+                recordingGame("results").toBytes())));
+        assertEquals(4, output.eventsLength());
+        assertEquals(Event.GameHeader, output.events(0).eType());
+        assertEquals(Event.MatchHeader, output.events(1).eType());
+        assertEquals(Event.MatchFooter, output.events(2).eType());
+        assertEquals(Event.GameFooter, output.events(3).eType());
+        assertEquals(1, output.matchHeaders(0));
+        assertEquals(2, output.matchFooters(0));
+        MatchFooter footer = (MatchFooter) output.events(2).e(new MatchFooter());
+        assertEquals(TeamMapping.id(Team.B), footer.winner());
+        assertEquals(3, footer.totalRounds());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownRecording() throws Exception {
+        recordingGame("everything");
+    }
+
     public byte[] ungzip(byte[] in) throws IOException {
         ByteArrayOutputStream result = new ByteArrayOutputStream();
         IOUtils.copy(new GZIPInputStream(new ByteArrayInputStream(in)), result);
@@ -0,0 +1,389 @@
+package battlecode.server;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import battlecode.schema.Event;
+import battlecode.schema.EventWrapper;
+import battlecode.schema.Keyframe;
+import battlecode.schema.Round;
+import battlecode.world.TestMapBuilder;
+import org.java_websocket.WebSocket;
+import org.java_websocket.framing.CloseFrame;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class NetServerTest {
+
+    private final GameInfo info = new GameInfo(
+            "bananas", "org.bananas", null,
+            "yellow", "org.yellow", null,
+            new String[]{"honolulu"}, null, false
+    );
+
+    private Config previous;
+    private Config config;
+
+    /**
+     * A server that isn't started, whose clients have as many messages
+     * waiting to go out as the test says.
+     */
+    private static class TestServer extends NetServer {
+        volatile int queued;
+
+        TestServer() {
+            super(0, false);
+        }
+
+        @Override
+        int queuedMessages(WebSocket client) {
+            return queued;
+        }
+
+        /**
+         * Send until there's nothing more that can be sent.
+         */
+        void sendAll() {
+            while (sendEvents(false)) {}
+        }
+    }
+
+    @Before
+    public void setUp() {
+        previous = Config.getGlobalConfig();
+        config = new Config(new String[0]);
+        Config.setGlobalConfig(config);
+    }
+
+    @After
+    public void tearDown() {
+        Config.setGlobalConfig(previous);
+    }
+
+    private GameMaker.MatchMaker startMatch(GameMaker gm) {
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 4, 4, 1337, 50, 0)
+                .addRobot(0, Team.A, RobotType.HQ, new MapLocation(0, 0))
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build());
+        return mm;
+    }
+
+    private void playRounds(GameMaker.MatchMaker mm, int from, int to) {
+        for (int round = from; round <= to; round++) {
+            if (mm.isKeyframe(round)) {
+                mm.addKeyframe(new int[16], new boolean[16], new int[16], new int[16], 0);
+            }
+            mm.makeRound(round);
+        }
+    }
+
+    private static List<byte[]> sent(WebSocket client, int times) {
+        ArgumentCaptor<byte[]> events = ArgumentCaptor.forClass(byte[].class);
+        verify(client, times(times)).send(events.capture());
+        return events.getAllValues();
+    }
+
+    private static byte type(byte[] event) {
+        return EventWrapper.getRootAsEventWrapper(ByteBuffer.wrap(event)).eType();
+    }
+
+    private static Round round(byte[] event) {
+        return round(ByteBuffer.wrap(event));
+    }
+
+    private static Round round(ByteBuffer event) {
+        return (Round) EventWrapper.getRootAsEventWrapper(event).e(new Round());
+    }
+
+    private static List<ByteBuffer> batch(byte[] message) {
+        assertTrue(EventBatch.isBatch(ByteBuffer.wrap(message)));
+        return EventBatch.read(ByteBuffer.wrap(message));
+    }
+
+    private static byte type(ByteBuffer event) {
+        return EventWrapper.getRootAsEventWrapper(event).eType();
+    }
+
+    @Test
+    public void sendsEverythingToLateClients() {
+        TestServer server = new TestServer();
+        GameMaker gm = new GameMaker(info, server);
+        playRounds(startMatch(gm), 1, 10);
+
+        WebSocket client = mock(WebSocket.class);
+        server.onOpen(client, null);
+        server.sendAll();
+
+        List<byte[]> events = sent(client, 12);
+        assertEquals(Event.GameHeader, type(events.get(0)));
+        assertEquals(Event.MatchHeader, type(events.get(1)));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i + 1, round(events.get(i + 2)).roundID());
+        }
+    }
+
+    @Test
+    public void onlyFillsTheSendQueue() {
+        config.set("bc.server.client-queue-size", "4");
+        TestServer server = new TestServer();
+        WebSocket client = mock(WebSocket.class);
+        server.onOpen(client, null);
+        GameMaker gm = new GameMaker(info, server);
+        playRounds(startMatch(gm), 1, 10);
+
+        server.sendEvents(false);
+        sent(client, 4);
+
+        server.queued = 4;
+        assertFalse(server.sendEvents(false));
+        sent(client, 4);
+
+        server.queued = 3;
+        server.sendEvents(false);
+        sent(client, 5);
+
+        // everything goes once the server is finishing
+        assertTrue(server.sendEvents(true));
+        sent(client, 12);
+    }
+
+    @Test
+    public void disconnectsSlowClients() {
+        config.set("bc.server.client-max-lag", "5");
+        config.set("bc.server.slow-client", "disconnect");
+        TestServer server = new TestServer();
+        server.queued = 64;
+        WebSocket slow = mock(WebSocket.class);
+        server.onOpen(slow, null);
+        GameMaker gm = new GameMaker(info, server);
+        GameMaker.MatchMaker mm = startMatch(gm);
+        playRounds(mm, 1, 3);
+
+        // 5 events behind is fine
+        server.sendAll();
+        verify(slow, never()).close(anyInt(), anyString());
+
+        playRounds(mm, 4, 4);
+        server.sendAll();
+        verify(slow).close(eq(CloseFrame.GOING_AWAY), anyString());
+
+        server.queued = 0;
+        playRounds(mm, 5, 10);
+        server.sendAll();
+        verify(slow, never()).send(any(byte[].class));
+    }
+
+    @Test
+    public void skipsSlowClientsToKeyframes() {
+        config.set("bc.server.client-max-lag", "8");
+        config.set("bc.server.slow-client", "keyframe");
+        config.set("bc.server.keyframe-interval", "5");
+        TestServer server = new TestServer();
+        WebSocket slow = mock(WebSocket.class);
+        server.onOpen(slow, null);
+        GameMaker gm = new GameMaker(info, server);
+        GameMaker.MatchMaker mm = startMatch(gm);
+
+        server.queued = 64;
+        playRounds(mm, 1, 22);
+        server.queued = 0;
+        server.sendAll();
+
+        // the headers, then from round 20, which has the latest keyframe
+        List<byte[]> events = sent(slow, 5);
+        assertEquals(Event.GameHeader, type(events.get(0)));
+        assertEquals(Event.MatchHeader, type(events.get(1)));
+        assertEquals(20, round(events.get(2)).roundID());
+        assertNotNull(round(events.get(2)).keyframe(new Keyframe()));
+        assertEquals(21, round(events.get(3)).roundID());
+        assertEquals(22, round(events.get(4)).roundID());
+    }
+
+    @Test
+    public void throttlesTheEngineForSlowClients() throws Exception {
+        config.set("bc.server.client-max-lag", "3");
+        TestServer server = new TestServer();
+        server.queued = 64;
+        WebSocket slow = mock(WebSocket.class);
+        server.onOpen(slow, null);
+        GameMaker gm = new GameMaker(info, server);
+
+        Thread engine = new Thread(() -> playRounds(startMatch(gm), 1, 10));
+        engine.start();
+        engine.join(300);
+        // held up after the 4th event
+        assertTrue(engine.isAlive());
+
+        server.queued = 0;
+        while (engine.isAlive()) {
+            server.sendEvents(false);
+            Thread.sleep(1);
+        }
+        server.sendAll();
+        sent(slow, 12);
+    }
+
+    @Test
+    public void letsLateClientsCatchUp() throws Exception {
+        config.set("bc.server.client-max-lag", "3");
+        TestServer server = new TestServer();
+        GameMaker gm = new GameMaker(info, server);
+        GameMaker.MatchMaker mm = startMatch(gm);
+        playRounds(mm, 1, 10);
+
+        // 12 events behind on arrival, but only what comes after counts
+        server.queued = 64;
+        WebSocket late = mock(WebSocket.class);
+        server.onOpen(late, null);
+        Thread engine = new Thread(() -> playRounds(mm, 11, 13));
+        engine.start();
+        engine.join(1000);
+        assertFalse(engine.isAlive());
+
+        // but those still do
+        engine = new Thread(() -> playRounds(mm, 14, 15));
+        engine.start();
+        engine.join(300);
+        assertTrue(engine.isAlive());
+        server.queued = 0;
+        while (engine.isAlive()) {
+            server.sendEvents(false);
+            Thread.sleep(1);
+        }
+        server.sendAll();
+        sent(late, 17);
+    }
+
+    @Test
+    public void doesntDisconnectLateClients() {
+        config.set("bc.server.client-max-lag", "3");
+        config.set("bc.server.slow-client", "disconnect");
+        TestServer server = new TestServer();
+        GameMaker gm = new GameMaker(info, server);
+        playRounds(startMatch(gm), 1, 10);
+
+        WebSocket late = mock(WebSocket.class);
+        server.onOpen(late, null);
+        server.sendAll();
+        verify(late, never()).close(anyInt(), anyString());
+        sent(late, 12);
+    }
+
+    @Test
+    public void batchesRounds() {
+        config.set("bc.server.batch-rounds", "4");
+        TestServer server = new TestServer();
+        GameMaker gm = new GameMaker(info, server);
+        GameMaker.MatchMaker mm = startMatch(gm);
+        playRounds(mm, 1, 10);
+
+        WebSocket client = mock(WebSocket.class);
+        server.onOpen(client, null);
+        server.sendAll();
+
+        // the headers on their own, then two full batches
+        List<byte[]> messages = sent(client, 4);
+        assertEquals(1, batch(messages.get(0)).size());
+        assertEquals(Event.GameHeader, type(batch(messages.get(0)).get(0)));
+        assertEquals(Event.MatchHeader, type(batch(messages.get(1)).get(0)));
+        for (int i = 0; i < 2; i++) {
+            List<ByteBuffer> rounds = batch(messages.get(i + 2));
+            assertEquals(4, rounds.size());
+            for (int j = 0; j < 4; j++) {
+                assertEquals(i * 4 + j + 1, round(rounds.get(j)).roundID());
+            }
+        }
+
+        // the footer ends the last batch early
+        mm.makeMatchFooter(Team.A, 10);
+        server.sendAll();
+        messages = sent(client, 5);
+        List<ByteBuffer> last = batch(messages.get(4));
+        assertEquals(3, last.size());
+        assertEquals(9, round(last.get(0)).roundID());
+        assertEquals(10, round(last.get(1)).roundID());
+        assertEquals(Event.MatchFooter, type(last.get(2)));
+    }
+
+    @Test
+    public void sendsPartialBatchesInTime() throws Exception {
+        config.set("bc.server.batch-rounds", "0");
+        config.set("bc.server.batch-millis", "200");
+        TestServer server = new TestServer();
+        WebSocket client = mock(WebSocket.class);
+        server.onOpen(client, null);
+        GameMaker gm = new GameMaker(info, server);
+        GameMaker.MatchMaker mm = startMatch(gm);
+        playRounds(mm, 1, 3);
+
+        server.sendAll();
+        sent(client, 2);
+
+        Thread.sleep(250);
+        server.sendAll();
+        List<byte[]> messages = sent(client, 3);
+        assertEquals(3, batch(messages.get(2)).size());
+
+        // everything goes once the server is finishing
+        playRounds(mm, 4, 5);
+        server.sendEvents(true);
+        assertEquals(2, batch(sent(client, 4).get(3)).size());
+    }
+
+    @Test
+    public void readsBareEvents() {
+        TestServer server = new TestServer();
+        GameMaker gm = new GameMaker(info, server);
+        playRounds(startMatch(gm), 1, 1);
+        WebSocket client = mock(WebSocket.class);
+        server.onOpen(client, null);
+        server.sendAll();
+
+        byte[] bare = sent(client, 3).get(2);
+        assertFalse(EventBatch.isBatch(ByteBuffer.wrap(bare)));
+        List<ByteBuffer> events = EventBatch.read(ByteBuffer.wrap(bare));
+        assertEquals(1, events.size());
+        assertEquals(1, round(events.get(0)).roundID());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBatchesThatNeverFill() {
+        config.set("bc.server.batch-rounds", "0");
+        new TestServer();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBatchesBiggerThanTheLag() {
+        config.set("bc.server.batch-rounds", "100");
+        config.set("bc.server.client-max-lag", "50");
+        new TestServer();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsKeyframePolicyWithoutKeyframes() {
+        config.set("bc.server.slow-client", "keyframe");
+        new TestServer();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownPolicies() {
+        config.set("bc.server.slow-client", "ignore");
+        new TestServer();
+    }
+}
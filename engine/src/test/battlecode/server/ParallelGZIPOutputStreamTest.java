@@ -0,0 +1,155 @@
+package battlecode.server;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+import static org.junit.Assert.*;
+
+public class ParallelGZIPOutputStreamTest {
+
+    private static final int BLOCK = 128 * 1024;
+
+    /**
+     * Half random, half repetitive, like a replay.
+     */
+    private static byte[] data(int length, long seed) {
+        Random random = new Random(seed);
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (i / 1000) % 2 == 0 ? (byte) random.nextInt() : (byte) (i % 37);
+        }
+        return data;
+    }
+
+    private static byte[] gzip(byte[] data, int level, int threads, int chunk) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (ParallelGZIPOutputStream out = new ParallelGZIPOutputStream(result, level, threads)) {
+            for (int i = 0; i < data.length; i += chunk) {
+                out.write(data, i, Math.min(chunk, data.length - i));
+            }
+        }
+        return result.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] gzipped) throws IOException {
+        return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(gzipped)));
+    }
+
+    @Test
+    public void roundTrips() throws IOException {
+        int[] lengths = {0, 1, 1000, BLOCK - 1, BLOCK, BLOCK + 1, 5 * BLOCK + 12345};
+        for (int length : lengths) {
+            byte[] data = data(length, length);
+            for (int threads : new int[]{1, 4}) {
+                for (int level : new int[]{-1, 0, 1, 9}) {
+                    String what = length + " bytes, " + threads + " threads, level " + level;
+                    assertArrayEquals(what, data, gunzip(gzip(data, level, threads, 7919)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void singleByteWrites() throws IOException {
+        byte[] data = data(BLOCK + 100, 7);
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (ParallelGZIPOutputStream out = new ParallelGZIPOutputStream(result, 6, 2)) {
+            for (byte b : data) {
+                out.write(b);
+            }
+        }
+        assertArrayEquals(data, gunzip(result.toByteArray()));
+    }
+
+    @Test
+    public void sameOutputOnAnyNumberOfThreads() throws IOException {
+        byte[] data = data(3 * BLOCK + 5, 3);
+        byte[] expected = gzip(data, 6, 1, 65536);
+        assertArrayEquals(expected, gzip(data, 6, 3, 65536));
+        assertArrayEquals(expected, gzip(data, 6, 8, 1000));
+    }
+
+    @Test
+    public void isASingleGzipMember() throws Exception {
+        byte[] data = data(3 * BLOCK, 11);
+        byte[] gzipped = gzip(data, 6, 4, 65536);
+        assertEquals(0x1f, gzipped[0] & 0xff);
+        assertEquals(0x8b, gzipped[1] & 0xff);
+
+        // one deflate stream after the header, then just the trailer
+        Inflater inflater = new Inflater(true);
+        inflater.setInput(gzipped, 10, gzipped.length - 10);
+        byte[] inflated = new byte[data.length];
+        assertEquals(data.length, inflater.inflate(inflated));
+        assertTrue(inflater.finished());
+        assertEquals(8, inflater.getRemaining());
+        inflater.end();
+    }
+
+    @Test
+    public void compressesAboutAsWellAsGzip() throws IOException {
+        byte[] data = data(8 * BLOCK, 5);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(expected)) {
+            out.write(data);
+        }
+        int parallel = gzip(data, -1, 4, 65536).length;
+        assertTrue(parallel + " vs " + expected.size(), parallel < expected.size() * 1.01);
+    }
+
+    @Test
+    public void reusesDeflatersAndEndsThem() throws IOException {
+        byte[] data = data(10 * BLOCK, 10);
+        for (int threads : new int[]{1, 4}) {
+            ParallelGZIPOutputStream out = new ParallelGZIPOutputStream(new ByteArrayOutputStream(), 6, threads);
+            out.write(data, 0, data.length);
+            // no more than there can be blocks in flight, and just the one
+            // when every block is compressed in turn
+            int idle = out.idleDeflaters();
+            assertTrue(idle + " deflaters", idle <= 2 * threads);
+            if (threads == 1) {
+                assertEquals(1, idle);
+            }
+            out.finish();
+            assertEquals(0, out.idleDeflaters());
+        }
+    }
+
+    @Test
+    public void abortsWithoutClosing() throws IOException {
+        byte[] data = data(10 * BLOCK, 11);
+        boolean[] closed = new boolean[1];
+        OutputStream underlying = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        ParallelGZIPOutputStream out = new ParallelGZIPOutputStream(underlying, 6, 4);
+        out.write(data, 0, data.length);
+        out.abort();
+        assertEquals(0, out.idleDeflaters());
+        assertFalse(closed[0]);
+        try {
+            out.write(1);
+            fail("wrote after abort");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void refusesWritesAfterFinish() throws IOException {
+        ParallelGZIPOutputStream out = new ParallelGZIPOutputStream(new ByteArrayOutputStream(), 6, 2);
+        out.finish();
+        out.write(1);
+    }
+}
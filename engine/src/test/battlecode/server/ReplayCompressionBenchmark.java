@@ -0,0 +1,141 @@
+package battlecode.server;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import battlecode.world.TestMapBuilder;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares compressing replays with a single GZIPOutputStream, as replays
+ * used to be written, against ParallelGZIPOutputStream at a few levels and
+ * thread counts, for throughput and size. Not a unit test; run it with
+ * java -cp ... battlecode.server.ReplayCompressionBenchmark [replay.bc20 ...]
+ * Without replays, it makes up a long game to compress.
+ */
+public class ReplayCompressionBenchmark {
+
+    private static final int REPEATS = 5;
+
+    public static void main(String[] args) throws IOException {
+        List<byte[]> games = new ArrayList<>();
+        for (String arg : args) {
+            try (InputStream in = new GZIPInputStream(new FileInputStream(new File(arg)))) {
+                games.add(IOUtils.toByteArray(in));
+            }
+        }
+        if (games.isEmpty()) {
+            games.add(syntheticGame(3000, 200));
+        }
+        long total = 0;
+        for (byte[] game : games) {
+            total += game.length;
+        }
+        System.out.printf("%d replays, %.1f MB uncompressed%n", games.size(), total / 1e6);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        int[] threadCounts = processors > 1 ? new int[]{1, processors} : new int[]{1};
+        run(games, "GZIPOutputStream", (out) -> new GZIPOutputStream(out, 1 << 16));
+        for (int level : new int[]{1, 6, 9}) {
+            for (int threads : threadCounts) {
+                run(games, "parallel, level " + level + ", " + threads + " threads",
+                        (out) -> new ParallelGZIPOutputStream(out, level, threads));
+            }
+        }
+    }
+
+    private interface Compressor {
+        OutputStream wrap(OutputStream out) throws IOException;
+    }
+
+    private static void run(List<byte[]> games, String name, Compressor compressor) throws IOException {
+        long compressed = 0;
+        long uncompressed = 0;
+        for (byte[] game : games) {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            try (OutputStream out = compressor.wrap(result)) {
+                out.write(game);
+            }
+            compressed += result.size();
+            uncompressed += game.length;
+        }
+
+        // the first pass warmed up; time the rest
+        long start = System.nanoTime();
+        for (int i = 0; i < REPEATS; i++) {
+            for (byte[] game : games) {
+                try (OutputStream out = compressor.wrap(new NullOutputStream())) {
+                    out.write(game);
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%-36s %8.1f MB/s %6.2f%% of original%n", name,
+                uncompressed * REPEATS / seconds / 1e6, 100.0 * compressed / uncompressed);
+    }
+
+    /**
+     * A game where robots wander around and talk, for when there are no
+     * real replays at hand.
+     */
+    private static byte[] syntheticGame(int rounds, int robots) throws IOException {
+        GameInfo info = new GameInfo("bananas", "org.bananas", null,
+                "yellow", "org.yellow", null,
+                new String[]{"honolulu"}, null, false);
+        GameMaker gm = new GameMaker(info, null);
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 64, 64, 1337, rounds, 0)
+                .addRobot(0, Team.A, RobotType.HQ, new MapLocation(0, 0))
+                .addRobot(1, Team.B, RobotType.HQ, new MapLocation(63, 63))
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build());
+
+        Random random = new Random(1337);
+        int[] x = new int[robots];
+        int[] y = new int[robots];
+        for (int round = 0; round < rounds; round++) {
+            for (int id = 0; id < robots; id++) {
+                x[id] = Math.max(0, Math.min(63, x[id] + random.nextInt(3) - 1));
+                y[id] = Math.max(0, Math.min(63, y[id] + random.nextInt(3) - 1));
+                if (random.nextInt(3) == 0) {
+                    mm.addMoved(id, new MapLocation(x[id], y[id]));
+                }
+                mm.addBytecodes(id, random.nextInt(15000));
+                if (random.nextInt(20) == 0) {
+                    mm.addDirtChanged(new MapLocation(x[id], y[id]), random.nextInt(3) - 1);
+                }
+            }
+            mm.addTeamSoup(Team.A, round * 3);
+            mm.addTeamSoup(Team.B, round * 2);
+            mm.getOut().write(("[A:MINER#" + random.nextInt(robots) + "@" + round + "] mining\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            mm.makeRound(round);
+        }
+        mm.makeMatchFooter(Team.A, rounds);
+        gm.makeGameFooter(Team.A);
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gm.toBytes()))) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+}
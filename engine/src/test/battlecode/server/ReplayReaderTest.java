@@ -0,0 +1,201 @@
+package battlecode.server;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import battlecode.schema.GameFooter;
+import battlecode.schema.GameHeader;
+import battlecode.schema.Keyframe;
+import battlecode.schema.MatchFooter;
+import battlecode.schema.MatchHeader;
+import battlecode.schema.Round;
+import battlecode.util.TeamMapping;
+import battlecode.world.GameWorld;
+import battlecode.world.InternalRobot;
+import battlecode.world.TestGame;
+import battlecode.world.TestMapBuilder;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class ReplayReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final GameInfo info = new GameInfo(
+            "bananas", "org.bananas", null,
+            "yellow", "org.yellow", null,
+            new String[]{"honolulu", "argentina"}, null, false
+    );
+
+    private void playMatch(GameMaker.MatchMaker mm, String mapName, int rounds) {
+        mm.makeMatchHeader(new TestMapBuilder(mapName, 0, 0, 30, 30, 1337, 50, 0)
+                .addRobot(0, Team.A, RobotType.HQ, new MapLocation(0, 0))
+                .addRobot(1, Team.B, RobotType.HQ, new MapLocation(25, 25))
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build());
+        for (int round = 0; round < rounds; round++) {
+            mm.addMoved(round, new MapLocation(round, round));
+            mm.addTeamSoup(Team.A, 10 * round);
+            mm.addTeamSoup(Team.B, 20 * round);
+            mm.makeRound(round);
+        }
+        mm.makeMatchFooter(Team.B, rounds);
+    }
+
+    private File writeGame() {
+        GameMaker gm = new GameMaker(info, null);
+        gm.makeGameHeader();
+        playMatch(gm.getMatchMaker(), "honolulu", 3);
+        playMatch(gm.getMatchMaker(), "argentina", 40);
+        gm.makeGameFooter(Team.A);
+        File replay = new File(folder.getRoot(), "game.bc20");
+        gm.writeGame(replay);
+        return replay;
+    }
+
+    @Test
+    public void readsMatchesAndRounds() throws IOException {
+        Path cache = folder.newFolder("cache").toPath();
+        try (ReplayReader reader = ReplayReader.open(writeGame().toPath(), cache)) {
+            assertEquals("bananas", reader.gameHeader(new GameHeader()).teams(0).name());
+            assertEquals(TeamMapping.id(Team.A), reader.gameFooter(new GameFooter()).winner());
+
+            assertEquals(2, reader.matchCount());
+            assertEquals(3, reader.roundCount(0));
+            assertEquals(40, reader.roundCount(1));
+            assertEquals("argentina", reader.matchHeader(1, new MatchHeader()).map().name());
+            assertEquals(40, reader.matchFooter(1, new MatchFooter()).totalRounds());
+
+            Round round = reader.round(1, 17, new Round());
+            assertEquals(17, round.roundID());
+            assertEquals(17, round.movedIDs(0));
+            assertEquals(340, round.teamSoups(1));
+
+            int expected = 0;
+            for (Round r : reader.rounds(1)) {
+                assertEquals(expected, r.roundID());
+                assertEquals(10 * expected, r.teamSoups(0));
+                expected++;
+            }
+            assertEquals(40, expected);
+        }
+    }
+
+    @Test
+    public void inflatesOnce() throws IOException {
+        Path cache = folder.newFolder("cache").toPath();
+        Path replay = writeGame().toPath();
+        ReplayReader.open(replay, cache).close();
+        File[] cached = cache.toFile().listFiles();
+        assertEquals(1, cached.length);
+        long inflatedAt = cached[0].lastModified();
+
+        try (ReplayReader reader = ReplayReader.open(replay, cache)) {
+            assertEquals(2, reader.matchCount());
+        }
+        cached = cache.toFile().listFiles();
+        assertEquals(1, cached.length);
+        assertEquals(inflatedAt, cached[0].lastModified());
+    }
+
+    @Test
+    public void readsUncompressedReplays() throws IOException {
+        File replay = writeGame();
+        File raw = folder.newFile("game.raw");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(Files.readAllBytes(replay.toPath())))) {
+            Files.write(raw.toPath(), IOUtils.toByteArray(in));
+        }
+        Path cache = folder.newFolder("cache").toPath();
+        try (ReplayReader reader = ReplayReader.open(raw.toPath(), cache)) {
+            assertEquals(40, reader.roundCount(1));
+        }
+        assertEquals(0, cache.toFile().listFiles().length);
+    }
+
+    @Test
+    public void findsKeyframes() throws IOException {
+        Config previous = Config.getGlobalConfig();
+        Config config = new Config(new String[0]);
+        config.set("bc.server.keyframe-interval", "5");
+        Config.setGlobalConfig(config);
+        try {
+            GameMaker gm = new GameMaker(info, null);
+            gm.makeGameHeader();
+            GameMaker.MatchMaker mm = gm.getMatchMaker();
+            mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 4, 4, 1337, 50, 0)
+                    .addRobot(0, Team.A, RobotType.HQ, new MapLocation(0, 0))
+                    .setSoup()
+                    .setWater()
+                    .setPollution()
+                    .setDirt()
+                    .build());
+            GameWorld world = new TestGame(new TestMapBuilder("honolulu", 0, 0, 4, 4, 1337, 50, 0)
+                    .setSoup()
+                    .setWater()
+                    .setPollution()
+                    .setDirt()
+                    .build()).getWorld();
+            InternalRobot miner = new InternalRobot(world, 7, RobotType.MINER, new MapLocation(2, 3), Team.B);
+            for (int round = 1; round <= 23; round++) {
+                if (mm.isKeyframe(round)) {
+                    int[] soup = new int[16];
+                    soup[0] = round;
+                    mm.addKeyframe(new int[16], new boolean[16], new int[16], soup, 1.5f);
+                    mm.addKeyframeBody(miner);
+                }
+                mm.makeRound(round);
+            }
+            mm.makeMatchFooter(Team.B, 23);
+            gm.makeGameFooter(Team.B);
+            File replay = new File(folder.getRoot(), "keyframes.bc20");
+            gm.writeGame(replay);
+
+            try (ReplayReader reader = ReplayReader.open(replay.toPath(), folder.newFolder("cache").toPath())) {
+                // round n is at index n - 1
+                assertEquals(-1, reader.latestKeyframe(0, 3));
+                assertEquals(4, reader.latestKeyframe(0, 4));
+                assertEquals(14, reader.latestKeyframe(0, 18));
+                assertEquals(19, reader.latestKeyframe(0, 22));
+
+                Keyframe keyframe = reader.round(0, 14, new Round()).keyframe(new Keyframe());
+                assertEquals(15, keyframe.soup(0));
+                assertEquals(16, keyframe.dirtLength());
+                assertEquals(1.5f, keyframe.waterLevel(), 0);
+                assertEquals(7, keyframe.bodies().robotIDs(0));
+                assertEquals(3, keyframe.bodies().locs().ys(0));
+                assertNull(reader.round(0, 15, new Round()).keyframe(new Keyframe()));
+            }
+        } finally {
+            Config.setGlobalConfig(previous);
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsMissingRounds() throws IOException {
+        try (ReplayReader reader = ReplayReader.open(writeGame().toPath(), folder.newFolder("cache").toPath())) {
+            reader.round(0, 3, new Round());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        File other = folder.newFile("other");
+        Files.write(other.toPath(), new byte[]{1, 2});
+        ReplayReader.open(other.toPath(), folder.newFolder("cache").toPath());
+    }
+}
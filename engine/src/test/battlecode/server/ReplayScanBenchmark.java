@@ -0,0 +1,137 @@
+package battlecode.server;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import battlecode.schema.Round;
+import battlecode.util.Benchmark;
+import battlecode.world.TestMapBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Scans replays the way an analysis job would, adding up soup, bytecodes
+ * and robot moves over every round, and reports how fast that goes and how
+ * much it allocates. Not a unit test; run it with
+ * java -cp ... battlecode.server.ReplayScanBenchmark [replay directory]
+ * Without a directory, it makes up some replays to scan.
+ */
+public class ReplayScanBenchmark {
+
+    /**
+     * The soup and bytecodes scanned, so that adding them up isn't
+     * optimized away.
+     */
+    private static long sink;
+
+    public static void main(String[] args) throws IOException {
+        List<Path> replays = new ArrayList<>();
+        Path cache = Files.createTempDirectory("replay-cache");
+        if (args.length > 0) {
+            File[] files = new File(args[0]).listFiles((dir, name) -> name.endsWith(".bc20"));
+            for (File file : files) {
+                replays.add(file.toPath());
+            }
+        } else {
+            Path directory = Files.createTempDirectory("replays");
+            for (int i = 0; i < 20; i++) {
+                Path replay = directory.resolve("game" + i + ".bc20");
+                syntheticGame(replay.toFile(), 1000 + 50 * i, i);
+                replays.add(replay);
+            }
+        }
+
+        int rounds = 0;
+        for (Path replay : replays) {
+            try (ReplayReader reader = ReplayReader.open(replay, cache)) {
+                for (int match = 0; match < reader.matchCount(); match++) {
+                    rounds += reader.roundCount(match);
+                }
+            }
+        }
+
+        // a first scan inflates into an empty cache; the rest only read it
+        Benchmark.run("first scan", rounds, "moves", () -> scan(replays, emptyCache()));
+        for (int i = 0; i < 3; i++) {
+            Benchmark.run("cached scan", rounds, "moves", () -> scan(replays, cache));
+        }
+    }
+
+    private static Path emptyCache() {
+        try {
+            return Files.createTempDirectory("replay-cache");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the number of robot moves in the replays
+     */
+    private static int scan(List<Path> replays, Path cache) {
+        Round round = new Round();
+        long soup = 0;
+        long bytecodes = 0;
+        int moves = 0;
+        for (Path replay : replays) {
+            try (ReplayReader reader = ReplayReader.open(replay, cache)) {
+                for (int match = 0; match < reader.matchCount(); match++) {
+                    int roundCount = reader.roundCount(match);
+                    for (int i = 0; i < roundCount; i++) {
+                        reader.round(match, i, round);
+                        for (int team = 0; team < round.teamSoupsLength(); team++) {
+                            soup += round.teamSoups(team);
+                        }
+                        for (int robot = 0; robot < round.bytecodesUsedLength(); robot++) {
+                            bytecodes += round.bytecodesUsed(robot);
+                        }
+                        moves += round.movedIDsLength();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        sink += soup + bytecodes;
+        return moves;
+    }
+
+    private static void syntheticGame(File file, int rounds, long seed) {
+        GameInfo info = new GameInfo("bananas", "org.bananas", null,
+                "yellow", "org.yellow", null,
+                new String[]{"honolulu"}, null, false);
+        GameMaker gm = new GameMaker(info, null);
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 64, 64, 1337, rounds, 0)
+                .addRobot(0, Team.A, RobotType.HQ, new MapLocation(0, 0))
+                .addRobot(1, Team.B, RobotType.HQ, new MapLocation(63, 63))
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build());
+        Random random = new Random(seed);
+        for (int round = 0; round < rounds; round++) {
+            for (int id = 0; id < 50; id++) {
+                if (random.nextBoolean()) {
+                    mm.addMoved(id, new MapLocation(random.nextInt(64), random.nextInt(64)));
+                }
+                mm.addBytecodes(id, random.nextInt(15000));
+            }
+            mm.addTeamSoup(Team.A, round * 3);
+            mm.addTeamSoup(Team.B, round * 2);
+            mm.makeRound(round);
+        }
+        mm.makeMatchFooter(Team.A, rounds);
+        gm.makeGameFooter(Team.A);
+        gm.writeGame(file);
+    }
+}
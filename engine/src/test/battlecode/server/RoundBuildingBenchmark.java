@@ -0,0 +1,80 @@
+package battlecode.server;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import battlecode.util.Benchmark;
+import battlecode.world.TestMapBuilder;
+
+import java.util.Random;
+
+/**
+ * Tells a MatchMaker about a busy round, over and over, and reports how
+ * fast rounds are made and how much making them allocates, leaving out
+ * the rest of the engine. Not a unit test; run it with
+ * java -cp ... battlecode.server.RoundBuildingBenchmark
+ */
+public class RoundBuildingBenchmark {
+
+    private static final int ROBOTS = 500;
+    private static final int ROUNDS = 3000;
+
+    public static void main(String[] args) {
+        for (int i = 0; i < 3; i++) {
+            Benchmark.run("making rounds", ROUNDS, "rounds", RoundBuildingBenchmark::play);
+        }
+    }
+
+    /**
+     * Play a match of busy rounds.
+     *
+     * @return the number of rounds made
+     */
+    private static int play() {
+        GameInfo info = new GameInfo("bananas", "org.bananas", null,
+                "yellow", "org.yellow", null,
+                new String[]{"honolulu"}, null, false);
+        GameMaker gm = new GameMaker(info, null);
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 64, 64, 1337, ROUNDS, 0)
+                .addRobot(0, Team.A, RobotType.HQ, new MapLocation(0, 0))
+                .addRobot(1, Team.B, RobotType.HQ, new MapLocation(63, 63))
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build());
+
+        Random random = new Random(1337);
+        MapLocation[] locs = new MapLocation[64];
+        for (int i = 0; i < locs.length; i++) {
+            locs[i] = new MapLocation(random.nextInt(64), random.nextInt(64));
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int id = 0; id < ROBOTS; id++) {
+                MapLocation loc = locs[(id + round) & 63];
+                mm.addMoved(id, loc);
+                mm.addBytecodes(id, 7000 + id);
+                mm.addIndicatorDot(id, loc, 255, 0, 0);
+                if (id % 4 == 0) {
+                    mm.addAction(id, (byte) 3, id + 1);
+                    mm.addDirtChanged(loc, 1);
+                }
+                if (id % 16 == 0) {
+                    mm.addLocalPollution(loc, 35, 100, 1.2f);
+                    mm.addNewMessage(id, "1 2 3 4 5 6 7");
+                }
+            }
+            mm.addTeamSoup(Team.A, round);
+            mm.addTeamSoup(Team.B, round);
+            mm.makeRound(round);
+        }
+
+        mm.makeMatchFooter(Team.A, ROUNDS);
+        gm.makeGameFooter(Team.A);
+        gm.dispose();
+        return ROUNDS;
+    }
+}
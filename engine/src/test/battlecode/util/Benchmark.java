@@ -0,0 +1,41 @@
+package battlecode.util;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * The timing the benchmarks share: a body is run once to warm it up, then
+ * again while the time it takes and the bytes it allocates are measured.
+ */
+public final class Benchmark {
+
+    /**
+     * Something to time; returns a count, so that the work can't be
+     * optimized away and so that alternatives can be checked to agree.
+     */
+    public interface Body {
+        int run();
+    }
+
+    private Benchmark() {}
+
+    /**
+     * Time a body and print the time and bytes allocated per operation.
+     *
+     * @param name what's being timed
+     * @param operations how many operations one run of the body does
+     * @param counted what the body's result counts, like "robots"
+     * @param body the body
+     */
+    public static void run(String name, int operations, String counted, Body body) {
+        body.run();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        int result = body.run();
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%-26s %8.1f ns/op %8.1f bytes/op (%d %s)%n",
+                name, (double) elapsed / operations, (double) allocated / operations, result, counted);
+    }
+}
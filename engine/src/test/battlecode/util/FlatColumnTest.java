@@ -0,0 +1,107 @@
+package battlecode.util;
+
+import battlecode.schema.LocalPollutionTable;
+import battlecode.schema.Round;
+import com.google.flatbuffers.FlatBufferBuilder;
+import gnu.trove.list.array.TByteArrayList;
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class FlatColumnTest {
+
+    /**
+     * Builds a round the old way, from Trove lists, and the new way, from
+     * columns, with the same values; they should come out byte for byte
+     * the same.
+     */
+    private static void assertSameRound(int length, int builderSize) {
+        TIntArrayList ints = new TIntArrayList();
+        TByteArrayList bytes = new TByteArrayList();
+        TFloatArrayList floats = new TFloatArrayList();
+        FlatColumn.Int intColumn = new FlatColumn.Int();
+        FlatColumn.Byte byteColumn = new FlatColumn.Byte();
+        FlatColumn.Float floatColumn = new FlatColumn.Float();
+        for (int i = 0; i < length; i++) {
+            ints.add(i * 31 - 1000);
+            bytes.add((byte) i);
+            floats.add(i / 3f);
+            intColumn.add(i * 31 - 1000);
+            byteColumn.add((byte) i);
+            floatColumn.add(i / 3f);
+        }
+
+        FlatBufferBuilder expected = new FlatBufferBuilder(builderSize);
+        int intsP = FlatHelpers.intVector(expected, ints, Round::startMovedIDsVector);
+        int bytesP = FlatHelpers.byteVector(expected, bytes, Round::startActionsVector);
+        int floatsP = FlatHelpers.floatVector(expected, floats, LocalPollutionTable::startMultiplicativeEffectsVector);
+        LocalPollutionTable.startLocalPollutionTable(expected);
+        LocalPollutionTable.addMultiplicativeEffects(expected, floatsP);
+        int pollutionP = LocalPollutionTable.endLocalPollutionTable(expected);
+        Round.startRound(expected);
+        Round.addMovedIDs(expected, intsP);
+        Round.addActions(expected, bytesP);
+        Round.addLocalPollutions(expected, pollutionP);
+        expected.finish(Round.endRound(expected));
+
+        FlatBufferBuilder actual = new FlatBufferBuilder(builderSize);
+        intsP = intColumn.createVector(actual, Round::startMovedIDsVector);
+        bytesP = byteColumn.createVector(actual, Round::startActionsVector);
+        floatsP = floatColumn.createVector(actual, LocalPollutionTable::startMultiplicativeEffectsVector);
+        LocalPollutionTable.startLocalPollutionTable(actual);
+        LocalPollutionTable.addMultiplicativeEffects(actual, floatsP);
+        pollutionP = LocalPollutionTable.endLocalPollutionTable(actual);
+        Round.startRound(actual);
+        Round.addMovedIDs(actual, intsP);
+        Round.addActions(actual, bytesP);
+        Round.addLocalPollutions(actual, pollutionP);
+        actual.finish(Round.endRound(actual));
+
+        assertArrayEquals(length + " values", expected.sizedByteArray(), actual.sizedByteArray());
+    }
+
+    @Test
+    public void buildsTheSameVectors() {
+        for (int length : new int[]{0, 1, 3, 63, 64, 65, 1000, 5000}) {
+            assertSameRound(length, 1024);
+            // the builder has to grow in the middle of a vector
+            assertSameRound(length, 1);
+        }
+    }
+
+    @Test
+    public void keepsItsBufferWhenCleared() {
+        FlatColumn.Int column = new FlatColumn.Int();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 1000; i++) {
+                column.add(round * 1000 + i);
+            }
+            assertEquals(1000, column.size());
+            assertEquals(round * 1000 + 999, column.get(999));
+
+            FlatBufferBuilder builder = new FlatBufferBuilder();
+            int movedIDsP = column.createVector(builder, Round::startMovedIDsVector);
+            Round.startRound(builder);
+            Round.addMovedIDs(builder, movedIDsP);
+            builder.finish(Round.endRound(builder));
+            Round read = Round.getRootAsRound(ByteBuffer.wrap(builder.sizedByteArray()));
+            assertEquals(1000, read.movedIDsLength());
+            assertEquals(round * 1000, read.movedIDs(0));
+            assertEquals(round * 1000 + 999, read.movedIDs(999));
+
+            column.clear();
+            assertEquals(0, column.size());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsValuesPastTheEnd() {
+        FlatColumn.Byte column = new FlatColumn.Byte();
+        column.add((byte) 1);
+        column.get(1);
+    }
+}
@@ -0,0 +1,58 @@
+package battlecode.world;
+
+import battlecode.common.Transaction;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the blocks a Blockchain keeps, over more rounds than it starts
+ * with room for.
+ */
+public class BlockchainTest {
+
+    private static Transaction[] block(int round) {
+        Transaction[] block = new Transaction[round % 3];
+        for (int i = 0; i < block.length; i++)
+            block[i] = new Transaction(round, new int[]{round, i}, i);
+        return block;
+    }
+
+    @Test
+    public void testKeepsEveryBlock() {
+        Blockchain blockchain = new Blockchain();
+        for (int round = 1; round <= 1000; round++)
+            blockchain.addBlock(block(round));
+        assertEquals(1000, blockchain.size());
+
+        for (int round = 1; round <= 1000; round++) {
+            Transaction[] block = blockchain.getBlock(round);
+            assertEquals(round % 3, block.length);
+            for (int i = 0; i < block.length; i++)
+                assertArrayEquals(new int[]{round, i}, block[i].getMessage());
+        }
+        // every empty block is the same one
+        assertSame(blockchain.getBlock(3), blockchain.getBlock(999));
+
+        Transaction[][] blocks = blockchain.getBlocks(10, 20);
+        assertEquals(10, blocks.length);
+        for (int i = 0; i < blocks.length; i++)
+            assertSame(blockchain.getBlock(10 + i), blocks[i]);
+        assertEquals(0, blockchain.getBlocks(1001, 1001).length);
+        assertEquals(1000, blockchain.getBlocks(1, 1001).length);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testHasNoBlockForRoundZero() {
+        Blockchain blockchain = new Blockchain();
+        blockchain.addBlock(block(1));
+        blockchain.getBlock(0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testHasNoBlocksForRoundsToCome() {
+        Blockchain blockchain = new Blockchain();
+        blockchain.addBlock(block(1));
+        blockchain.getBlocks(1, 3);
+    }
+}
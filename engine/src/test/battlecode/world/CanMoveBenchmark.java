@@ -0,0 +1,100 @@
+package battlecode.world;
+
+import battlecode.common.*;
+import battlecode.util.Benchmark;
+
+import java.util.Random;
+
+/**
+ * Compares canMove as it was, asserting and catching the exception, with
+ * the check that returns why it can't, over every direction, for miners
+ * that can move nearly anywhere, that are hemmed in by other robots, and
+ * that are cooling down. Not a unit test; run it with
+ * java -cp ... battlecode.world.CanMoveBenchmark
+ */
+public class CanMoveBenchmark {
+
+    private static final int ITERATIONS = 100000;
+
+    private static final Direction[] DIRECTIONS = Direction.allDirections();
+
+    public static void main(String[] args) {
+        for (double density : new double[]{0.05, 0.6}) {
+            for (boolean ready : new boolean[]{true, false}) {
+                LiveMap map = new TestMapBuilder("bench", new MapLocation(0, 0), 64, 64, 1337, 3000, 0)
+                        .setSoup()
+                        .setWater()
+                        .setPollution()
+                        .setDirt()
+                        .build();
+                TestGame game = new TestGame(map);
+                GameWorld world = game.getWorld();
+
+                Random random = new Random(1337);
+                for (int x = 0; x < 64; x++)
+                    for (int y = 0; y < 64; y++)
+                        if (random.nextDouble() < density)
+                            world.spawnRobot(RobotType.MINER, new MapLocation(x, y), random.nextBoolean() ? Team.A : Team.B);
+                RobotControllerImpl[] movers = new RobotControllerImpl[1024];
+                for (int i = 0; i < movers.length; i++) {
+                    MapLocation loc;
+                    do {
+                        loc = new MapLocation(random.nextInt(64), random.nextInt(64));
+                    } while (world.getRobot(loc) == null);
+                    movers[i] = world.getRobot(loc).getController();
+                    movers[i].getRobot().setCooldownTurns(ready ? 0 : 5);
+                }
+
+                System.out.println("density = " + density + (ready ? ", ready" : ", cooling down"));
+                Benchmark.run("  throw and catch (old)", ITERATIONS * DIRECTIONS.length, "moves", () -> {
+                    int total = 0;
+                    for (int i = 0; i < ITERATIONS; i++)
+                        for (Direction dir : DIRECTIONS)
+                            if (legacyCanMove(world, movers[i & 1023], dir))
+                                total++;
+                    return total;
+                });
+                Benchmark.run("  reason codes", ITERATIONS * DIRECTIONS.length, "moves", () -> {
+                    int total = 0;
+                    for (int i = 0; i < ITERATIONS; i++)
+                        for (Direction dir : DIRECTIONS)
+                            if (movers[i & 1023].canMove(dir))
+                                total++;
+                    return total;
+                });
+            }
+        }
+    }
+
+    /**
+     * canMove(dir) as it was before the reason codes.
+     */
+    private static boolean legacyCanMove(GameWorld world, RobotControllerImpl rc, Direction dir) {
+        try {
+            MapLocation loc = rc.adjacentLocation(dir);
+            if (!rc.getType().canMove())
+                throw new GameActionException(GameActionExceptionType.CANT_DO_THAT,
+                        "Robot is of type " + rc.getType() + " which cannot move.");
+            if (!rc.getLocation().isAdjacentTo(loc))
+                throw new GameActionException(GameActionExceptionType.OUT_OF_RANGE,
+                        "Can only move to adjacent locations; " + loc + " is not adjacent to " + rc.getLocation() + ".");
+            if (!rc.onTheMap(loc))
+                throw new GameActionException(GameActionExceptionType.OUT_OF_RANGE,
+                        "Can only move to locations on the map; " + loc + " is not on the map.");
+            if (rc.isLocationOccupied(loc))
+                throw new GameActionException(GameActionExceptionType.CANT_MOVE_THERE,
+                        "Cannot move to an occupied location; " + loc + " is occupied.");
+            if (world.getDirtDifference(rc.getLocation(), loc) > GameConstants.MAX_DIRT_DIFFERENCE && !rc.getType().canFly())
+                throw new GameActionException(GameActionExceptionType.CANT_DO_THAT,
+                        "Robot is of type " + rc.getType() + " which cannot fly, and the dirt difference to " + loc + " is " +
+                        world.getDirtDifference(rc.getLocation(), loc) + " which is higher than the limit of " +
+                        GameConstants.MAX_DIRT_DIFFERENCE + " for non-flying units.");
+            if (!rc.isReady())
+                throw new GameActionException(GameActionExceptionType.IS_NOT_READY,
+                        "Robot is still cooling down! You need to wait before you can perform another action.");
+            return true;
+        } catch (GameActionException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import gnu.trove.list.array.TIntArrayList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the execution order visits robots exactly like iterating over
+ * a copy of the spawn order, while robots spawn and die mid-iteration.
+ */
+public class ExecutionOrderTest {
+
+    @Test
+    public void testMatchesSpawnOrderCopy() {
+        LiveMap map = new TestMapBuilder("test", new MapLocation(0, 0), 10, 10, 1337, 3000, 5)
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build();
+        GameWorld world = new TestGame(map).getWorld();
+        Random random = new Random(1337);
+
+        ExecutionOrder order = new ExecutionOrder();
+        // the order being replaced: a list of IDs, copied for every iteration
+        TIntArrayList reference = new TIntArrayList();
+        Map<Integer, InternalRobot> alive = new HashMap<>();
+        int[] nextID = {0};
+
+        for (int round = 0; round < 500; round++) {
+            int[] snapshot = reference.toArray();
+            List<Integer> expected = new ArrayList<>();
+            for (int id : snapshot)
+                if (alive.containsKey(id))
+                    expected.add(id);
+            // the reference skips robots that die before their turn
+            List<Integer> visited = new ArrayList<>();
+            List<Integer> died = new ArrayList<>();
+
+            order.forEach((robot) -> {
+                if (died.contains(robot.getID()))
+                    throw new AssertionError("visited dead robot " + robot.getID());
+                visited.add(robot.getID());
+                int action = random.nextInt(4);
+                if (action == 0 || alive.size() < 5) {
+                    int id = nextID[0]++;
+                    InternalRobot spawned = new InternalRobot(world, id, RobotType.MINER, new MapLocation(0, 0), Team.A);
+                    order.add(spawned);
+                    reference.add(id);
+                    alive.put(id, spawned);
+                } else if (action == 1) {
+                    List<Integer> ids = new ArrayList<>(alive.keySet());
+                    int id = ids.get(random.nextInt(ids.size()));
+                    order.remove(alive.remove(id));
+                    reference.remove(id);
+                    died.add(id);
+                }
+                return true;
+            });
+
+            // seed the order before the first round
+            if (round == 0) {
+                for (int i = 0; i < 20; i++) {
+                    int id = nextID[0]++;
+                    InternalRobot spawned = new InternalRobot(world, id, RobotType.MINER, new MapLocation(0, 0), Team.A);
+                    order.add(spawned);
+                    reference.add(id);
+                    alive.put(id, spawned);
+                }
+                continue;
+            }
+
+            expected.removeIf((id) -> died.contains(id) && !visited.contains(id));
+            assertEquals("round " + round, expected, visited);
+            assertEquals(alive.size(), order.size());
+        }
+    }
+}
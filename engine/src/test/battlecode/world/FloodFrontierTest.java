@@ -0,0 +1,97 @@
+package battlecode.world;
+
+import battlecode.common.GameConstants;
+import battlecode.common.MapLocation;
+import battlecode.common.RobotInfo;
+import battlecode.common.Team;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that frontier-based flooding changes the same tiles, in the same
+ * order, as scanning every flooded tile every round.
+ */
+public class FloodFrontierTest {
+
+    private static final int[] DX = {0, 1, 1, 1, 0, -1, -1, -1, 0};
+    private static final int[] DY = {1, 1, 0, -1, -1, -1, 0, 1, 0};
+
+    /**
+     * The full-map flood fill the frontier replaces.
+     */
+    private static void referenceFloodfill(int width, int height, boolean[] flooded, int[] dirt,
+                                           float waterLevel, List<MapLocation> changed) {
+        List<Integer> floodOrigins = new ArrayList<>();
+        for (int idx = 0; idx < flooded.length; idx++)
+            if (flooded[idx])
+                floodOrigins.add(idx);
+        for (int center : floodOrigins) {
+            for (int d = 0; d < DX.length; d++) {
+                int x = center % width + DX[d];
+                int y = center / width + DY[d];
+                if (x < 0 || y < 0 || x >= width || y >= height)
+                    continue;
+                int idx = x + y * width;
+                if (flooded[idx] || dirt[idx] >= waterLevel)
+                    continue;
+                flooded[idx] = true;
+                changed.add(new MapLocation(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesFullScan() {
+        final int width = 32;
+        final int height = 37;
+        final int size = width * height;
+        Random random = new Random(1337);
+
+        int[] dirt = new int[size];
+        boolean[] flooded = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            dirt[i] = random.nextInt(40) - 5;
+            flooded[i] = random.nextInt(60) == 0;
+        }
+        LiveMap map = new LiveMap(width, height, new MapLocation(0, 0), 1337, 3000, "test",
+                new RobotInfo[0], new int[size], new int[size], flooded, dirt, 0);
+        TestGame game = new TestGame(map);
+        GameWorld world = game.getWorld();
+
+        List<MapLocation> actual = new ArrayList<>();
+        Mockito.doAnswer(invocation -> actual.add((MapLocation) invocation.getArguments()[0]))
+                .when(world.getMatchMaker()).addWaterChanged(Mockito.any(MapLocation.class));
+
+        List<MapLocation> expected = new ArrayList<>();
+        for (int round = 1; round <= 2400; round++) {
+            // landscapers dig and fill between rounds
+            float waterLevel = round == 1 ? 0 : GameConstants.getWaterLevel(round - 1);
+            for (int i = 0; i < 5; i++) {
+                MapLocation loc = new MapLocation(random.nextInt(width), random.nextInt(height));
+                int idx = loc.x + loc.y * width;
+                if (random.nextBoolean()) {
+                    world.removeDirt(-1, loc);
+                    dirt[idx] -= 1;
+                } else {
+                    int amount = 1 + random.nextInt(30);
+                    world.addDirt(-1, loc, amount);
+                    dirt[idx] += amount;
+                    if (flooded[idx] && dirt[idx] >= waterLevel) {
+                        flooded[idx] = false;
+                        expected.add(loc);
+                    }
+                }
+            }
+
+            game.waitRounds(1);
+            referenceFloodfill(width, height, flooded, dirt, GameConstants.getWaterLevel(round), expected);
+            assertEquals("water changes in round " + round, expected, actual);
+        }
+    }
+}
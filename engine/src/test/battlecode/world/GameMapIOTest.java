@@ -1,11 +1,12 @@
 package battlecode.world;
 
 import battlecode.common.*;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 
 import static org.junit.Assert.*;
 
@@ -13,6 +14,9 @@ public class GameMapIOTest {
 
     final static ClassLoader loader = GameMapIOTest.class.getClassLoader();
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void testFindsDefaultMap() throws IOException {
         // will throw exception if default map can't be loaded
@@ -47,4 +51,55 @@ public class GameMapIOTest {
 
         assertEquals("Round trip failed", inputMap, outputMap);
     }
+
+    @Test
+    public void testCachesLoadedMaps() throws IOException {
+        File mapDir = folder.newFolder("maps");
+        File mapFile = new File(mapDir, "cached" + GameMapIO.MAP_EXTENSION);
+
+        GameMapIO.writeMap(new TestMapBuilder("cached", 0, 0, 10, 10, 1, 50, 0)
+                .addRobot(0, Team.A, RobotType.HQ, new MapLocation(0, 0))
+                .setSoup().setWater().setPollution().setDirt()
+                .build(), mapDir);
+        LiveMap first = GameMapIO.loadMap("cached", mapDir);
+        assertSame(first, GameMapIO.loadMap("cached", mapDir));
+
+        // changing the file loads it again
+        GameMapIO.writeMap(new TestMapBuilder("cached", 0, 0, 10, 10, 2, 50, 0)
+                .addRobot(0, Team.A, RobotType.HQ, new MapLocation(0, 0))
+                .setSoup().setWater().setPollution().setDirt()
+                .build(), mapDir);
+        assertTrue(mapFile.setLastModified(mapFile.lastModified() + 2000));
+        LiveMap second = GameMapIO.loadMap("cached", mapDir);
+        assertNotSame(first, second);
+        assertEquals(2, second.getSeed());
+    }
+
+    @Test
+    public void testWorldsLeaveTheirMapAlone() throws IOException {
+        LiveMap map = new TestMapBuilder("shared", 0, 0, 10, 10, 1337, 50, 0)
+                .addRobot(0, Team.A, RobotType.HQ, new MapLocation(0, 0))
+                .setSoup().setWater().setPollution().setDirt()
+                .build();
+        LiveMap copy = new LiveMap(map);
+        MapLocation loc = new MapLocation(5, 5);
+        int soup = map.getSoupArray()[55];
+
+        GameWorld world = new TestGame(map).getWorld();
+        world.removeSoup(loc, 3);
+        world.addDirt(-1, loc, 2);
+        world.setFloodStatus(world.locationToIndex(new MapLocation(6, 6)), true);
+        world.addGlobalPollution(10);
+        world.getPollution(loc);
+
+        assertEquals(soup - 3, world.getSoup(loc));
+        assertEquals(soup, world.initialSoupAtLocation(loc));
+        assertEquals(copy, map);
+
+        // the next match on the map starts from scratch
+        GameWorld next = new TestGame(map).getWorld();
+        assertEquals(soup, next.getSoup(loc));
+        assertEquals(0, next.getDirt(loc));
+        assertFalse(next.isFlooded(new MapLocation(6, 6)));
+    }
 }
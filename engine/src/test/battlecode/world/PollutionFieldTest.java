@@ -0,0 +1,160 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Checks the incremental PollutionField against a full recomputation.
+ */
+public class PollutionFieldTest {
+
+    private static final RobotType[] POLLUTERS = {
+            RobotType.HQ, RobotType.REFINERY, RobotType.VAPORATOR, RobotType.COW
+    };
+
+    /**
+     * The full recomputation the field replaces: every tile is checked
+     * against every active effect.
+     */
+    private static class ReferencePollution {
+        final int width;
+        final int height;
+        int globalPollution = 0;
+        final HashMap<Integer, Object[]> localPollutions = new HashMap<>();
+
+        ReferencePollution(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        int[] calculate() {
+            int[] pollution = new int[width * height];
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    MapLocation loc = new MapLocation(x, y);
+                    int idx = x + y * width;
+                    pollution[idx] = globalPollution;
+                    float multiplier = 1;
+                    for (Object[] effect : localPollutions.values()) {
+                        if (loc.isWithinDistanceSquared((MapLocation) effect[0], (int) effect[1])) {
+                            pollution[idx] += (int) effect[2];
+                            multiplier *= (float) effect[3];
+                        }
+                    }
+                    pollution[idx] = Math.round(pollution[idx] * multiplier);
+                }
+            }
+            return pollution;
+        }
+    }
+
+    @Test
+    public void testMatchesFullRecompute() {
+        final int width = 40;
+        final int height = 33;
+        final int numRobots = 60;
+        Random random = new Random(1337);
+
+        LiveMap map = new TestMapBuilder("test", new MapLocation(0, 0), width, height, 1337, 100, 5)
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build();
+        PollutionField field = new PollutionField(map, map.getPollutionArray());
+        ReferencePollution reference = new ReferencePollution(width, height);
+
+        RobotType[] types = new RobotType[numRobots];
+        MapLocation[] locations = new MapLocation[numRobots];
+        for (int id = 0; id < numRobots; id++) {
+            types[id] = POLLUTERS[random.nextInt(POLLUTERS.length)];
+            locations[id] = new MapLocation(random.nextInt(width), random.nextInt(height));
+        }
+
+        for (int round = 0; round < 300; round++) {
+            for (int id = 0; id < numRobots; id++) {
+                // robots stop polluting now and then, and cows wander
+                field.resetPollutionForRobot(id);
+                reference.localPollutions.remove(id);
+                if (random.nextInt(4) == 0)
+                    continue;
+                if (types[id] == RobotType.COW)
+                    locations[id] = new MapLocation(random.nextInt(width), random.nextInt(height));
+                RobotType type = types[id];
+                field.addGlobalPollution(type.globalPollutionAmount);
+                reference.globalPollution = Math.max(reference.globalPollution + type.globalPollutionAmount, 0);
+                field.addLocalPollution(id, locations[id], type.pollutionRadiusSquared,
+                        type.localPollutionAdditiveEffect, type.localPollutionMultiplicativeEffect);
+                reference.localPollutions.put(id, new Object[]{locations[id], type.pollutionRadiusSquared,
+                        type.localPollutionAdditiveEffect, type.localPollutionMultiplicativeEffect});
+
+                // read in the middle of a round too
+                if (random.nextInt(10) == 0)
+                    assertAllEqual(reference.calculate(), field, width, height);
+            }
+            assertAllEqual(reference.calculate(), field, width, height);
+            assertEquals(reference.globalPollution, field.getGlobalPollution());
+        }
+    }
+
+    @Test
+    public void testOffMapIsZero() {
+        LiveMap map = new TestMapBuilder("test", new MapLocation(0, 0), 10, 10, 1337, 100, 5)
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build();
+        PollutionField field = new PollutionField(map, map.getPollutionArray());
+        field.addGlobalPollution(100);
+        field.addLocalPollution(0, new MapLocation(0, 0), 35, 500, 1);
+        assertEquals(0, field.getPollution(new MapLocation(-1, 0)));
+        assertEquals(0, field.getPollution(new MapLocation(0, 10)));
+        assertEquals(600, field.getPollution(new MapLocation(0, 0)));
+        assertEquals(100, field.getPollution(new MapLocation(9, 9)));
+    }
+
+    @Test
+    public void testEpochChangesWithPollution() {
+        LiveMap map = new TestMapBuilder("test", new MapLocation(0, 0), 10, 10, 1337, 100, 5)
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build();
+        PollutionField field = new PollutionField(map, map.getPollutionArray().clone());
+        int epoch = field.getEpoch();
+
+        field.addLocalPollution(0, new MapLocation(0, 0), 35, 500, 1);
+        assertNotEquals(epoch, epoch = field.getEpoch());
+        assertEquals(epoch, field.getEpoch());
+
+        // re-adding the same effect changes nothing
+        field.resetPollutionForRobot(0);
+        field.addLocalPollution(0, new MapLocation(0, 0), 35, 500, 1);
+        assertEquals(epoch, field.getEpoch());
+        field.addGlobalPollution(0);
+        assertEquals(epoch, field.getEpoch());
+
+        field.addLocalPollution(0, new MapLocation(1, 0), 35, 500, 1);
+        assertNotEquals(epoch, epoch = field.getEpoch());
+        field.addGlobalPollution(10);
+        assertNotEquals(epoch, epoch = field.getEpoch());
+        field.resetPollutionForRobot(0);
+        assertNotEquals(epoch, field.getEpoch());
+    }
+
+    private static void assertAllEqual(int[] expected, PollutionField field, int width, int height) {
+        for (int x = 0; x < width; x++)
+            for (int y = 0; y < height; y++)
+                assertEquals("pollution at " + x + ", " + y,
+                        expected[x + y * width], field.getPollution(new MapLocation(x, y)));
+    }
+}
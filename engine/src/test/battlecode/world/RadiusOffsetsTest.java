@@ -0,0 +1,42 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RadiusOffsetsTest {
+
+    @Test
+    public void testMatchesBruteForce() {
+        for (int radiusSquared = -1; radiusSquared <= 60; radiusSquared++) {
+            Set<MapLocation> expected = new HashSet<>();
+            for (int x = -10; x <= 10; x++)
+                for (int y = -10; y <= 10; y++)
+                    if (x * x + y * y <= radiusSquared)
+                        expected.add(new MapLocation(x, y));
+
+            RadiusOffsets offsets = RadiusOffsets.get(radiusSquared);
+            Set<MapLocation> actual = new HashSet<>();
+            for (int i = 0; i < offsets.length; i++) {
+                int dx = offsets.getDx(i);
+                int dy = offsets.getDy(i);
+                assertEquals(dx * dx + dy * dy, offsets.getDistanceSquared(i));
+                if (i > 0)
+                    assertTrue(offsets.getDistanceSquared(i - 1) <= offsets.getDistanceSquared(i));
+                actual.add(new MapLocation(dx, dy));
+            }
+            assertEquals(expected.size(), offsets.length);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testCached() {
+        assertTrue(RadiusOffsets.get(35) == RadiusOffsets.get(35));
+    }
+}
@@ -0,0 +1,97 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import battlecode.util.Benchmark;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Compares the old bounding-box radius queries against the offset table
+ * queries in GameWorld. Not a unit test; run it with
+ * java -cp ... battlecode.world.RadiusQueryBenchmark
+ */
+public class RadiusQueryBenchmark {
+
+    private static final int ITERATIONS = 100000;
+
+    public static void main(String[] args) {
+        LiveMap map = new TestMapBuilder("bench", new MapLocation(0, 0), 64, 64, 1337, 3000, 0)
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build();
+        TestGame game = new TestGame(map);
+        GameWorld world = game.getWorld();
+
+        Random random = new Random(1337);
+        for (int i = 0; i < 300; i++) {
+            MapLocation loc = new MapLocation(random.nextInt(64), random.nextInt(64));
+            if (world.getRobot(loc) == null)
+                world.spawnRobot(RobotType.MINER, loc, random.nextBoolean() ? Team.A : Team.B);
+        }
+        MapLocation[] centers = new MapLocation[1024];
+        for (int i = 0; i < centers.length; i++)
+            centers[i] = new MapLocation(random.nextInt(64), random.nextInt(64));
+
+        InternalRobot[] buffer = new InternalRobot[64 * 64];
+        for (int radiusSquared : new int[]{RobotType.REFINERY.sensorRadiusSquared, RobotType.HQ.sensorRadiusSquared}) {
+            System.out.println("radiusSquared = " + radiusSquared);
+            Benchmark.run("  bounding box (old)", ITERATIONS, "robots", () -> {
+                int total = 0;
+                for (int i = 0; i < ITERATIONS; i++)
+                    total += legacyRobotsWithinRadiusSquared(world, centers[i & 1023], radiusSquared).length;
+                return total;
+            });
+            Benchmark.run("  offset table, array", ITERATIONS, "robots", () -> {
+                int total = 0;
+                for (int i = 0; i < ITERATIONS; i++)
+                    total += world.getAllRobotsWithinRadiusSquared(centers[i & 1023], radiusSquared).length;
+                return total;
+            });
+            Benchmark.run("  offset table, buffer", ITERATIONS, "robots", () -> {
+                int total = 0;
+                for (int i = 0; i < ITERATIONS; i++)
+                    total += world.getAllRobotsWithinRadiusSquared(centers[i & 1023], radiusSquared, buffer);
+                return total;
+            });
+            int[] visited = new int[1];
+            Benchmark.run("  offset table, visitor", ITERATIONS, "robots", () -> {
+                visited[0] = 0;
+                for (int i = 0; i < ITERATIONS; i++)
+                    world.forEachRobotWithinRadiusSquared(centers[i & 1023], radiusSquared, (robot) -> {
+                        visited[0]++;
+                        return true;
+                    });
+                return visited[0];
+            });
+        }
+    }
+
+    /**
+     * The query as it was before offset tables.
+     */
+    private static InternalRobot[] legacyRobotsWithinRadiusSquared(GameWorld world, MapLocation center, int radiusSquared) {
+        ArrayList<MapLocation> locations = new ArrayList<MapLocation>();
+        int ceiledRadius = (int) Math.ceil(Math.sqrt(radiusSquared)) + 1;
+        int minX = Math.max(center.x - ceiledRadius, 0);
+        int minY = Math.max(center.y - ceiledRadius, 0);
+        int maxX = Math.min(center.x + ceiledRadius, world.getGameMap().getWidth() - 1);
+        int maxY = Math.min(center.y + ceiledRadius, world.getGameMap().getHeight() - 1);
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                MapLocation newLocation = new MapLocation(x, y);
+                if (center.isWithinDistanceSquared(newLocation, radiusSquared))
+                    locations.add(newLocation);
+            }
+        }
+        ArrayList<InternalRobot> robots = new ArrayList<InternalRobot>();
+        for (MapLocation location : locations.toArray(new MapLocation[0]))
+            if (world.getRobot(location) != null)
+                robots.add(world.getRobot(location));
+        return robots.toArray(new InternalRobot[robots.size()]);
+    }
+}
@@ -0,0 +1,88 @@
+package battlecode.world;
+
+import battlecode.common.Direction;
+import battlecode.common.GameActionException;
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import battlecode.server.Config;
+import battlecode.server.GameInfo;
+import battlecode.server.GameMaker;
+
+import java.util.Random;
+
+/**
+ * Runs the same match under each bc.server.recording mode, with robots
+ * that wander around and draw indicator dots, and reports how many rounds
+ * a second the engine gets through. Not a unit test; run it with
+ * java -cp ... battlecode.world.RecordingBenchmark
+ */
+public class RecordingBenchmark {
+
+    private static final int ROUNDS = 2000;
+    private static final int ROBOTS = 300;
+    private static final int REPEATS = 3;
+
+    public static void main(String[] args) throws GameActionException {
+        String[] modes = {"full", "selective", "results"};
+        // warm up
+        for (String mode : modes) {
+            play(mode);
+        }
+        for (String mode : modes) {
+            long start = System.nanoTime();
+            long rounds = 0;
+            for (int i = 0; i < REPEATS; i++) {
+                rounds += play(mode);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-10s %8.0f rounds/s%n", mode, rounds / seconds);
+        }
+    }
+
+    /**
+     * @return the number of rounds played
+     */
+    private static int play(String recording) throws GameActionException {
+        Config config = new Config(new String[0]);
+        config.set("bc.server.recording", recording);
+        Config.setGlobalConfig(config);
+
+        GameInfo info = new GameInfo("bananas", "org.bananas", null,
+                "yellow", "org.yellow", null,
+                new String[]{"bench"}, null, false);
+        GameMaker gm = new GameMaker(info, null);
+        gm.makeGameHeader();
+        LiveMap map = new TestMapBuilder("bench", new MapLocation(0, 0), 64, 64, 1337, ROUNDS, 0)
+                .addRobot(0, Team.A, RobotType.HQ, new MapLocation(0, 0))
+                .addRobot(1, Team.B, RobotType.HQ, new MapLocation(63, 63))
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build();
+        TestGame game = new TestGame(map, gm.getMatchMaker());
+
+        Random random = new Random(1337);
+        for (int i = 0; i < ROBOTS; i++) {
+            MapLocation loc = new MapLocation(random.nextInt(64), random.nextInt(64));
+            if (game.getWorld().getRobot(loc) == null)
+                game.spawn(loc.x, loc.y, RobotType.MINER, random.nextBoolean() ? Team.A : Team.B);
+        }
+        Direction[] directions = Direction.allDirections();
+        while (game.getWorld().isRunning()) {
+            game.round((id, rc) -> {
+                Direction dir = directions[random.nextInt(directions.length)];
+                if (rc.isReady() && rc.canMove(dir) && !rc.senseFlooding(rc.adjacentLocation(dir)))
+                    rc.move(dir);
+                rc.setIndicatorDot(rc.getLocation(), 255, 0, 0);
+                rc.setIndicatorLine(rc.getLocation(), rc.getLocation().add(dir), 0, 0, 255);
+            });
+        }
+        // the match is over, so this writes the footer
+        game.getWorld().runRound();
+        gm.makeGameFooter(Team.A);
+        gm.toBytes();
+        return game.getWorld().getCurrentRound();
+    }
+}
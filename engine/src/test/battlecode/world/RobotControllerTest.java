@@ -2,10 +2,14 @@ package battlecode.world;
 
 import battlecode.common.*;
 
+import battlecode.server.GameMaker;
 import gnu.trove.list.array.TIntArrayList;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for RobotController. These are where the gameplay tests are.
@@ -72,6 +76,157 @@ public class RobotControllerTest {
         // hooray!
     }
 
+    @Test
+    public void testSenseNearbyRobots() throws GameActionException {
+        LiveMap map = new TestMapBuilder("test", new MapLocation(0,0), 20, 20, 1337, 100, 0)
+            .setSoup()
+            .setWater()
+            .setPollution()
+            .setDirt()
+            .build();
+        TestGame game = new TestGame(map);
+        // a miner can sense 35 away
+        final int miner = game.spawn(10, 10, RobotType.MINER, Team.A);
+        final int a1 = game.spawn(11, 10, RobotType.MINER, Team.A);
+        final int b1 = game.spawn(10, 12, RobotType.MINER, Team.B);
+        final int b2 = game.spawn(13, 13, RobotType.MINER, Team.B);
+        final int a2 = game.spawn(15, 13, RobotType.MINER, Team.A);
+        final int b3 = game.spawn(16, 10, RobotType.MINER, Team.B);
+        RobotController rc = game.getBot(miner).getController();
+
+        // nearest first, without the miner itself
+        assertArrayEquals(new int[]{a1, b1, b2, a2}, ids(rc.senseNearbyRobots()));
+        assertArrayEquals(new int[]{b1, b2}, ids(rc.senseNearbyRobots(-1, Team.B)));
+        assertArrayEquals(new int[]{a1, a2}, ids(rc.senseNearbyRobots(-1, Team.A)));
+        assertArrayEquals(new int[]{a1, b1}, ids(rc.senseNearbyRobots(4)));
+        assertArrayEquals(new int[0], ids(rc.senseNearbyRobots(4, Team.NEUTRAL)));
+
+        // around somewhere else, only what the miner can sense
+        assertArrayEquals(new int[]{a2, b2},
+                ids(rc.senseNearbyRobots(new MapLocation(15, 11), 9, null)));
+        assertArrayEquals(new int[]{b3, b2},
+                ids(game.getBot(a2).getController().senseNearbyRobots(new MapLocation(15, 11), 9, Team.B)));
+    }
+
+    private static int[] ids(RobotInfo[] robots) {
+        int[] ids = new int[robots.length];
+        for (int i = 0; i < robots.length; i++)
+            ids[i] = robots[i].getID();
+        return ids;
+    }
+
+    @Test
+    public void testSensorRadiusFollowsPollution() throws GameActionException {
+        LiveMap map = new TestMapBuilder("test", new MapLocation(0,0), 10, 10, 1337, 100, 0)
+            .setSoup()
+            .setWater()
+            .setPollution()
+            .setDirt()
+            .build();
+        TestGame game = new TestGame(map);
+        GameWorld world = game.getWorld();
+        final int miner = game.spawn(5, 5, RobotType.MINER, Team.A);
+        InternalRobot bot = game.getBot(miner);
+        RobotController rc = bot.getController();
+        assertEquals(35, rc.getCurrentSensorRadiusSquared());
+        assertTrue(rc.canSenseLocation(new MapLocation(5, 0)));
+
+        // 4000 pollution on the miner's tile quarters its sensor radius
+        world.addLocalPollution(1000, new MapLocation(5, 5), 0, 4000, 1);
+        assertEquals(9, rc.getCurrentSensorRadiusSquared());
+        assertTrue(rc.canSenseLocation(new MapLocation(5, 2)));
+        assertFalse(rc.canSenseLocation(new MapLocation(5, 1)));
+
+        // and moving off it restores it
+        game.round((id, robot) -> {
+            if (id == miner)
+                robot.move(Direction.EAST);
+        });
+        assertEquals(35, rc.getCurrentSensorRadiusSquared());
+
+        // 2000 pollution doubles cooldowns
+        world.addGlobalPollution(2000);
+        float cooldown = bot.getCooldownTurns();
+        bot.addCooldownTurns();
+        assertEquals(cooldown + 2 * RobotType.MINER.actionCooldown, bot.getCooldownTurns(), EPSILON);
+        world.addGlobalPollution(-2000);
+        cooldown = bot.getCooldownTurns();
+        bot.addCooldownTurns();
+        assertEquals(cooldown + RobotType.MINER.actionCooldown, bot.getCooldownTurns(), EPSILON);
+    }
+
+    @Test
+    public void testSenseNearbyTiles() throws GameActionException {
+        LiveMap map = new TestMapBuilder("test", new MapLocation(0,0), 10, 10, 1337, 100, 0)
+            .setSoup()
+            .setWater()
+            .setPollution()
+            .setDirt()
+            .build();
+        TestGame game = new TestGame(map);
+        GameWorld world = game.getWorld();
+        final int miner = game.spawn(1, 2, RobotType.MINER, Team.A);
+        RobotController rc = game.getBot(miner).getController();
+        world.addDirt(-1, new MapLocation(3, 3), 7);
+        world.setFloodStatus(world.locationToIndex(new MapLocation(0, 4)), true);
+
+        assertNearbyTilesMatch(rc, 5);
+
+        // pollution shrinks the square with the sensor radius
+        world.addLocalPollution(1000, new MapLocation(1, 2), 0, 4000, 1);
+        assertNearbyTilesMatch(rc, 3);
+    }
+
+    private static void assertNearbyTilesMatch(RobotController rc, int r) throws GameActionException {
+        int side = 2 * r + 1;
+        int[] soup = rc.senseNearbySoup();
+        int[] elevation = rc.senseNearbyElevation();
+        boolean[] flooding = rc.senseNearbyFlooding();
+        assertEquals(side * side, soup.length);
+        assertEquals(side * side, elevation.length);
+        assertEquals(side * side, flooding.length);
+        MapLocation me = rc.getLocation();
+        for (int dx = -r; dx <= r; dx++) {
+            for (int dy = -r; dy <= r; dy++) {
+                MapLocation loc = me.translate(dx, dy);
+                int i = (dx + r) + (dy + r) * side;
+                if (rc.canSenseLocation(loc)) {
+                    assertEquals(loc.toString(), rc.senseSoup(loc), soup[i]);
+                    assertEquals(loc.toString(), rc.senseElevation(loc), elevation[i]);
+                    assertEquals(loc.toString(), rc.senseFlooding(loc), flooding[i]);
+                } else {
+                    assertEquals(loc.toString(), -1, soup[i]);
+                    assertEquals(loc.toString(), Integer.MIN_VALUE, elevation[i]);
+                    assertFalse(loc.toString(), flooding[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testKeyframes() throws GameActionException {
+        LiveMap map = new TestMapBuilder("test", 0, 0, 10, 10, 1337, 100, 5)
+            .addRobot(0, Team.A, RobotType.HQ, new MapLocation(0, 0))
+            .addRobot(1, Team.B, RobotType.HQ, new MapLocation(9, 9))
+            .setSoup()
+            .setWater()
+            .setPollution()
+            .setDirt()
+            .build();
+        TestGame game = new TestGame(map);
+        GameMaker.MatchMaker mm = game.getWorld().getMatchMaker();
+        when(mm.isKeyframe(2)).thenReturn(true);
+
+        game.waitRounds(3);
+
+        // only round 2 gets a keyframe, with the whole map and both HQs
+        ArgumentCaptor<int[]> dirt = ArgumentCaptor.forClass(int[].class);
+        verify(mm, times(1)).addKeyframe(dirt.capture(), any(boolean[].class),
+                any(int[].class), any(int[].class), anyFloat());
+        assertEquals(100, dirt.getValue().length);
+        verify(mm, times(2)).addKeyframeBody(any(InternalRobot.class));
+    }
+
     @Test
     public void testImmediateActions() throws GameActionException {
         LiveMap map = new TestMapBuilder("test", 0, 0, 100, 100, 1337, 1000, 50)
@@ -167,6 +322,126 @@ public class RobotControllerTest {
         game.waitRounds(1);
     }
 
+    /**
+     * An action, for assertCant.
+     */
+    private interface ActionBody {
+        void run() throws GameActionException;
+    }
+
+    /**
+     * Assert that canX said no, and that doing X anyway fails for the
+     * right reason.
+     */
+    private static void assertCant(GameActionExceptionType type, boolean can, ActionBody action) {
+        assertFalse(can);
+        try {
+            action.run();
+            fail("Expected " + type);
+        } catch (GameActionException e) {
+            assertEquals(type, e.getType());
+        }
+    }
+
+    /**
+     * The canX methods don't throw to find out whether X can be done; make
+     * sure they still agree with X about it.
+     */
+    @Test
+    public void testCanActionsAgreeWithActions() throws GameActionException {
+        LiveMap map = new TestMapBuilder("test", new MapLocation(0,0), 5, 5, 1337, 100, 0)
+            .setSoup()
+            .setWater()
+            .setPollution()
+            .setDirt()
+            .build();
+        TestGame game = new TestGame(map);
+
+        final int a = game.spawn(0, 0, RobotType.MINER, Team.A);
+        final int b = game.spawn(1, 0, RobotType.MINER, Team.B);
+        final int g = game.spawn(4, 0, RobotType.NET_GUN, Team.B);
+        final int l = game.spawn(3, 4, RobotType.LANDSCAPER, Team.B);
+        final int d = game.spawn(3, 3, RobotType.DELIVERY_DRONE, Team.A);
+        game.getWorld().getTeamInfo().adjustSoup(Team.A, -game.getWorld().getTeamInfo().getSoup(Team.A));
+
+        game.round((id, rc) -> {
+            if (id == a) {
+                assertCant(GameActionExceptionType.OUT_OF_RANGE, rc.canMove(Direction.WEST), () -> rc.move(Direction.WEST));
+                assertCant(GameActionExceptionType.CANT_MOVE_THERE, rc.canMove(Direction.EAST), () -> rc.move(Direction.EAST));
+                assertCant(GameActionExceptionType.CANT_DO_THAT, rc.canMineSoup(Direction.CENTER), () -> rc.mineSoup(Direction.CENTER));
+                assertCant(GameActionExceptionType.NOT_ENOUGH_RESOURCE, rc.canDepositSoup(Direction.EAST), () -> rc.depositSoup(Direction.EAST, 1));
+                assertCant(GameActionExceptionType.NOT_ENOUGH_RESOURCE, rc.canBuildRobot(RobotType.REFINERY, Direction.NORTH), () -> rc.buildRobot(RobotType.REFINERY, Direction.NORTH));
+                assertCant(GameActionExceptionType.CANT_DO_THAT, rc.canBuildRobot(RobotType.MINER, Direction.NORTH), () -> rc.buildRobot(RobotType.MINER, Direction.NORTH));
+                assertCant(GameActionExceptionType.CANT_DO_THAT, rc.canDigDirt(Direction.NORTH), () -> rc.digDirt(Direction.NORTH));
+                assertCant(GameActionExceptionType.CANT_DO_THAT, rc.canDepositDirt(Direction.NORTH), () -> rc.depositDirt(Direction.NORTH));
+                assertCant(GameActionExceptionType.CANT_PICK_UP_UNIT, rc.canPickUpUnit(b), () -> rc.pickUpUnit(b));
+                assertCant(GameActionExceptionType.CANT_DO_THAT, rc.canDropUnit(Direction.NORTH), () -> rc.dropUnit(Direction.NORTH));
+                assertCant(GameActionExceptionType.CANT_DO_THAT, rc.canShootUnit(d), () -> rc.shootUnit(d));
+                assertCant(GameActionExceptionType.TOO_LONG_BLOCKCHAIN_TRANSACTION, rc.canSubmitTransaction(new int[GameConstants.MAX_BLOCKCHAIN_TRANSACTION_LENGTH + 1], 1),
+                        () -> rc.submitTransaction(new int[GameConstants.MAX_BLOCKCHAIN_TRANSACTION_LENGTH + 1], 1));
+                assertCant(GameActionExceptionType.NOT_ENOUGH_RESOURCE, rc.canSubmitTransaction(new int[1], 1000000), () -> rc.submitTransaction(new int[1], 1000000));
+                assertCant(GameActionExceptionType.OUT_OF_RANGE, rc.canSubmitTransaction(new int[1], 0), () -> rc.submitTransaction(new int[1], 0));
+
+                assertTrue(rc.canMineSoup(Direction.NORTH));
+                assertTrue(rc.canMove(Direction.NORTH));
+                rc.move(Direction.NORTH);
+                assertCant(GameActionExceptionType.IS_NOT_READY, rc.canMove(Direction.NORTH), () -> rc.move(Direction.NORTH));
+                assertCant(GameActionExceptionType.IS_NOT_READY, rc.canMineSoup(Direction.NORTH), () -> rc.mineSoup(Direction.NORTH));
+            } else if (id == g) {
+                assertTrue(rc.canShootUnit(d));
+                assertCant(GameActionExceptionType.CANT_DO_THAT, rc.canShootUnit(a), () -> rc.shootUnit(a));
+                assertCant(GameActionExceptionType.NO_ROBOT_THERE, rc.canShootUnit(-1), () -> rc.shootUnit(-1));
+            } else if (id == l) {
+                assertTrue(rc.canDigDirt(Direction.EAST));
+                assertCant(GameActionExceptionType.OUT_OF_RANGE, rc.canDigDirt(Direction.NORTH), () -> rc.digDirt(Direction.NORTH));
+                assertCant(GameActionExceptionType.NOT_ENOUGH_RESOURCE, rc.canDepositDirt(Direction.WEST), () -> rc.depositDirt(Direction.WEST));
+            } else if (id == d) {
+                assertCant(GameActionExceptionType.NOT_ENOUGH_RESOURCE, rc.canDropUnit(Direction.WEST), () -> rc.dropUnit(Direction.WEST));
+                assertCant(GameActionExceptionType.OUT_OF_RANGE, rc.canPickUpUnit(b), () -> rc.pickUpUnit(b));
+                assertCant(GameActionExceptionType.CANT_PICK_UP_UNIT, rc.canPickUpUnit(g), () -> rc.pickUpUnit(g));
+                assertCant(GameActionExceptionType.NO_ROBOT_THERE, rc.canPickUpUnit(-1), () -> rc.pickUpUnit(-1));
+
+                assertTrue(rc.canPickUpUnit(l));
+                rc.pickUpUnit(l);
+                assertCant(GameActionExceptionType.CANT_PICK_UP_UNIT, rc.canPickUpUnit(l), () -> rc.pickUpUnit(l));
+                assertCant(GameActionExceptionType.IS_NOT_READY, rc.canDropUnit(Direction.WEST), () -> rc.dropUnit(Direction.WEST));
+            }
+        });
+    }
+
+    @Test
+    public void testGetBlock() throws GameActionException {
+        LiveMap map = new TestMapBuilder("test", new MapLocation(0,0), 5, 5, 1337, 100, 0)
+            .setSoup()
+            .setWater()
+            .setPollution()
+            .setDirt()
+            .build();
+        TestGame game = new TestGame(map);
+        final int a = game.spawn(0, 0, RobotType.MINER, Team.A);
+        final int b = game.spawn(4, 4, RobotType.MINER, Team.B);
+
+        game.round((id, rc) -> {
+            if (id == a) {
+                rc.submitTransaction(new int[]{1, 2}, 2);
+                rc.submitTransaction(new int[]{3}, 5);
+            }
+        });
+        game.round((id, rc) -> {
+            Transaction[] block = rc.getBlock(1);
+            assertEquals(2, block.length);
+            assertArrayEquals(new int[]{3}, block[0].getMessage());
+            assertArrayEquals(new int[]{1, 2}, block[1].getMessage());
+            // changing one robot's block doesn't change anyone else's,
+            // and b gets its block after a
+            block[0] = null;
+        });
+        game.round((id, rc) -> {
+            assertEquals(0, rc.getBlock(2).length);
+            assertNotNull(rc.getBlock(1)[0]);
+        });
+    }
+
     /**
      * Ensure that actions take place immediately.
      */
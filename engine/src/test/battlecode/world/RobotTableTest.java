@@ -0,0 +1,83 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that robots keep their state as the robot table moves them
+ * between slots.
+ */
+public class RobotTableTest {
+
+    @Test
+    public void testViewsFollowSlots() {
+        final int width = 30;
+        final int height = 30;
+        Random random = new Random(1337);
+
+        LiveMap map = new TestMapBuilder("test", new MapLocation(0, 0), width, height, 1337, 3000, 5)
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build();
+        TestGame game = new TestGame(map);
+        GameWorld world = game.getWorld();
+        RobotTable table = world.getObjectInfo().getRobotTable();
+
+        // the soup each robot should be carrying
+        Map<Integer, Integer> expected = new HashMap<>();
+        List<InternalRobot> alive = new ArrayList<>();
+        boolean[] occupied = new boolean[width * height];
+
+        for (int step = 0; step < 3000; step++) {
+            if (alive.isEmpty() || random.nextInt(3) != 0) {
+                int x = random.nextInt(width);
+                int y = random.nextInt(height);
+                if (occupied[x + y * width])
+                    continue;
+                occupied[x + y * width] = true;
+                Team team = random.nextBoolean() ? Team.A : Team.B;
+                int id = world.spawnRobot(RobotType.MINER, new MapLocation(x, y), team);
+                InternalRobot robot = world.getObjectInfo().getRobotByID(id);
+                robot.addSoupCarrying(id % 97);
+                expected.put(id, id % 97);
+                alive.add(robot);
+            } else {
+                InternalRobot robot = alive.remove(random.nextInt(alive.size()));
+                MapLocation loc = robot.getLocation();
+                occupied[loc.x + loc.y * width] = false;
+                world.destroyRobot(robot.getID());
+
+                // the view still reports the robot's last state
+                assertNull(world.getObjectInfo().getRobotByID(robot.getID()));
+                assertEquals(loc, robot.getLocation());
+                assertEquals((int) expected.remove(robot.getID()), robot.getSoupCarrying());
+            }
+
+            assertEquals(alive.size(), table.size());
+            for (int slot = 0; slot < table.size(); slot++) {
+                InternalRobot robot = table.getRobot(slot);
+                assertEquals(slot, table.getSlot(robot.getID()));
+                assertEquals(robot.getID(), table.getID(slot));
+            }
+            for (InternalRobot robot : alive) {
+                assertSame(robot, world.getObjectInfo().getRobotByID(robot.getID()));
+                assertEquals((int) expected.get(robot.getID()), robot.getSoupCarrying());
+                assertEquals(robot.getLocation(), table.getLocation(table.getSlot(robot.getID())));
+            }
+        }
+    }
+}
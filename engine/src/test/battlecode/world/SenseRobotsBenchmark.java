@@ -0,0 +1,85 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotInfo;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import battlecode.util.Benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares senseNearbyRobots as it was, a visitor that checks every robot
+ * it finds again, with the single scan in GameWorld.getSensedRobots, at a
+ * few densities of robots. Not a unit test; run it with
+ * java -cp ... battlecode.world.SenseRobotsBenchmark
+ */
+public class SenseRobotsBenchmark {
+
+    private static final int ITERATIONS = 100000;
+
+    public static void main(String[] args) {
+        for (double density : new double[]{0.01, 0.1, 0.5}) {
+            LiveMap map = new TestMapBuilder("bench", new MapLocation(0, 0), 64, 64, 1337, 3000, 0)
+                    .setSoup()
+                    .setWater()
+                    .setPollution()
+                    .setDirt()
+                    .build();
+            TestGame game = new TestGame(map);
+            GameWorld world = game.getWorld();
+
+            Random random = new Random(1337);
+            for (int x = 0; x < 64; x++)
+                for (int y = 0; y < 64; y++)
+                    if (random.nextDouble() < density)
+                        world.spawnRobot(RobotType.MINER, new MapLocation(x, y), random.nextBoolean() ? Team.A : Team.B);
+            InternalRobot[] sensors = new InternalRobot[1024];
+            for (int i = 0; i < sensors.length; i++) {
+                MapLocation loc;
+                do {
+                    loc = new MapLocation(random.nextInt(64), random.nextInt(64));
+                } while (world.getRobot(loc) == null);
+                sensors[i] = world.getRobot(loc);
+            }
+
+            System.out.println("density = " + density);
+            for (Team team : new Team[]{null, Team.B}) {
+                Benchmark.run("  " + team + ", visitor (old)", ITERATIONS, "robots", () -> {
+                    int total = 0;
+                    for (int i = 0; i < ITERATIONS; i++)
+                        total += legacySenseNearbyRobots(world, sensors[i & 1023], team).length;
+                    return total;
+                });
+                Benchmark.run("  " + team + ", single scan", ITERATIONS, "robots", () -> {
+                    int total = 0;
+                    for (int i = 0; i < ITERATIONS; i++)
+                        total += sensors[i & 1023].getController().senseNearbyRobots(-1, team).length;
+                    return total;
+                });
+            }
+        }
+    }
+
+    /**
+     * senseNearbyRobots(-1, team) as it was before the single scan.
+     */
+    private static RobotInfo[] legacySenseNearbyRobots(GameWorld world, InternalRobot robot, Team team) {
+        int sensorRadiusSquaredUpperBound = (int) Math.ceil(robot.getCurrentSensorRadiusSquared());
+        List<RobotInfo> validSensedRobots = new ArrayList<>();
+        world.forEachRobotWithinRadiusSquared(robot.getLocation(), sensorRadiusSquaredUpperBound, (sensedRobot) -> {
+            if (sensedRobot.equals(robot))
+                return true;
+            if (!(robot.canSenseLocation(sensedRobot.getLocation())
+                    && world.getGameMap().onTheMap(sensedRobot.getLocation())))
+                return true;
+            if (team != null && sensedRobot.getTeam() != team)
+                return true;
+            validSensedRobots.add(sensedRobot.getRobotInfo());
+            return true;
+        });
+        return validSensedRobots.toArray(new RobotInfo[validSensedRobots.size()]);
+    }
+}
@@ -0,0 +1,141 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that the robot index stays consistent with the robots in the world
+ * through random spawns, moves, pickups, drops and deaths.
+ */
+public class SpatialIndexTest {
+
+    private static final Team[] TEAMS = {Team.A, Team.B, Team.NEUTRAL};
+
+    @Test
+    public void testRandomOperations() {
+        final int width = 23;
+        final int height = 19;
+        Random random = new Random(1337);
+
+        LiveMap map = new TestMapBuilder("test", new MapLocation(0, 0), width, height, 1337, 3000, 5)
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build();
+        TestGame game = new TestGame(map);
+        GameWorld world = game.getWorld();
+        SpatialIndex index = world.getObjectInfo().getRobotIndex();
+
+        // the robot on every tile, and the robots held by drones
+        Map<MapLocation, Integer> expected = new HashMap<>();
+        Map<Integer, Integer> held = new HashMap<>();
+        List<Integer> alive = new ArrayList<>();
+
+        for (int step = 0; step < 5000; step++) {
+            MapLocation target = new MapLocation(random.nextInt(width), random.nextInt(height));
+            int op = random.nextInt(5);
+            if (alive.isEmpty() || op == 0) {
+                if (expected.containsKey(target))
+                    continue;
+                RobotType type = random.nextBoolean() ? RobotType.DELIVERY_DRONE : RobotType.MINER;
+                int id = world.spawnRobot(type, target, TEAMS[random.nextInt(TEAMS.length)]);
+                expected.put(target, id);
+                alive.add(id);
+                continue;
+            }
+
+            int id = alive.get(random.nextInt(alive.size()));
+            InternalRobot robot = world.getObjectInfo().getRobotByID(id);
+            if (op == 1) {
+                // move
+                if (robot.isBlocked() || expected.containsKey(target))
+                    continue;
+                world.moveRobot(robot.getLocation(), target);
+                expected.remove(robot.getLocation());
+                robot.setLocation(target);
+                expected.put(target, id);
+                if (robot.isCurrentlyHoldingUnit())
+                    world.getObjectInfo().getRobotByID(robot.getIdOfUnitCurrentlyHeld()).setLocation(target);
+            } else if (op == 2) {
+                // pick up an adjacent robot
+                if (robot.getType() != RobotType.DELIVERY_DRONE || robot.isBlocked() || robot.isCurrentlyHoldingUnit())
+                    continue;
+                InternalRobot picked = null;
+                for (InternalRobot other : world.getAllRobotsWithinRadiusSquared(robot.getLocation(), 2))
+                    if (other != robot && other.getType() != RobotType.DELIVERY_DRONE)
+                        picked = other;
+                if (picked == null)
+                    continue;
+                picked.blockUnit();
+                world.removeRobot(picked.getLocation());
+                expected.remove(picked.getLocation());
+                robot.pickUpUnit(picked.getID());
+                picked.setLocation(robot.getLocation());
+                held.put(picked.getID(), id);
+            } else if (op == 3) {
+                // drop
+                if (!robot.isCurrentlyHoldingUnit() || expected.containsKey(target))
+                    continue;
+                InternalRobot dropped = world.getObjectInfo().getRobotByID(robot.getIdOfUnitCurrentlyHeld());
+                dropped.unblockUnit();
+                dropped.setLocation(target);
+                robot.dropUnit();
+                world.addRobot(target, dropped);
+                expected.put(target, dropped.getID());
+                held.remove(dropped.getID());
+            } else {
+                // destroy; drones drop what they hold where they stand
+                if (robot.isCurrentlyHoldingUnit())
+                    continue;
+                if (robot.isBlocked()) {
+                    InternalRobot drone = world.getObjectInfo().getRobotByID(held.remove(id));
+                    drone.dropUnit();
+                } else {
+                    expected.remove(robot.getLocation());
+                }
+                world.destroyRobot(id);
+                alive.remove((Integer) id);
+            }
+
+            checkConsistent(world, index, expected, width, height);
+        }
+    }
+
+    private static void checkConsistent(GameWorld world, SpatialIndex index, Map<MapLocation, Integer> expected,
+                                        int width, int height) {
+        assertEquals(expected.size(), index.size());
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                MapLocation loc = new MapLocation(x, y);
+                int idx = index.indexOf(loc);
+                Integer id = expected.get(loc);
+                if (id == null) {
+                    assertEquals(SpatialIndex.NO_ROBOT, index.getRobotID(idx));
+                    assertNull(world.getRobot(loc));
+                    for (Team team : TEAMS)
+                        assertEquals(false, index.isOccupiedBy(idx, team));
+                } else {
+                    InternalRobot robot = world.getObjectInfo().getRobotByID(id);
+                    assertEquals((int) id, index.getRobotID(idx));
+                    assertSame(robot, world.getRobot(loc));
+                    assertEquals(loc, robot.getLocation());
+                    for (Team team : TEAMS)
+                        assertEquals(team == robot.getTeam(), index.isOccupiedBy(idx, team));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+import { flatbuffers } from 'flatbuffers';
+
+/**
+ * The first four bytes of a batch of events: "bcb1".
+ */
+const MAGIC = [0x62, 0x63, 0x62, 0x31];
+
+/**
+ * Whether a websocket message from the server is a batch of events, rather
+ * than a single event. See README.md.
+ */
+export function isBatch(message: Uint8Array): boolean {
+  if (message.length < MAGIC.length) {
+    return false;
+  }
+  for (let i = 0; i < MAGIC.length; i++) {
+    if (message[i] !== MAGIC[i]) {
+      return false;
+    }
+  }
+  return true;
+}
+
+/**
+ * Split a websocket message from the server into its events, each ready for
+ * schema.EventWrapper.getRootAsEventWrapper. A message that isn't a batch is
+ * a single event. The buffers share the message's memory.
+ */
+export function readEvents(message: Uint8Array): flatbuffers.ByteBuffer[] {
+  if (!isBatch(message)) {
+    return [new flatbuffers.ByteBuffer(message)];
+  }
+  const view = new DataView(message.buffer, message.byteOffset, message.byteLength);
+  const events: flatbuffers.ByteBuffer[] = [];
+  let offset = MAGIC.length;
+  while (offset < message.length) {
+    const length = view.getUint32(offset, true);
+    offset += 4;
+    events.push(new flatbuffers.ByteBuffer(message.subarray(offset, offset + length)));
+    offset += length;
+  }
+  return events;
+}
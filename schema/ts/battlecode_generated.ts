@@ -2360,6 +2360,327 @@ static createMatchFooter(builder:flatbuffers.Builder, winner:number, totalRounds
 }
 }
 }
+/**
+ * The complete state of a match at the end of a round. Rounds only hold
+ * what changed, so starting from the latest keyframe saves a reader from
+ * applying every round before it.
+ *
+ * @constructor
+ */
+export namespace battlecode.schema{
+export class Keyframe {
+  bb: flatbuffers.ByteBuffer|null = null;
+
+  bb_pos:number = 0;
+/**
+ * @param number i
+ * @param flatbuffers.ByteBuffer bb
+ * @returns Keyframe
+ */
+__init(i:number, bb:flatbuffers.ByteBuffer):Keyframe {
+  this.bb_pos = i;
+  this.bb = bb;
+  return this;
+};
+
+/**
+ * @param flatbuffers.ByteBuffer bb
+ * @param Keyframe= obj
+ * @returns Keyframe
+ */
+static getRootAsKeyframe(bb:flatbuffers.ByteBuffer, obj?:Keyframe):Keyframe {
+  return (obj || new Keyframe).__init(bb.readInt32(bb.position()) + bb.position(), bb);
+};
+
+/**
+ * The bodies on the map, where they are at the end of the round.
+ *
+ * @param battlecode.schema.SpawnedBodyTable= obj
+ * @returns battlecode.schema.SpawnedBodyTable|null
+ */
+bodies(obj?:battlecode.schema.SpawnedBodyTable):battlecode.schema.SpawnedBodyTable|null {
+  var offset = this.bb!.__offset(this.bb_pos, 4);
+  return offset ? (obj || new battlecode.schema.SpawnedBodyTable).__init(this.bb!.__indirect(this.bb_pos + offset), this.bb!) : null;
+};
+
+/**
+ * The dirt levels.
+ *
+ * @param number index
+ * @returns number
+ */
+dirt(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 6);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+dirtLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 6);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+dirtArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 6);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * Whether each location is flooded.
+ *
+ * @param number index
+ * @returns boolean
+ */
+water(index: number):boolean|null {
+  var offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? !!this.bb!.readInt8(this.bb!.__vector(this.bb_pos + offset) + index) : false;
+};
+
+/**
+ * @returns number
+ */
+waterLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int8Array
+ */
+waterArray():Int8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? new Int8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The pollution levels, including local effects.
+ *
+ * @param number index
+ * @returns number
+ */
+pollution(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+pollutionLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+pollutionArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The amount of crude soup left to be mined.
+ *
+ * @param number index
+ * @returns number
+ */
+soup(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 12);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+soupLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 12);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+soupArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 12);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The water level.
+ *
+ * @returns number
+ */
+waterLevel():number {
+  var offset = this.bb!.__offset(this.bb_pos, 14);
+  return offset ? this.bb!.readFloat32(this.bb_pos + offset) : 0.0;
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ */
+static startKeyframe(builder:flatbuffers.Builder) {
+  builder.startObject(6);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset bodiesOffset
+ */
+static addBodies(builder:flatbuffers.Builder, bodiesOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(0, bodiesOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset dirtOffset
+ */
+static addDirt(builder:flatbuffers.Builder, dirtOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(1, dirtOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createDirtVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startDirtVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset waterOffset
+ */
+static addWater(builder:flatbuffers.Builder, waterOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(2, waterOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<boolean> data
+ * @returns flatbuffers.Offset
+ */
+static createWaterVector(builder:flatbuffers.Builder, data:boolean[]):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(+data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startWaterVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset pollutionOffset
+ */
+static addPollution(builder:flatbuffers.Builder, pollutionOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(3, pollutionOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createPollutionVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startPollutionVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset soupOffset
+ */
+static addSoup(builder:flatbuffers.Builder, soupOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(4, soupOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createSoupVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startSoupVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number waterLevel
+ */
+static addWaterLevel(builder:flatbuffers.Builder, waterLevel:number) {
+  builder.addFieldFloat32(5, waterLevel, 0.0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @returns flatbuffers.Offset
+ */
+static endKeyframe(builder:flatbuffers.Builder):flatbuffers.Offset {
+  var offset = builder.endObject();
+  return offset;
+};
+
+static createKeyframe(builder:flatbuffers.Builder, bodiesOffset:flatbuffers.Offset, dirtOffset:flatbuffers.Offset, waterOffset:flatbuffers.Offset, pollutionOffset:flatbuffers.Offset, soupOffset:flatbuffers.Offset, waterLevel:number):flatbuffers.Offset {
+  Keyframe.startKeyframe(builder);
+  Keyframe.addBodies(builder, bodiesOffset);
+  Keyframe.addDirt(builder, dirtOffset);
+  Keyframe.addWater(builder, waterOffset);
+  Keyframe.addPollution(builder, pollutionOffset);
+  Keyframe.addSoup(builder, soupOffset);
+  Keyframe.addWaterLevel(builder, waterLevel);
+  return Keyframe.endKeyframe(builder);
+}
+}
+}
 /**
  * A single time-step in a Game.
  * The bulk of the data in the file is stored in tables like this.
@@ -3018,11 +3339,23 @@ bytecodesUsedArray():Int32Array|null {
   return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
 };
 
+/**
+ * The state of the match at the end of this round. Only some rounds
+ * have one, every so many rounds, if the engine is asked for them.
+ *
+ * @param battlecode.schema.Keyframe= obj
+ * @returns battlecode.schema.Keyframe|null
+ */
+keyframe(obj?:battlecode.schema.Keyframe):battlecode.schema.Keyframe|null {
+  var offset = this.bb!.__offset(this.bb_pos, 66);
+  return offset ? (obj || new battlecode.schema.Keyframe).__init(this.bb!.__indirect(this.bb_pos + offset), this.bb!) : null;
+};
+
 /**
  * @param flatbuffers.Builder builder
  */
 static startRound(builder:flatbuffers.Builder) {
-  builder.startObject(31);
+  builder.startObject(32);
 };
 
 /**
@@ -3630,6 +3963,14 @@ static startBytecodesUsedVector(builder:flatbuffers.Builder, numElems:number) {
   builder.startVector(4, numElems, 4);
 };
 
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset keyframeOffset
+ */
+static addKeyframe(builder:flatbuffers.Builder, keyframeOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(31, keyframeOffset, 0);
+};
+
 /**
  * @param flatbuffers.Builder builder
  * @returns flatbuffers.Offset
@@ -3639,7 +3980,7 @@ static endRound(builder:flatbuffers.Builder):flatbuffers.Offset {
   return offset;
 };
 
-static createRound(builder:flatbuffers.Builder, teamIDsOffset:flatbuffers.Offset, teamSoupsOffset:flatbuffers.Offset, movedIDsOffset:flatbuffers.Offset, movedLocsOffset:flatbuffers.Offset, spawnedBodiesOffset:flatbuffers.Offset, diedIDsOffset:flatbuffers.Offset, actionIDsOffset:flatbuffers.Offset, actionsOffset:flatbuffers.Offset, actionTargetsOffset:flatbuffers.Offset, dirtChangedLocsOffset:flatbuffers.Offset, dirtChangesOffset:flatbuffers.Offset, waterChangedLocsOffset:flatbuffers.Offset, globalPollution:number, localPollutionsOffset:flatbuffers.Offset, soupChangedLocsOffset:flatbuffers.Offset, soupChangesOffset:flatbuffers.Offset, newMessagesCostsOffset:flatbuffers.Offset, newMessagesOffset:flatbuffers.Offset, broadcastedMessagesCostsOffset:flatbuffers.Offset, broadcastedMessagesOffset:flatbuffers.Offset, indicatorDotIDsOffset:flatbuffers.Offset, indicatorDotLocsOffset:flatbuffers.Offset, indicatorDotRGBsOffset:flatbuffers.Offset, indicatorLineIDsOffset:flatbuffers.Offset, indicatorLineStartLocsOffset:flatbuffers.Offset, indicatorLineEndLocsOffset:flatbuffers.Offset, indicatorLineRGBsOffset:flatbuffers.Offset, logsOffset:flatbuffers.Offset, roundID:number, bytecodeIDsOffset:flatbuffers.Offset, bytecodesUsedOffset:flatbuffers.Offset):flatbuffers.Offset {
+static createRound(builder:flatbuffers.Builder, teamIDsOffset:flatbuffers.Offset, teamSoupsOffset:flatbuffers.Offset, movedIDsOffset:flatbuffers.Offset, movedLocsOffset:flatbuffers.Offset, spawnedBodiesOffset:flatbuffers.Offset, diedIDsOffset:flatbuffers.Offset, actionIDsOffset:flatbuffers.Offset, actionsOffset:flatbuffers.Offset, actionTargetsOffset:flatbuffers.Offset, dirtChangedLocsOffset:flatbuffers.Offset, dirtChangesOffset:flatbuffers.Offset, waterChangedLocsOffset:flatbuffers.Offset, globalPollution:number, localPollutionsOffset:flatbuffers.Offset, soupChangedLocsOffset:flatbuffers.Offset, soupChangesOffset:flatbuffers.Offset, newMessagesCostsOffset:flatbuffers.Offset, newMessagesOffset:flatbuffers.Offset, broadcastedMessagesCostsOffset:flatbuffers.Offset, broadcastedMessagesOffset:flatbuffers.Offset, indicatorDotIDsOffset:flatbuffers.Offset, indicatorDotLocsOffset:flatbuffers.Offset, indicatorDotRGBsOffset:flatbuffers.Offset, indicatorLineIDsOffset:flatbuffers.Offset, indicatorLineStartLocsOffset:flatbuffers.Offset, indicatorLineEndLocsOffset:flatbuffers.Offset, indicatorLineRGBsOffset:flatbuffers.Offset, logsOffset:flatbuffers.Offset, roundID:number, bytecodeIDsOffset:flatbuffers.Offset, bytecodesUsedOffset:flatbuffers.Offset, keyframeOffset:flatbuffers.Offset):flatbuffers.Offset {
   Round.startRound(builder);
   Round.addTeamIDs(builder, teamIDsOffset);
   Round.addTeamSoups(builder, teamSoupsOffset);
@@ -3672,6 +4013,7 @@ static createRound(builder:flatbuffers.Builder, teamIDsOffset:flatbuffers.Offset
   Round.addRoundID(builder, roundID);
   Round.addBytecodeIDs(builder, bytecodeIDsOffset);
   Round.addBytecodesUsed(builder, bytecodesUsedOffset);
+  Round.addKeyframe(builder, keyframeOffset);
   return Round.endRound(builder);
 }
 }
@@ -4,4 +4,6 @@ export { schema };
 
 export { flatbuffers } from 'flatbuffers';
 
+export { isBatch, readEvents } from './batch';
+
 // export { battlecode.schema as schema } from './battlecode_generated';